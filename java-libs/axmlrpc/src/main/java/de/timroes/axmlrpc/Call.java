@@ -3,6 +3,8 @@ package de.timroes.axmlrpc;
 import de.timroes.axmlrpc.serializer.SerializerHandler;
 import de.timroes.axmlrpc.xmlcreator.SimpleXMLCreator;
 import de.timroes.axmlrpc.xmlcreator.XmlElement;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
  * A Call object represents a call of a remote methode.
@@ -74,6 +76,41 @@ public class Call {
 		return result;
 	}
 
+	/**
+	 * Write the xml representation of the method call, the same as
+	 * {@link #getXML(boolean)} returns, straight to a writer. No xml tree nor
+	 * string of the whole call is built.
+	 *
+	 * @param out The writer to write to.
+	 * @throws XMLRPCException Will be thrown whenever the xml representation cannot
+	 * 		be build without errors.
+	 * @throws IOException Will be thrown if the writer fails.
+	 */
+	public void writeXML(Writer out) throws XMLRPCException, IOException {
+
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		XmlElement.writeStart(out, XMLRPCClient.METHOD_CALL);
+
+		XmlElement methodName = new XmlElement(XMLRPCClient.METHOD_NAME);
+		methodName.setContent(method);
+		methodName.write(out);
+
+		if(params != null && params.length > 0) {
+			XmlElement.writeStart(out, XMLRPCClient.PARAMS);
+			for(Object o : this.params) {
+				XmlElement.writeStart(out, XMLRPCClient.PARAM);
+				XmlElement.writeStart(out, XMLRPCClient.VALUE);
+				SerializerHandler.getDefault().write(o, out);
+				XmlElement.writeEnd(out, XMLRPCClient.VALUE);
+				XmlElement.writeEnd(out, XMLRPCClient.PARAM);
+			}
+			XmlElement.writeEnd(out, XMLRPCClient.PARAMS);
+		}
+
+		XmlElement.writeEnd(out, XMLRPCClient.METHOD_CALL);
+
+	}
+
 	/**
 	 * Generates the param xml tag for a specific parameter object.
 	 *
@@ -6,10 +6,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -19,6 +23,9 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * The ResponseParser parses the response of an XMLRPC server to an object.
@@ -92,6 +99,43 @@ class ResponseParser {
 
 	}
 
+	/**
+	 * Same as {@link #parse(java.io.InputStream, boolean)}, but the response is
+	 * read with a SAX parser while it is received, values are built directly
+	 * without an intermediate DOM tree.
+	 *
+	 * @param response The InputStream of the server response.
+	 * @param ignoreNamespaces Whether only local names of tags should be used.
+	 * @return The returned object.
+	 * @throws XMLRPCException Will be thrown whenever something fails.
+	 * @throws XMLRPCServerException Will be thrown, if the server returns an error.
+	 */
+	public Object parseStreaming(InputStream response, boolean ignoreNamespaces) throws XMLRPCException {
+
+		ResponseHandler handler = new ResponseHandler(ignoreNamespaces);
+		try {
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.newSAXParser().parse(response, handler);
+		} catch (SAXException ex) {
+			if(ex.getException() instanceof XMLRPCException)
+				throw (XMLRPCException)ex.getException();
+			throw new XMLRPCException("Error getting result from server.", ex);
+		} catch (Exception ex) {
+			throw new XMLRPCException("Error getting result from server.", ex);
+		}
+
+		if(handler.fault != null) {
+			throw new XMLRPCServerException((String)handler.fault.get(FAULT_STRING),
+					(Integer)handler.fault.get(FAULT_CODE));
+		}
+		if(!handler.hasResult) {
+			throw new XMLRPCException("The methodResponse tag must contain a fault or params tag.");
+		}
+		return handler.result;
+
+	}
+
 	public static void printDocument(Document doc, OutputStream out) throws IOException, TransformerException {
 		TransformerFactory tf = TransformerFactory.newInstance();
 		Transformer transformer = tf.newTransformer();
@@ -122,4 +166,182 @@ class ResponseParser {
 
 	}
 
+	/**
+	 * Builds the returned object while the response is parsed.
+	 * Open values, structs and arrays are kept on a stack.
+	 */
+	private static class ResponseHandler extends DefaultHandler {
+
+		private static final String STRUCT_MEMBER = "member";
+		private static final String STRUCT_NAME = "name";
+		private static final String ARRAY_DATA = "data";
+
+		private final boolean ignoreNamespaces;
+		private final List<Object> stack = new ArrayList<Object>();
+		private final StringBuilder text = new StringBuilder();
+		private int depth = 0;
+		private boolean inFault = false;
+
+		Object result;
+		boolean hasResult = false;
+		Map<String,Object> fault;
+
+		ResponseHandler(boolean ignoreNamespaces) {
+			this.ignoreNamespaces = ignoreNamespaces;
+		}
+
+		/* A value element being parsed */
+		private static class Value {
+			String type;
+			Object value;
+			boolean done;
+		}
+
+		/* A struct member being parsed */
+		private static class Member {
+			final Map<String,Object> map = new HashMap<String, Object>();
+			String name;
+			Object value;
+			boolean hasValue;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName,
+				Attributes attributes) throws SAXException {
+
+			String name = ignoreNamespaces && localName != null && localName.length() > 0
+					? localName : qName;
+			++depth;
+			Object top = peek();
+
+			if(depth == 1) {
+				if(!XMLRPCClient.METHOD_RESPONSE.equals(name))
+					fail("MethodResponse root tag is missing.");
+			} else if(depth == 2) {
+				if(XMLRPCClient.FAULT.equals(name))
+					inFault = true;
+				else if(!XMLRPCClient.PARAMS.equals(name))
+					fail("The methodResponse tag must contain a fault or params tag.");
+			} else if(top == null && !inFault && XMLRPCClient.PARAM.equals(name)) {
+				// The value of the param follows
+			} else if(XMLRPCClient.VALUE.equals(name)) {
+				if(top instanceof Value)
+					fail("Value tag is missing around value.");
+				stack.add(new Value());
+				text.setLength(0);
+			} else if(top instanceof Value) {
+				Value value = (Value)top;
+				if(value.type != null)
+					fail("Element has more than one children.");
+				value.type = name;
+				if(SerializerHandler.TYPE_STRUCT.equals(name)) {
+					stack.add(new Member());
+				} else if(SerializerHandler.TYPE_ARRAY.equals(name)) {
+					stack.add(new ArrayList<Object>());
+				}
+				text.setLength(0);
+			} else if(top instanceof Member && STRUCT_MEMBER.equals(name)) {
+				Member member = (Member)top;
+				member.name = null;
+				member.hasValue = false;
+			} else if(top instanceof Member && STRUCT_NAME.equals(name)) {
+				text.setLength(0);
+			} else if(top instanceof List && ARRAY_DATA.equals(name)) {
+				// Array values follow
+			} else {
+				fail("Unexpected tag '" + name + "'.");
+			}
+
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+
+			String name = ignoreNamespaces && localName != null && localName.length() > 0
+					? localName : qName;
+			--depth;
+			Object top = peek();
+
+			if(XMLRPCClient.VALUE.equals(name) && top instanceof Value) {
+				Value value = (Value)pop();
+				if(!value.done)
+					value.value = deserialize(null, text.toString());
+				addValue(value.value);
+			} else if(top instanceof Value && name.equals(((Value)top).type)) {
+				Value value = (Value)top;
+				value.value = deserialize(value.type, text.toString());
+				value.done = true;
+			} else if(top instanceof Member && SerializerHandler.TYPE_STRUCT.equals(name)) {
+				Value value = (Value)stack.get(stack.size() - 2);
+				value.value = ((Member)pop()).map;
+				value.done = true;
+			} else if(top instanceof List && SerializerHandler.TYPE_ARRAY.equals(name)) {
+				Value value = (Value)stack.get(stack.size() - 2);
+				value.value = ((List<?>)pop()).toArray();
+				value.done = true;
+			} else if(top instanceof Member && STRUCT_NAME.equals(name)) {
+				Member member = (Member)top;
+				if(member.name != null)
+					fail("Name of a struct member cannot be set twice.");
+				member.name = text.toString();
+			} else if(top instanceof Member && STRUCT_MEMBER.equals(name)) {
+				Member member = (Member)top;
+				member.map.put(member.name, member.value);
+			}
+
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			text.append(ch, start, length);
+		}
+
+		private void addValue(Object value) throws SAXException {
+			Object top = peek();
+			if(top instanceof Member) {
+				Member member = (Member)top;
+				if(member.hasValue)
+					fail("Value of a struct member cannot be set twice.");
+				member.value = value;
+				member.hasValue = true;
+			} else if(top instanceof List) {
+				@SuppressWarnings("unchecked")
+				List<Object> list = (List<Object>)top;
+				list.add(value);
+			} else if(inFault) {
+				if(!(value instanceof Map))
+					fail("The fault value must be a struct.");
+				@SuppressWarnings("unchecked")
+				Map<String,Object> map = (Map<String,Object>)value;
+				fault = map;
+			} else {
+				if(hasResult)
+					fail("Element has more than one children.");
+				result = value;
+				hasResult = true;
+			}
+		}
+
+		private Object deserialize(String type, String content) throws SAXException {
+			try {
+				return SerializerHandler.getDefault().deserialize(type, content);
+			} catch(XMLRPCException ex) {
+				throw new SAXException(ex);
+			}
+		}
+
+		private Object peek() {
+			return stack.isEmpty() ? null : stack.get(stack.size() - 1);
+		}
+
+		private Object pop() {
+			return stack.remove(stack.size() - 1);
+		}
+
+		private static void fail(String message) throws SAXException {
+			throw new SAXException(new XMLRPCException(message));
+		}
+
+	}
+
 }
\ No newline at end of file
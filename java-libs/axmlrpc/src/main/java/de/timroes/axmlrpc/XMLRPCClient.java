@@ -1,9 +1,13 @@
 package de.timroes.axmlrpc;
 
 import de.timroes.axmlrpc.serializer.SerializerHandler;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.*;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
@@ -11,6 +15,11 @@ import java.security.cert.X509Certificate;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
 import javax.net.ssl.*;
 
 /**
@@ -36,6 +45,8 @@ public class XMLRPCClient {
 	static final String TYPE_XML = "text/xml; charset=utf-8";
 	static final String HOST = "Host";
 	static final String CONTENT_LENGTH = "Content-Length";
+	static final String ACCEPT_ENCODING = "Accept-Encoding";
+	static final String ENCODING_GZIP = "gzip";
 	static final String HTTP_POST = "POST";
 
 	/**
@@ -157,6 +168,22 @@ public class XMLRPCClient {
 	 */
 	public static final int FLAGS_DEBUG = 0x2000;
 
+	/**
+	 * With this flag enabled, responses are parsed while they are received,
+	 * without building any xml tree or string of the whole message in memory.
+	 * This is recommended for large responses on devices with little memory.
+	 * Requests are serialized without an intermediate string, but they are
+	 * still buffered as bytes to be sent with a fixed length, as some servers
+	 * do not accept chunked requests.
+	 */
+	public static final int FLAGS_STREAMING = 0x4000;
+
+	/**
+	 * With this flag enabled, the client asks the server for gzip compressed
+	 * responses and decompresses them while they are parsed.
+	 */
+	public static final int FLAGS_GZIP = 0x8000;
+
 	/**
 	 * This flag disables all SSL warnings. It is an alternative to use
 	 * FLAGS_SSL_IGNORE_INVALID_CERT | FLAGS_SSL_IGNORE_INVALID_HOST. There
@@ -193,6 +220,18 @@ public class XMLRPCClient {
 
 	private int timeout;
 
+	/**
+	 * Threads running asynchronous calls, shared by all clients.
+	 * Idle threads are kept for reuse a short time.
+	 */
+	private static final ExecutorService ASYNC_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "aXMLRPC async call");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	/**
 	 * Create a new XMLRPC client for the given URL.
 	 *
@@ -478,7 +517,7 @@ public class XMLRPCClient {
 	 */
 	public long callAsync(XMLRPCCallback listener, String methodName, Object... params) {
 		long id = System.currentTimeMillis();
-		new Caller(listener, id, methodName, params).start();
+		ASYNC_EXECUTOR.execute(new Caller(listener, id, methodName, params));
 		return id;
 	}
 
@@ -495,11 +534,11 @@ public class XMLRPCClient {
 			return;
 		}
 
-		// Cancel the thread
+		// Cancel the call
 		cancel.cancel();
 
 		try {
-			// Wait for the thread
+			// Wait for the call to end
 			cancel.join();
 		} catch (InterruptedException ex) {
 			// Ignore this
@@ -536,9 +575,9 @@ public class XMLRPCClient {
 
 	/**
 	 * The Caller class is used to make asynchronous calls to the server.
-	 * For synchronous calls the Thread function of this class isn't used.
+	 * For synchronous calls the run method of this class isn't used.
 	 */
-	private class Caller extends Thread {
+	private class Caller implements Runnable {
 
 		private XMLRPCCallback listener;
 		private long threadId;
@@ -546,7 +585,8 @@ public class XMLRPCClient {
 		private Object[] params;
 
 		private volatile boolean canceled;
-		private HttpURLConnection http;
+		private volatile HttpURLConnection http;
+		private final CountDownLatch done = new CountDownLatch(1);
 
 		/**
 		 * Create a new Caller for asynchronous use.
@@ -594,6 +634,7 @@ public class XMLRPCClient {
 				listener.onError(threadId, ex);
 			} finally {
 				backgroundCalls.remove(threadId);
+				done.countDown();
 			}
 
 		}
@@ -602,10 +643,19 @@ public class XMLRPCClient {
 		 * Cancel this call. This will abort the network communication.
 		 */
 		public void cancel() {
-			// Set the flag, that this thread has been canceled
+			// Set the flag, that this call has been canceled
 			canceled = true;
 			// Disconnect the connection to the server
-			http.disconnect();
+			HttpURLConnection connection = http;
+			if(connection != null)
+				connection.disconnect();
+		}
+
+		/**
+		 * Wait until the background call has ended.
+		 */
+		public void join() throws InterruptedException {
+			done.await();
 		}
 
 		/**
@@ -652,13 +702,28 @@ public class XMLRPCClient {
 					http.setRequestProperty(param.getKey(), param.getValue());
 				}
 
+				if(isFlagSet(FLAGS_GZIP))
+					http.setRequestProperty(ACCEPT_ENCODING, ENCODING_GZIP);
+
 				authManager.setAuthentication(http);
 				cookieManager.setCookies(http);
 
-				OutputStreamWriter stream = new OutputStreamWriter(http.getOutputStream());
-				stream.write(c.getXML(isFlagSet(FLAGS_DEBUG)));
-				stream.flush();
-				stream.close();
+				if(isFlagSet(FLAGS_STREAMING) && !isFlagSet(FLAGS_DEBUG)) {
+					// Serialize once to bytes, so the connection does not buffer the request again
+					ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+					Writer writer = new OutputStreamWriter(body, "UTF-8");
+					c.writeXML(writer);
+					writer.flush();
+					http.setFixedLengthStreamingMode(body.size());
+					OutputStream stream = http.getOutputStream();
+					body.writeTo(stream);
+					stream.close();
+				} else {
+					OutputStreamWriter stream = new OutputStreamWriter(http.getOutputStream());
+					stream.write(c.getXML(isFlagSet(FLAGS_DEBUG)));
+					stream.flush();
+					stream.close();
+				}
 
 				// Try to get the status code from the connection
 				int statusCode;
@@ -741,7 +806,17 @@ public class XMLRPCClient {
 
 				cookieManager.readCookies(http);
 
-				return responseParser.parse(istream, isFlagSet(FLAGS_DEBUG));
+				if(ENCODING_GZIP.equalsIgnoreCase(http.getContentEncoding()))
+					istream = new GZIPInputStream(istream);
+
+				try {
+					if(isFlagSet(FLAGS_STREAMING) && !isFlagSet(FLAGS_DEBUG))
+						return responseParser.parseStreaming(new BufferedInputStream(istream),
+								isFlagSet(FLAGS_IGNORE_NAMESPACES));
+					return responseParser.parse(istream, isFlagSet(FLAGS_DEBUG));
+				} finally {
+					release(istream);
+				}
 
 			} catch(SocketTimeoutException ex) {
 				throw new XMLRPCTimeoutException("The XMLRPC call timed out.");
@@ -811,6 +886,26 @@ public class XMLRPCClient {
 
 		}
 
+		/**
+		 * Read the response stream to its end and close it, so the connection
+		 * can be kept alive and reused for the next call.
+		 */
+		private void release(InputStream istream) {
+			try {
+				byte[] buffer = new byte[1024];
+				while(istream.read(buffer) != -1) {
+					// Drain what the parser left
+				}
+			} catch(IOException ex) {
+				// The parser may already have closed the stream
+			}
+			try {
+				istream.close();
+			} catch(IOException ex) {
+				// Nothing to do
+			}
+		}
+
 	}
 
 	private class CancelException extends RuntimeException { }
@@ -13,7 +13,11 @@ import org.w3c.dom.Element;
 public class Base64Serializer implements Serializer {
 
 	public Object deserialize(Element content) throws XMLRPCException {
-		return Base64.decode(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+		return deserialize(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+	}
+
+	public Object deserialize(String text) {
+		return Base64.decode(text);
 	}
 
 	public XmlElement serialize(Object object) {
@@ -12,8 +12,11 @@ import org.w3c.dom.Element;
 public class BooleanSerializer implements Serializer {
 
 	public Object deserialize(Element content) throws XMLRPCException {
-		return (XMLUtil.getOnlyTextContent(content.getChildNodes()).equals("1"))
-				? Boolean.TRUE : Boolean.FALSE;
+		return deserialize(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+	}
+
+	public Object deserialize(String text) {
+		return text.equals("1") ? Boolean.TRUE : Boolean.FALSE;
 	}
 
 	public XmlElement serialize(Object object) {
@@ -14,7 +14,11 @@ import org.w3c.dom.Element;
 public class DoubleSerializer implements Serializer {
 
 	public Object deserialize(Element content) throws XMLRPCException {
-		return Double.valueOf(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+		return deserialize(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+	}
+
+	public Object deserialize(String text) {
+		return Double.valueOf(text);
 	}
 
 	public XmlElement serialize(Object object) {
@@ -12,7 +12,11 @@ import org.w3c.dom.Element;
 public class IntSerializer implements Serializer {
 
 	public Object deserialize(Element content) throws XMLRPCException {
-		return Integer.parseInt(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+		return deserialize(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+	}
+
+	public Object deserialize(String text) {
+		return Integer.parseInt(text);
 	}
 
 	public XmlElement serialize(Object object) {
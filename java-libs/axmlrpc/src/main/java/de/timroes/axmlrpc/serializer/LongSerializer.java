@@ -12,7 +12,11 @@ import org.w3c.dom.Element;
 class LongSerializer implements Serializer {
 
 	public Object deserialize(Element content) throws XMLRPCException {
-		return Long.parseLong(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+		return deserialize(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+	}
+
+	public Object deserialize(String text) {
+		return Long.parseLong(text);
 	}
 
 	public XmlElement serialize(Object object) {
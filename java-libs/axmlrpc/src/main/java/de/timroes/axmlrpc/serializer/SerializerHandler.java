@@ -5,9 +5,13 @@ import de.timroes.axmlrpc.XMLRPCException;
 import de.timroes.axmlrpc.XMLRPCRuntimeException;
 import de.timroes.axmlrpc.XMLUtil;
 import de.timroes.axmlrpc.xmlcreator.XmlElement;
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.Map;
 import org.w3c.dom.Element;
 
@@ -34,6 +38,10 @@ public class SerializerHandler {
 	public static final String TYPE_BASE64 = "base64";
 	public static final String TYPE_NULL = "nil";
 
+	private static final String STRUCT_MEMBER = "member";
+	private static final String STRUCT_NAME = "name";
+	private static final String ARRAY_DATA = "data";
+
 	private static SerializerHandler instance;
 
 	/**
@@ -158,6 +166,115 @@ public class SerializerHandler {
 
 	}
 
+	/**
+	 * Deserializes the text content of a scalar type element, for parsers
+	 * which do not build an xml tree.
+	 *
+	 * @param type The name of the type element, null if the value element has
+	 *		no type element.
+	 * @param text The text content of the type element, or of the value element
+	 *		if it has no type element.
+	 * @return The deserialized object.
+	 * @throws XMLRPCException Will be thrown whenever an error occurs.
+	 */
+	public Object deserialize(String type, String text) throws XMLRPCException {
+
+		if(type == null) {
+			if((flags & XMLRPCClient.FLAGS_DEFAULT_TYPE_STRING) != 0) {
+				return string.deserialize(text);
+			} else {
+				throw new XMLRPCException("Missing type element inside of value element.");
+			}
+		}
+
+		try {
+			if((flags & XMLRPCClient.FLAGS_NIL) != 0 && TYPE_NULL.equals(type)) {
+				return null;
+			} else if(TYPE_STRING.equals(type)) {
+				return string.deserialize(text);
+			} else if(TYPE_BOOLEAN.equals(type)) {
+				return bool.deserialize(text);
+			} else if(TYPE_DOUBLE.equals(type)) {
+				return floating.deserialize(text);
+			} else if (TYPE_INT.equals(type) || TYPE_INT2.equals(type)) {
+				return integer.deserialize(text);
+			} else if(TYPE_DATETIME.equals(type)) {
+				return datetime.deserialize(text);
+			} else if (TYPE_LONG.equals(type)) {
+				if((flags & XMLRPCClient.FLAGS_8BYTE_INT) != 0) {
+					return long8.deserialize(text);
+				} else {
+					throw new XMLRPCException("8 byte integer is not in the specification. "
+							+ "You must use FLAGS_8BYTE_INT to enable the i8 tag.");
+				}
+			} else if(TYPE_BASE64.equals(type)) {
+				return base64.deserialize(text);
+			}
+		} catch(RuntimeException ex) {
+			throw new XMLRPCException("Invalid " + type + " value.", ex);
+		}
+
+		throw new XMLRPCException("No deserializer found for type '" + type + "'.");
+
+	}
+
+	/**
+	 * Write the xml representation of an object, like {@link #serialize(java.lang.Object)}
+	 * would return it, straight to a writer. Structs and arrays are streamed, so
+	 * no xml tree is built for them.
+	 *
+	 * @param object The object that should be serialized.
+	 * @param out The writer to write to.
+	 * @throws XMLRPCException Will be thrown, if the object cannot be serialized.
+	 * @throws IOException Will be thrown, if the writer fails.
+	 */
+	public void write(Object object, Writer out) throws XMLRPCException, IOException {
+
+		if(object instanceof Map) {
+			@SuppressWarnings("unchecked")
+			Map<String,Object> map = (Map<String,Object>)object;
+			if(map.isEmpty()) {
+				XmlElement.writeEmpty(out, TYPE_STRUCT);
+				return;
+			}
+			XmlElement.writeStart(out, TYPE_STRUCT);
+			for(Map.Entry<String,Object> member : map.entrySet()) {
+				XmlElement.writeStart(out, STRUCT_MEMBER);
+				XmlElement name = new XmlElement(STRUCT_NAME);
+				name.setContent(member.getKey());
+				name.write(out);
+				writeValue(member.getValue(), out);
+				XmlElement.writeEnd(out, STRUCT_MEMBER);
+			}
+			XmlElement.writeEnd(out, TYPE_STRUCT);
+		} else if(!(object instanceof byte[]) && !(object instanceof Byte[])
+				&& (object instanceof Iterable<?> || object instanceof Object[])) {
+			Iterable<?> iter = object instanceof Iterable<?>
+					? (Iterable<?>)object : Arrays.asList((Object[])object);
+			XmlElement.writeStart(out, TYPE_ARRAY);
+			Iterator<?> it = iter.iterator();
+			if(!it.hasNext()) {
+				XmlElement.writeEmpty(out, ARRAY_DATA);
+			} else {
+				XmlElement.writeStart(out, ARRAY_DATA);
+				while(it.hasNext()) {
+					writeValue(it.next(), out);
+				}
+				XmlElement.writeEnd(out, ARRAY_DATA);
+			}
+			XmlElement.writeEnd(out, TYPE_ARRAY);
+		} else {
+			serialize(object).write(out);
+		}
+
+	}
+
+	private void writeValue(Object object, Writer out) throws XMLRPCException, IOException {
+		XmlElement.writeStart(out, XMLRPCClient.VALUE);
+		write(object, out);
+		XmlElement.writeEnd(out, XMLRPCClient.VALUE);
+	}
+
 	/**
 	 * Serialize an object to its representation as an xml element.
 	 * The xml element will be the type element for the use within a value tag.
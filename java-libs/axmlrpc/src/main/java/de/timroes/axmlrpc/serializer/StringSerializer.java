@@ -20,7 +20,10 @@ public class StringSerializer implements Serializer {
 	}
 
 	public Object deserialize(Element content) throws XMLRPCException {
-		String text = XMLUtil.getOnlyTextContent(content.getChildNodes());
+		return deserialize(XMLUtil.getOnlyTextContent(content.getChildNodes()));
+	}
+
+	public String deserialize(String text) {
 		if(decodeStrings) {
 			text = text.replaceAll("&lt;", "<").replaceAll("&amp;", "&");
 		}
@@ -1,5 +1,8 @@
 package de.timroes.axmlrpc.xmlcreator;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,23 +54,67 @@ public class XmlElement {
 	 */
 	@Override
 	public String toString() {
-		StringBuilder builder = new StringBuilder();
+		StringWriter writer = new StringWriter();
+		try {
+			write(writer);
+		} catch (IOException ex) {
+			// A StringWriter never throws
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Write the representation of this xml element to the given writer,
+	 * without building it in memory.
+	 *
+	 * @param out The writer to write to.
+	 * @throws IOException Will be thrown if the writer fails.
+	 */
+	public void write(Writer out) throws IOException {
 		if(content != null && content.length() > 0) {
-			builder.append("\n<").append(name).append(">")
-					.append(content)
-					.append("</").append(name).append(">\n");
-			return builder.toString();
+			out.write("\n<");
+			out.write(name);
+			out.write(">");
+			out.write(content);
+			out.write("</");
+			out.write(name);
+			out.write(">\n");
 		} else if(children.size() > 0) {
-			builder.append("\n<").append(name).append(">");
+			writeStart(out, name);
 			for(XmlElement x : children) {
-				builder.append(x.toString());
+				x.write(out);
 			}
-			builder.append("</").append(name).append(">\n");
-			return builder.toString();
+			writeEnd(out, name);
 		} else {
-			builder.append("\n<").append(name).append("/>\n");
-			return builder.toString();
+			writeEmpty(out, name);
 		}
 	}
 
+	/**
+	 * Write the opening tag of an element with children, as {@link #write(Writer)} does.
+	 */
+	public static void writeStart(Writer out, String name) throws IOException {
+		out.write("\n<");
+		out.write(name);
+		out.write(">");
+	}
+
+	/**
+	 * Write the closing tag of an element with children, as {@link #write(Writer)} does.
+	 */
+	public static void writeEnd(Writer out, String name) throws IOException {
+		out.write("</");
+		out.write(name);
+		out.write(">\n");
+	}
+
+	/**
+	 * Write an element without content nor children, as {@link #write(Writer)} does.
+	 */
+	public static void writeEmpty(Writer out, String name) throws IOException {
+		out.write("\n<");
+		out.write(name);
+		out.write("/>\n");
+	}
+
 }
@@ -32,7 +32,7 @@ LOCAL_SRC_FILES += libvlcjni-dialog.c
 LOCAL_SRC_FILES += thumbnailer.c
 LOCAL_SRC_FILES += std_logger.c
 
-LOCAL_LDLIBS := -llog
+LOCAL_LDLIBS := -llog -ljnigraphics
 LOCAL_C_INCLUDES := $(VLC_SRC_DIR)/include
 
 ARCH=$(APP_ABI)
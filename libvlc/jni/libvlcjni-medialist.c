@@ -18,12 +18,24 @@
  * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
  *****************************************************************************/
 
+#include <ctype.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <strings.h>
 #include <pthread.h>
+#include <sys/stat.h>
 
 #include "libvlcjni-vlcobject.h"
 
 #define MEDIAS_INIT_SIZE 32
 
+/* Sort orders, see MediaList.Entries */
+#define ENTRIES_SORT_NONE 0
+#define ENTRIES_SORT_NAME 1
+#define ENTRIES_SORT_DATE 2
+#define ENTRIES_SORT_SIZE 3
+
 static const libvlc_event_type_t ml_events[] = {
     libvlc_MediaListItemAdded,
     //libvlc_MediaListWillAddItem,
@@ -155,3 +167,351 @@ Java_org_videolan_libvlc_MediaList_nativeUnlock(JNIEnv *env, jobject thiz)
         return;
     libvlc_media_list_unlock(p_obj->u.p_ml);
 }
+
+typedef struct
+{
+    char *psz_mrl;
+    char *psz_name;
+    int i_type;
+    jlong i_size;
+    jlong i_mtime;
+} ml_entry;
+
+static void
+entry_clean(ml_entry *p_entry)
+{
+    free(p_entry->psz_mrl);
+    free(p_entry->psz_name);
+}
+
+static char *
+uri_decode(const char *psz)
+{
+    char *psz_out = malloc(strlen(psz) + 1), *p = psz_out;
+    if (!psz_out)
+        return NULL;
+    while (*psz)
+    {
+        if (psz[0] == '%' && isxdigit((unsigned char) psz[1])
+         && isxdigit((unsigned char) psz[2]))
+        {
+            const char hex[3] = { psz[1], psz[2], '\0' };
+            *p++ = (char) strtol(hex, NULL, 16);
+            psz += 3;
+        }
+        else
+            *p++ = *psz++;
+    }
+    *p = '\0';
+    return psz_out;
+}
+
+/* Decoded last segment of the MRL, for items without title */
+static char *
+entry_basename(const char *psz_mrl)
+{
+    size_t i_len = strlen(psz_mrl);
+    while (i_len > 0 && psz_mrl[i_len - 1] == '/')
+        --i_len;
+    size_t i_start = i_len;
+    while (i_start > 0 && psz_mrl[i_start - 1] != '/')
+        --i_start;
+    char *psz_segment = strndup(psz_mrl + i_start, i_len - i_start);
+    if (!psz_segment)
+        return NULL;
+    char *psz_name = uri_decode(psz_segment);
+    free(psz_segment);
+    return psz_name;
+}
+
+/* Size and modification date are only known for local files */
+static void
+entry_stat(ml_entry *p_entry)
+{
+    p_entry->i_size = p_entry->i_mtime = -1;
+    if (strncmp(p_entry->psz_mrl, "file://", 7))
+        return;
+
+    char *psz_path = uri_decode(p_entry->psz_mrl + 7);
+    struct stat st;
+    if (psz_path && stat(psz_path, &st) == 0)
+    {
+        if (!S_ISDIR(st.st_mode))
+            p_entry->i_size = st.st_size;
+        p_entry->i_mtime = (jlong) st.st_mtime * 1000;
+    }
+    free(psz_path);
+}
+
+/* psz_ignored: comma separated extensions, like the ignore-filetypes option */
+static bool
+entry_is_ignored(const ml_entry *p_entry, const char *psz_ignored,
+                 bool b_show_hidden)
+{
+    if (!b_show_hidden && p_entry->psz_name[0] == '.')
+        return true;
+    if (!psz_ignored || p_entry->i_type == libvlc_media_type_directory)
+        return false;
+
+    const char *psz_ext = strrchr(p_entry->psz_name, '.');
+    if (!psz_ext || !*++psz_ext)
+        return false;
+    const size_t i_ext_len = strlen(psz_ext);
+
+    for (const char *p = psz_ignored; *p;)
+    {
+        const char *psz_end = strchr(p, ',');
+        const size_t i_len = psz_end ? (size_t) (psz_end - p) : strlen(p);
+        if (i_len == i_ext_len && !strncasecmp(p, psz_ext, i_len))
+            return true;
+        if (!psz_end)
+            break;
+        p = psz_end + 1;
+    }
+    return false;
+}
+
+/* Decode UTF-8 to UTF-16, invalid sequences are replaced by U+FFFD.
+ * NewStringUTF expects modified UTF-8: it rejects or mangles 4 bytes
+ * sequences, and decoded names may not even be valid UTF-8. */
+static jstring
+new_jstring(JNIEnv *env, const char *psz)
+{
+    const unsigned char *p = (const unsigned char *) psz;
+    const size_t i_len = strlen(psz);
+    /* One UTF-16 unit per byte at most */
+    jchar *p_utf16 = malloc((i_len > 0 ? i_len : 1) * sizeof(jchar));
+    if (!p_utf16)
+        return NULL;
+
+    jsize i_count = 0;
+    while (*p)
+    {
+        uint32_t i_cp;
+        int i_extra;
+        if (p[0] < 0x80)
+        {
+            p_utf16[i_count++] = *p++;
+            continue;
+        }
+        else if (p[0] >= 0xC2 && p[0] <= 0xDF)
+        {
+            i_cp = p[0] & 0x1F;
+            i_extra = 1;
+        }
+        else if (p[0] >= 0xE0 && p[0] <= 0xEF)
+        {
+            i_cp = p[0] & 0x0F;
+            i_extra = 2;
+        }
+        else if (p[0] >= 0xF0 && p[0] <= 0xF4)
+        {
+            i_cp = p[0] & 0x07;
+            i_extra = 3;
+        }
+        else
+        {
+            p_utf16[i_count++] = 0xFFFD;
+            ++p;
+            continue;
+        }
+
+        int i = 1;
+        for (; i <= i_extra && (p[i] & 0xC0) == 0x80; ++i)
+            i_cp = (i_cp << 6) | (p[i] & 0x3F);
+        /* Truncated, overlong, surrogate or out of range sequences */
+        if (i <= i_extra
+         || (i_extra == 2 && (i_cp < 0x800 || (i_cp >= 0xD800 && i_cp <= 0xDFFF)))
+         || (i_extra == 3 && (i_cp < 0x10000 || i_cp > 0x10FFFF)))
+        {
+            p_utf16[i_count++] = 0xFFFD;
+            p += i;
+            continue;
+        }
+        p += i;
+        if (i_cp >= 0x10000)
+        {
+            i_cp -= 0x10000;
+            p_utf16[i_count++] = 0xD800 | (i_cp >> 10);
+            p_utf16[i_count++] = 0xDC00 | (i_cp & 0x3FF);
+        }
+        else
+            p_utf16[i_count++] = i_cp;
+    }
+
+    jstring jstr = (*env)->NewString(env, p_utf16, i_count);
+    free(p_utf16);
+    return jstr;
+}
+
+/* Directories first, then by name */
+static int
+entry_cmp_name(const void *a, const void *b)
+{
+    const ml_entry *p_a = a, *p_b = b;
+    const bool b_dir_a = p_a->i_type == libvlc_media_type_directory;
+    const bool b_dir_b = p_b->i_type == libvlc_media_type_directory;
+
+    if (b_dir_a != b_dir_b)
+        return b_dir_a ? -1 : 1;
+    return strcasecmp(p_a->psz_name, p_b->psz_name);
+}
+
+/* Most recent first */
+static int
+entry_cmp_date(const void *a, const void *b)
+{
+    const ml_entry *p_a = a, *p_b = b;
+
+    if (p_a->i_mtime != p_b->i_mtime)
+        return p_a->i_mtime > p_b->i_mtime ? -1 : 1;
+    return entry_cmp_name(a, b);
+}
+
+/* Biggest first */
+static int
+entry_cmp_size(const void *a, const void *b)
+{
+    const ml_entry *p_a = a, *p_b = b;
+
+    if (p_a->i_size != p_b->i_size)
+        return p_a->i_size > p_b->i_size ? -1 : 1;
+    return entry_cmp_name(a, b);
+}
+
+/* Read all items with the list locked, without creating any Java object.
+ * Files are stat'ed once the list is unlocked, so that slow storage does not
+ * block the list. */
+static int
+MediaList_read_entries(libvlc_media_list_t *p_ml, ml_entry **pp_entries,
+                       const char *psz_ignored, bool b_show_hidden)
+{
+    libvlc_media_list_lock(p_ml);
+
+    const int i_total = libvlc_media_list_count(p_ml);
+    ml_entry *p_entries = i_total > 0 ? calloc(i_total, sizeof(ml_entry)) : NULL;
+    int i_count = 0;
+
+    for (int i = 0; p_entries && i < i_total; ++i)
+    {
+        libvlc_media_t *p_m = libvlc_media_list_item_at_index(p_ml, i);
+        if (!p_m)
+            continue;
+
+        ml_entry *p_entry = &p_entries[i_count];
+        p_entry->psz_mrl = libvlc_media_get_mrl(p_m);
+        p_entry->i_type = libvlc_media_get_type(p_m);
+        if (p_entry->psz_mrl)
+        {
+            p_entry->psz_name = libvlc_media_get_meta(p_m, libvlc_meta_Title);
+            if (!p_entry->psz_name)
+                p_entry->psz_name = entry_basename(p_entry->psz_mrl);
+        }
+        libvlc_media_release(p_m);
+
+        if (!p_entry->psz_mrl || !p_entry->psz_name
+         || entry_is_ignored(p_entry, psz_ignored, b_show_hidden))
+        {
+            entry_clean(p_entry);
+            memset(p_entry, 0, sizeof(ml_entry));
+            continue;
+        }
+        ++i_count;
+    }
+
+    libvlc_media_list_unlock(p_ml);
+
+    for (int i = 0; i < i_count; ++i)
+        entry_stat(&p_entries[i]);
+
+    *pp_entries = p_entries;
+    return i_count;
+}
+
+jint
+Java_org_videolan_libvlc_MediaList_nativeGetEntries(JNIEnv *env, jobject thiz,
+                                                    jobjectArray jmrls,
+                                                    jobjectArray jnames,
+                                                    jintArray jtypes,
+                                                    jlongArray jsizes,
+                                                    jlongArray jmtimes,
+                                                    jstring jignored,
+                                                    jboolean b_show_hidden,
+                                                    jint i_sort)
+{
+    vlcjni_object *p_obj = VLCJniObject_getInstance(env, thiz);
+    const char *psz_ignored = NULL;
+    ml_entry *p_entries = NULL;
+
+    if (!p_obj)
+        return 0;
+
+    if (jignored)
+        psz_ignored = (*env)->GetStringUTFChars(env, jignored, 0);
+
+    int i_count = MediaList_read_entries(p_obj->u.p_ml, &p_entries,
+                                         psz_ignored, b_show_hidden);
+
+    if (psz_ignored)
+        (*env)->ReleaseStringUTFChars(env, jignored, psz_ignored);
+
+    switch (i_sort)
+    {
+        case ENTRIES_SORT_NAME:
+            qsort(p_entries, i_count, sizeof(ml_entry), entry_cmp_name);
+            break;
+        case ENTRIES_SORT_DATE:
+            qsort(p_entries, i_count, sizeof(ml_entry), entry_cmp_date);
+            break;
+        case ENTRIES_SORT_SIZE:
+            qsort(p_entries, i_count, sizeof(ml_entry), entry_cmp_size);
+            break;
+    }
+
+    /* The list may have grown since the arrays were allocated */
+    const jsize i_max = (*env)->GetArrayLength(env, jmrls);
+    if (i_count > i_max)
+    {
+        for (int i = i_max; i < i_count; ++i)
+            entry_clean(&p_entries[i]);
+        i_count = i_max;
+    }
+
+    jint *p_types = i_count > 0 ? malloc(i_count * sizeof(jint)) : NULL;
+    jlong *p_sizes = i_count > 0 ? malloc(i_count * sizeof(jlong)) : NULL;
+    jlong *p_mtimes = i_count > 0 ? malloc(i_count * sizeof(jlong)) : NULL;
+    if (i_count > 0 && (!p_types || !p_sizes || !p_mtimes))
+    {
+        for (int i = 0; i < i_count; ++i)
+            entry_clean(&p_entries[i]);
+        i_count = 0;
+    }
+
+    for (int i = 0; i < i_count; ++i)
+    {
+        ml_entry *p_entry = &p_entries[i];
+        jstring jmrl = new_jstring(env, p_entry->psz_mrl);
+        jstring jname = new_jstring(env, p_entry->psz_name);
+
+        (*env)->SetObjectArrayElement(env, jmrls, i, jmrl);
+        (*env)->SetObjectArrayElement(env, jnames, i, jname);
+        (*env)->DeleteLocalRef(env, jmrl);
+        (*env)->DeleteLocalRef(env, jname);
+        p_types[i] = p_entry->i_type;
+        p_sizes[i] = p_entry->i_size;
+        p_mtimes[i] = p_entry->i_mtime;
+        entry_clean(p_entry);
+    }
+    if (i_count > 0)
+    {
+        (*env)->SetIntArrayRegion(env, jtypes, 0, i_count, p_types);
+        (*env)->SetLongArrayRegion(env, jsizes, 0, i_count, p_sizes);
+        (*env)->SetLongArrayRegion(env, jmtimes, 0, i_count, p_mtimes);
+    }
+
+    free(p_types);
+    free(p_sizes);
+    free(p_mtimes);
+    free(p_entries);
+    return i_count;
+}
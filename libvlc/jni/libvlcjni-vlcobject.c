@@ -19,6 +19,7 @@
  *****************************************************************************/
 
 #include <assert.h>
+#include <stdint.h>
 #include <stdlib.h>
 #include <sys/queue.h>
 #include <pthread.h>
@@ -35,6 +36,9 @@ struct vlcjni_object_owner
 
     libvlc_event_manager_t *p_event_manager;
     const int *p_events;
+    /* Java event types to dispatch, bit (type & 0x1f), see VLCObject.setEventTypes.
+     * 32 bits, so that the atomic accesses are lock-free without libatomic */
+    uint32_t event_mask;
 
     event_cb pf_event_cb;
 };
@@ -91,6 +95,7 @@ VLCJniObject_newFromLibVlc(JNIEnv *env, jobject thiz,
         p_error = "vlcjni_object_owner calloc failed";
         goto error;
     }
+    p_obj->p_owner->event_mask = UINT32_MAX;
 
     if (p_libvlc)
     {
@@ -180,6 +185,12 @@ VLCJniObject_eventCallback(const libvlc_event_t *ev, void *data)
     if (!p_obj->p_owner->pf_event_cb(p_obj, ev, &jevent))
         return;
 
+    /* Drop unwanted events before attaching the thread or allocating anything */
+    if (jevent.type >= 0
+     && !(__atomic_load_n(&p_obj->p_owner->event_mask, __ATOMIC_RELAXED)
+          & (UINT32_C(1) << (jevent.type & 0x1f))))
+        return;
+
     if (!(env = jni_get_env(THREAD_NAME)))
         return;
 
@@ -238,3 +249,16 @@ Java_org_videolan_libvlc_VLCObject_nativeDetachEvents(JNIEnv *env, jobject thiz)
     p_obj->p_owner->p_event_manager = NULL;
     p_obj->p_owner->p_events = NULL;
 }
+
+void
+Java_org_videolan_libvlc_VLCObject_nativeSetEventMask(JNIEnv *env, jobject thiz,
+                                                      jint mask)
+{
+    vlcjni_object *p_obj = VLCJniObject_getInstance(env, thiz);
+
+    if (!p_obj)
+        return;
+
+    __atomic_store_n(&p_obj->p_owner->event_mask, (uint32_t) mask,
+                     __ATOMIC_RELAXED);
+}
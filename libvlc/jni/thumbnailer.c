@@ -20,9 +20,12 @@
 
 #include <assert.h>
 #include <jni.h>
+#include <android/bitmap.h>
 #include <vlc/vlc.h>
 #include <pthread.h>
 #include <stdbool.h>
+#include <stdint.h>
+#include <string.h>
 #include <time.h>
 #include <errno.h>
 #include <unistd.h>
@@ -36,6 +39,10 @@
 #define THUMBNAIL_MAX_WIDTH 4096
 #define THUMBNAIL_MIN_HEIGHT 32
 #define THUMBNAIL_MAX_HEIGHT 2304
+/* Max component value of a border pixel, compressed video blacks are rarely 0 */
+#define BLACK_THRESHOLD 16
+/* Borders are not cropped if less than this is left from the picture, like for dark scenes */
+#define CROP_MIN_CONTENT 10
 
 
 /*
@@ -60,6 +67,12 @@
    └————————————————————————————————————————————————————┘
 */
 
+/*
+   With cropping, the thumbnail covers the whole frame instead, and black
+   borders found in the video itself are cut too. The remaining picture is
+   centered and sampled to the frame size.
+*/
+
 enum {
     THUMB_INIT,
     THUMB_SEEKED = 0x1,
@@ -70,15 +83,20 @@ enum {
 typedef struct
 {
     int state;
+    bool success;
 
     char *thumbData;
 
+    /* Destination, owned by the caller: Java Bitmap pixels, direct buffer or
+     * temporary array */
     char *frameData;
-    unsigned frameSize;
+    unsigned framePitch;
 
+    bool crop;
     unsigned blackBorders;
     unsigned frameWidth;
     unsigned frameHeight;
+    unsigned thumbWidth;
     unsigned thumbHeight;
     unsigned thumbPitch;
 
@@ -119,10 +137,21 @@ thumbnailer_setup(void **opaque, char *chroma,
     const float inputAR = (float)videoWidth / videoHeight;
     const float screenAR = (float)sys->frameWidth / sys->frameHeight;
 
+    if (sys->crop)
+    {
+        /* Scale the video to cover the frame, it is cut when displayed */
+        if (screenAR < inputAR)
+            thumbWidth = (float)sys->frameHeight * inputAR + 1;
+        else
+            thumbHeight = (float)sys->frameWidth / inputAR + 1;
+        sys->blackBorders = 0;
+    }
     /* Most of the cases, video is wider than tall */
-    if (screenAR < inputAR)
+    else if (screenAR < inputAR)
     {
         thumbHeight = (float)sys->frameWidth / inputAR + 1;
+        if (thumbHeight > sys->frameHeight)
+            thumbHeight = sys->frameHeight;
         sys->blackBorders = ( (sys->frameHeight - thumbHeight) / 2 ) * sys->frameWidth;
     }
     else
@@ -132,6 +161,7 @@ thumbnailer_setup(void **opaque, char *chroma,
         sys->blackBorders = (sys->frameWidth - thumbWidth) / 2;
     }
 
+    sys->thumbWidth  = thumbWidth;
     sys->thumbPitch  = thumbWidth * PIXEL_SIZE;
     sys->thumbHeight = thumbHeight;
 
@@ -197,6 +227,90 @@ static void thumbnailer_unlock(void *opaque, void *picture, void *const *pixels)
     (void) pixels;
 }
 
+static inline bool
+is_black(const char *pixel)
+{
+    const unsigned char *p = (const unsigned char *) pixel;
+    return p[0] <= BLACK_THRESHOLD && p[1] <= BLACK_THRESHOLD
+        && p[2] <= BLACK_THRESHOLD;
+}
+
+/**
+ * Copy the thumbnail in the middle of the frame, with black borders.
+ **/
+static void
+thumbnailer_copy(thumbnailer_sys_t *sys)
+{
+    const char *dataSrc = sys->thumbData;
+    char *dataDest = sys->frameData;
+    const unsigned rowSize = sys->frameWidth * PIXEL_SIZE;
+
+    for (unsigned i = 0; i < sys->frameHeight; ++i)
+        memset(dataDest + i * sys->framePitch, 0, rowSize);
+
+    /* blackBorders counts pixels, rows of frameWidth pixels for letterboxing */
+    dataDest += (sys->blackBorders / sys->frameWidth) * sys->framePitch
+              + (sys->blackBorders % sys->frameWidth) * PIXEL_SIZE;
+    for (unsigned i = 0; i < sys->thumbHeight; ++i)
+    {
+        memcpy(dataDest, dataSrc, sys->thumbPitch);
+        dataDest += sys->framePitch;
+        dataSrc += sys->thumbPitch;
+    }
+}
+
+/**
+ * Cut the black borders of the thumbnail, then sample its centered part with
+ * the frame aspect ratio into the frame.
+ **/
+static void
+thumbnailer_crop(thumbnailer_sys_t *sys)
+{
+    const char *src = sys->thumbData;
+    const unsigned w = sys->thumbWidth, h = sys->thumbHeight;
+    const unsigned pitch = sys->thumbPitch;
+    unsigned top = 0, left = 0;
+
+    /* Same detection as the former BitmapUtil.cropBorders: middle column and
+     * middle row, from both ends */
+    while (top < h / 2
+        && is_black(src + top * pitch + (w / 2) * PIXEL_SIZE)
+        && is_black(src + (h - top - 1) * pitch + (w / 2) * PIXEL_SIZE))
+        ++top;
+    while (left < w / 2
+        && is_black(src + (h / 2) * pitch + left * PIXEL_SIZE)
+        && is_black(src + (h / 2) * pitch + (w - left - 1) * PIXEL_SIZE))
+        ++left;
+    if (top + CROP_MIN_CONTENT >= h / 2 || left + CROP_MIN_CONTENT >= w / 2)
+        top = left = 0;
+
+    unsigned cropWidth = w - 2 * left, cropHeight = h - 2 * top;
+    if ((uint64_t) cropWidth * sys->frameHeight
+      > (uint64_t) cropHeight * sys->frameWidth)
+    {
+        const unsigned width = (uint64_t) cropHeight * sys->frameWidth
+                             / sys->frameHeight;
+        left += (cropWidth - width) / 2;
+        cropWidth = width;
+    }
+    else
+    {
+        const unsigned height = (uint64_t) cropWidth * sys->frameHeight
+                              / sys->frameWidth;
+        top += (cropHeight - height) / 2;
+        cropHeight = height;
+    }
+
+    for (unsigned y = 0; y < sys->frameHeight; ++y)
+    {
+        const uint32_t *rowSrc = (const uint32_t *) (src
+            + (top + (uint64_t) y * cropHeight / sys->frameHeight) * pitch) + left;
+        uint32_t *rowDest = (uint32_t *) (sys->frameData + y * sys->framePitch);
+        for (unsigned x = 0; x < sys->frameWidth; ++x)
+            rowDest[x] = rowSrc[(uint64_t) x * cropWidth / sys->frameWidth];
+    }
+}
+
 static void thumbnailer_display(void *opaque, void *picture)
 {
     thumbnailer_sys_t *sys = opaque;
@@ -204,62 +318,48 @@ static void thumbnailer_display(void *opaque, void *picture)
     /* If we have already received a thumbnail, or we are still seeking,
      * we skip this frame. */
     pthread_mutex_lock(&sys->doneMutex);
-    if ((sys->state & (THUMB_SEEKED|THUMB_VOUT)) != (THUMB_SEEKED|THUMB_VOUT))
+    if ((sys->state & (THUMB_SEEKED|THUMB_VOUT|THUMB_DONE)) != (THUMB_SEEKED|THUMB_VOUT))
     {
         pthread_mutex_unlock(&sys->doneMutex);
         return;
     }
     pthread_mutex_unlock(&sys->doneMutex);
 
-    /* Allocate the memory to store the thumbnail. */
-    sys->frameSize = sys->frameWidth * sys->frameHeight * PIXEL_SIZE;
-    sys->frameData = calloc(sys->frameSize, 1);
-    if (sys->frameData == NULL)
-    {
-        LOGE("Could not allocate the memory to store the thumbnail!");
-        goto end;
-    }
-
     /* we have received our first thumbnail and we can exit. */
-    const char *dataSrc = sys->thumbData;
-    char *dataDest = sys->frameData + sys->blackBorders * PIXEL_SIZE;
-
-    /* Copy the thumbnail. */
-    for (unsigned i = 0; i < sys->thumbHeight; ++i)
-    {
-        memcpy(dataDest, dataSrc, sys->thumbPitch);
-        dataDest += sys->frameWidth * PIXEL_SIZE;
-        dataSrc += sys->thumbPitch;
-    }
+    if (sys->crop)
+        thumbnailer_crop(sys);
+    else
+        thumbnailer_copy(sys);
 
-end:
     /* Signal that the thumbnail was created. */
     pthread_mutex_lock(&sys->doneMutex);
+    sys->success = true;
     sys->state |= THUMB_DONE;
     pthread_cond_signal(&sys->doneCondVar);
     pthread_mutex_unlock(&sys->doneMutex);
 }
 
 /**
- * Thumbnailer main function.
- * return null if the thumbail generation failed.
+ * Play the media until a frame at THUMBNAIL_POSITION is written in frameData.
+ * return false if the thumbnail generation failed.
  **/
-jbyteArray
-Java_org_videolan_libvlc_util_VLCUtil_nativeGetThumbnail(JNIEnv *env,
-                                                         jobject thiz,
-                                                         jobject jmedia,
-                                                         const jint frameWidth,
-                                                         const jint frameHeight)
+static bool
+thumbnailer_run(JNIEnv *env, jobject jmedia, char *frameData,
+                unsigned frameWidth, unsigned frameHeight, unsigned framePitch,
+                bool crop)
 {
     vlcjni_object *p_obj = VLCJniObject_getInstance(env, jmedia);
-    jbyteArray byteArray = NULL;
+    bool success = false;
+
+    if (!p_obj)
+        return false;
 
     /* Create the thumbnailer data structure */
     thumbnailer_sys_t *sys = calloc(1, sizeof(thumbnailer_sys_t));
     if (sys == NULL)
     {
         LOGE("Could not create the thumbnailer data structure!");
-        return NULL;
+        return false;
     }
 
     /* Initialize the barrier. */
@@ -272,8 +372,11 @@ Java_org_videolan_libvlc_util_VLCUtil_nativeGetThumbnail(JNIEnv *env,
         goto end;
     libvlc_media_player_set_video_title_display(mp, libvlc_position_disable, 0);
 
+    sys->frameData = frameData;
     sys->frameWidth = frameWidth;
     sys->frameHeight = frameHeight;
+    sys->framePitch = framePitch;
+    sys->crop = crop;
     /* Set the video format and the callbacks. */
     libvlc_video_set_callbacks(mp, thumbnailer_lock, thumbnailer_unlock,
                                thumbnailer_display, (void*)sys);
@@ -311,31 +414,135 @@ Java_org_videolan_libvlc_util_VLCUtil_nativeGetThumbnail(JNIEnv *env,
         LOGE("media has not VOUT");
     pthread_mutex_unlock(&sys->doneMutex);
 
-    /* Stop and release the media player. */
+    /* Stop and release the media player, the vout does not write in
+     * frameData anymore after that. */
     libvlc_media_player_stop(mp);
     libvlc_event_detach(libvlc_media_player_event_manager(mp),
                         libvlc_MediaPlayerPositionChanged,
                         thumbnailer_event, sys);
     libvlc_media_player_release(mp);
 
-    if ((sys->state & THUMB_DONE) && sys->frameData) {
-        /* Create the Java byte array to return the create thumbnail. */
-        byteArray = (*env)->NewByteArray(env, sys->frameSize);
-        if (byteArray == NULL)
-        {
-            LOGE("Could not allocate the Java byte array to store the frame!");
-            goto end;
-        }
-
-        (*env)->SetByteArrayRegion(env, byteArray, 0, sys->frameSize,
-                (jbyte *)sys->frameData);
-    }
+    success = sys->success;
 
 end:
     pthread_mutex_destroy(&sys->doneMutex);
     pthread_cond_destroy(&sys->doneCondVar);
-    free(sys->frameData);
     free(sys->thumbData);
     free(sys);
+    return success;
+}
+
+static bool
+check_frame_size(JNIEnv *env, jint frameWidth, jint frameHeight)
+{
+    if (frameWidth <= 0 || frameHeight <= 0
+     || frameWidth > THUMBNAIL_MAX_WIDTH || frameHeight > THUMBNAIL_MAX_HEIGHT)
+    {
+        throw_IllegalArgumentException(env, "invalid thumbnail size");
+        return false;
+    }
+    return true;
+}
+
+/**
+ * Thumbnailer main function.
+ * return null if the thumbail generation failed.
+ **/
+jbyteArray
+Java_org_videolan_libvlc_util_VLCUtil_nativeGetThumbnail(JNIEnv *env,
+                                                         jobject thiz,
+                                                         jobject jmedia,
+                                                         const jint frameWidth,
+                                                         const jint frameHeight)
+{
+    jbyteArray byteArray = NULL;
+
+    if (!check_frame_size(env, frameWidth, frameHeight))
+        return NULL;
+
+    const unsigned frameSize = frameWidth * frameHeight * PIXEL_SIZE;
+    char *frameData = malloc(frameSize);
+    if (frameData == NULL)
+    {
+        LOGE("Could not allocate the memory to store the thumbnail!");
+        return NULL;
+    }
+
+    if (thumbnailer_run(env, jmedia, frameData, frameWidth, frameHeight,
+                        frameWidth * PIXEL_SIZE, false))
+    {
+        /* Create the Java byte array to return the create thumbnail. */
+        byteArray = (*env)->NewByteArray(env, frameSize);
+        if (byteArray == NULL)
+            LOGE("Could not allocate the Java byte array to store the frame!");
+        else
+            (*env)->SetByteArrayRegion(env, byteArray, 0, frameSize,
+                                       (jbyte *)frameData);
+    }
+
+    free(frameData);
     return byteArray;
 }
+
+/**
+ * Write the thumbnail, as RGBA rows without padding, in a direct buffer.
+ **/
+jboolean
+Java_org_videolan_libvlc_util_VLCUtil_nativeGetThumbnailBuffer(JNIEnv *env,
+                                                               jobject thiz,
+                                                               jobject jmedia,
+                                                               jobject jbuffer,
+                                                               const jint frameWidth,
+                                                               const jint frameHeight,
+                                                               jboolean crop)
+{
+    if (!check_frame_size(env, frameWidth, frameHeight))
+        return JNI_FALSE;
+
+    char *frameData = (*env)->GetDirectBufferAddress(env, jbuffer);
+    if (frameData == NULL
+     || (*env)->GetDirectBufferCapacity(env, jbuffer)
+        < (jlong) frameWidth * frameHeight * PIXEL_SIZE)
+    {
+        throw_IllegalArgumentException(env, "buffer is not direct or too small");
+        return JNI_FALSE;
+    }
+
+    return thumbnailer_run(env, jmedia, frameData, frameWidth, frameHeight,
+                           frameWidth * PIXEL_SIZE, crop) ? JNI_TRUE : JNI_FALSE;
+}
+
+/**
+ * Write the thumbnail in the pixels of an ARGB_8888 Bitmap, at its size.
+ **/
+jboolean
+Java_org_videolan_libvlc_util_VLCUtil_nativeGetThumbnailBitmap(JNIEnv *env,
+                                                               jobject thiz,
+                                                               jobject jmedia,
+                                                               jobject jbitmap,
+                                                               jboolean crop)
+{
+    AndroidBitmapInfo info;
+    void *pixels;
+
+    if (AndroidBitmap_getInfo(env, jbitmap, &info) != ANDROID_BITMAP_RESULT_SUCCESS
+     || info.format != ANDROID_BITMAP_FORMAT_RGBA_8888)
+    {
+        throw_IllegalArgumentException(env, "bitmap is not ARGB_8888");
+        return JNI_FALSE;
+    }
+    if (!check_frame_size(env, info.width, info.height))
+        return JNI_FALSE;
+
+    if (AndroidBitmap_lockPixels(env, jbitmap, &pixels) != ANDROID_BITMAP_RESULT_SUCCESS)
+    {
+        LOGE("Could not lock the bitmap pixels");
+        return JNI_FALSE;
+    }
+
+    const bool success = thumbnailer_run(env, jmedia, pixels, info.width,
+                                         info.height, info.stride, crop);
+
+    AndroidBitmap_unlockPixels(env, jbitmap);
+    return success ? JNI_TRUE : JNI_FALSE;
+}
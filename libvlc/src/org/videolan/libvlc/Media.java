@@ -21,6 +21,7 @@
 package org.videolan.libvlc;
 
 import android.net.Uri;
+import android.os.Handler;
 import android.support.annotation.Nullable;
 
 import org.videolan.libvlc.util.AndroidUtil;
@@ -28,6 +29,7 @@ import org.videolan.libvlc.util.HWDecoderUtil;
 import org.videolan.libvlc.util.VLCUtil;
 
 import java.io.FileDescriptor;
+import java.util.concurrent.Executor;
 
 @SuppressWarnings("unused, JniMissingFunction")
 public class Media extends VLCObject<Media.Event> {
@@ -469,10 +471,31 @@ public class Media extends VLCObject<Media.Event> {
         mUri = VLCUtil.UriFromMrl(nativeGetMrl());
     }
 
-    public void setEventListener(EventListener listener) {
+    public synchronized void setEventListener(EventListener listener) {
         super.setEventListener(listener);
     }
 
+    /**
+     * Set an event listener sent from a Handler, like one running in a dedicated HandlerThread.
+     */
+    public synchronized void setEventListener(EventListener listener, Handler handler) {
+        super.setEventListener(listener, handler);
+    }
+
+    /**
+     * Set an event listener run by an Executor.
+     * Events are received in order only if the executor runs its tasks one at a time.
+     */
+    public synchronized void setEventListener(EventListener listener, Executor executor) {
+        super.setEventListener(listener, executor);
+    }
+
+    @Override
+    protected int getInternalEventMask() {
+        return getEventBit(Event.MetaChanged) | getEventBit(Event.DurationChanged)
+                | getEventBit(Event.ParsedChanged) | getEventBit(Event.StateChanged);
+    }
+
     @Override
     protected synchronized Event onEventNative(int eventType, long arg1, long arg2, float argf1) {
         switch (eventType) {
@@ -53,9 +53,52 @@ public class MediaList extends VLCObject<MediaList.Event> {
 
     public interface EventListener extends VLCEvent.Listener<MediaList.Event> {}
 
+    /**
+     * Items of a MediaList as plain values, read with a single native call.
+     * Item i is described by the i-th element of each array.
+     */
+    public static class Entries {
+        /* Sort orders, directories come first except for SORT_NONE */
+        public static final int SORT_NONE = 0;
+        public static final int SORT_NAME = 1;
+        /* Most recent first */
+        public static final int SORT_DATE = 2;
+        /* Biggest first */
+        public static final int SORT_SIZE = 3;
+
+        public final int count;
+        public final String[] mrls;
+        public final String[] names;
+        /** see {@link Media.Type} */
+        public final int[] types;
+        /** in bytes, -1 if unknown: for directories and non local items */
+        public final long[] sizes;
+        /** in ms, -1 if unknown: for non local items */
+        public final long[] lastModified;
+
+        private Entries(int size) {
+            mrls = new String[size];
+            names = new String[size];
+            types = new int[size];
+            sizes = new long[size];
+            lastModified = new long[size];
+            count = 0;
+        }
+
+        private Entries(Entries entries, int count) {
+            mrls = entries.mrls;
+            names = entries.names;
+            types = entries.types;
+            sizes = entries.sizes;
+            lastModified = entries.lastModified;
+            this.count = count;
+        }
+    }
+
     private int mCount = 0;
     private final SparseArray<Media> mMediaArray = new SparseArray<Media>();
     private boolean mLocked = false;
+    private boolean mMediaTracking = true;
 
     private void init() {
         lock();
@@ -131,14 +174,14 @@ public class MediaList extends VLCObject<MediaList.Event> {
         switch (eventType) {
         case Event.ItemAdded:
             index = (int) arg1;
-            if (index != -1) {
+            if (index != -1 && mMediaTracking) {
                 final Media media = insertMediaFromEvent(index);
                 event = new Event(eventType, media, index);
             }
             break;
         case Event.ItemDeleted:
             index = (int) arg1;
-            if (index != -1) {
+            if (index != -1 && mMediaTracking) {
                 final Media media = removeMediaFromEvent(index);
                 event = new Event(eventType, media, index);
             }
@@ -151,6 +194,43 @@ public class MediaList extends VLCObject<MediaList.Event> {
         return event;
     }
 
+    @Override
+    protected synchronized int getInternalEventMask() {
+        return mMediaTracking ? getEventBit(Event.ItemAdded) | getEventBit(Event.ItemDeleted) : 0;
+    }
+
+    /**
+     * Stop creating a {@link Media} for each added item, and the matching events.
+     *
+     * Items can then only be read with {@link #getEntries(String, boolean, int)}, which is much
+     * cheaper for big lists. Must be called before items are added, and before setting the
+     * event listener, usually to only receive {@link Event#EndReached}.
+     */
+    public synchronized void disableMediaTracking() {
+        if (mCount > 0)
+            throw new IllegalStateException("MediaList already has items");
+        mMediaTracking = false;
+    }
+
+    /**
+     * Read all items at once, without creating any {@link Media}.
+     *
+     * @param ignoredExtensions comma separated extensions of files to skip, null to keep all
+     * @param showHidden false to skip items which name starts with a dot
+     * @param sort see {@link Entries}
+     */
+    public Entries getEntries(String ignoredExtensions, boolean showHidden, int sort) {
+        final Entries entries;
+        synchronized (this) {
+            if (isReleased())
+                return new Entries(0);
+            entries = new Entries(nativeGetCount());
+        }
+        final int count = nativeGetEntries(entries.mrls, entries.names, entries.types, entries.sizes,
+                entries.lastModified, ignoredExtensions, showHidden, sort);
+        return new Entries(entries, count);
+    }
+
     /**
      * Get the number of Media.
      */
@@ -209,4 +289,6 @@ public class MediaList extends VLCObject<MediaList.Event> {
     private native int nativeGetCount();
     private native void nativeLock();
     private native void nativeUnlock();
+    private native int nativeGetEntries(String[] mrls, String[] names, int[] types, long[] sizes,
+                                        long[] lastModified, String ignoredExtensions, boolean showHidden, int sort);
 }
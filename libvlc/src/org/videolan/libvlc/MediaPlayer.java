@@ -33,6 +33,7 @@ import android.media.AudioFormat;
 import android.media.AudioManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
 import android.support.annotation.RequiresApi;
 import android.util.SparseArray;
 
@@ -40,6 +41,7 @@ import org.videolan.libvlc.util.AndroidUtil;
 import org.videolan.libvlc.util.VLCUtil;
 
 import java.io.File;
+import java.util.concurrent.Executor;
 
 @SuppressWarnings("unused, JniMissingFunction")
 public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
@@ -1077,6 +1079,33 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         super.setEventListener(listener);
     }
 
+    /**
+     * Set an event listener sent from a Handler, like one running in a dedicated HandlerThread.
+     */
+    public synchronized void setEventListener(EventListener listener, Handler handler) {
+        super.setEventListener(listener, handler);
+    }
+
+    /**
+     * Set an event listener run by an Executor.
+     * Events are received in order only if the executor runs its tasks one at a time.
+     */
+    public synchronized void setEventListener(EventListener listener, Executor executor) {
+        super.setEventListener(listener, executor);
+    }
+
+    @Override
+    protected int getInternalEventMask() {
+        return getEventBit(Event.MediaChanged) | getEventBit(Event.Stopped) | getEventBit(Event.EndReached)
+                | getEventBit(Event.EncounteredError) | getEventBit(Event.Vout);
+    }
+
+    @Override
+    protected boolean isCoalescable(int eventType) {
+        return eventType == Event.TimeChanged || eventType == Event.PositionChanged
+                || eventType == Event.Buffering;
+    }
+
     @Override
     protected synchronized Event onEventNative(int eventType, long arg1, long arg2, float argf1) {
         switch (eventType) {
@@ -24,14 +24,29 @@ import android.os.Handler;
 import android.os.Looper;
 
 import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
 
 @SuppressWarnings("JniMissingFunction")
 abstract class VLCObject<T extends VLCEvent> {
-    private VLCEvent.Listener<T> mEventListener = null;
+    /* Written under the object lock, read without it by posted events */
+    private volatile VLCEvent.Listener<T> mEventListener = null;
     private Handler mHandler = null;
+    private Executor mExecutor = null;
     final LibVLC mLibVLC;
     private int mNativeRefCount = 1;
 
+    private static final int ALL_EVENTS = -1;
+    /* Event types sent to the listener, bit (type & 0x1f) */
+    private int mEventMask = ALL_EVENTS;
+    /* Coalesced events waiting to be sent, indexed by bit */
+    private boolean mCoalescing = false;
+    private int mPendingEvents = 0;
+    private int[] mPendingTypes;
+    private long[] mPendingArg1, mPendingArg2;
+    private float[] mPendingArgf1;
+    /* Replaced when the listener changes, so that a runnable posted before does nothing */
+    private Runnable mPendingRunnable = newPendingRunnable();
+
     protected VLCObject(LibVLC libvlc) {
         mLibVLC = libvlc;
     }
@@ -98,7 +113,7 @@ abstract class VLCObject<T extends VLCEvent> {
      * @param listener see {@link VLCEvent.Listener}
      */
     protected synchronized void setEventListener(VLCEvent.Listener<T> listener) {
-        setEventListener(listener, null);
+        setEventListener(listener, (Handler) null);
     }
 
     /**
@@ -109,6 +124,8 @@ abstract class VLCObject<T extends VLCEvent> {
     protected synchronized void setEventListener(VLCEvent.Listener<T> listener, Handler handler) {
         if (mHandler != null)
             mHandler.removeCallbacksAndMessages(null);
+        resetPendingEvents();
+        mExecutor = null;
         mEventListener = listener;
         if (mEventListener == null)
             mHandler = null;
@@ -116,6 +133,112 @@ abstract class VLCObject<T extends VLCEvent> {
             mHandler = handler != null ? handler : new Handler(Looper.getMainLooper());
     }
 
+    /**
+     * Set an event listener and an Executor running it.
+     *
+     * Events are received in the order libvlc sends them as long as the executor runs its tasks
+     * one at a time, like a single thread executor or a {@link Handler}. Coalesced events (see
+     * {@link #setEventCoalescing(boolean)}) may be received after events sent later.
+     * Events already queued when the listener is changed are dropped.
+     *
+     * @param listener see {@link VLCEvent.Listener}
+     * @param executor Executor in which events are sent. If null, events are sent in the main thread
+     */
+    protected synchronized void setEventListener(VLCEvent.Listener<T> listener, Executor executor) {
+        if (executor == null) {
+            setEventListener(listener, (Handler) null);
+            return;
+        }
+        if (mHandler != null)
+            mHandler.removeCallbacksAndMessages(null);
+        resetPendingEvents();
+        mHandler = null;
+        mEventListener = listener;
+        mExecutor = listener != null ? executor : null;
+    }
+
+    /* Drop coalesced events and detach the runnable that may already be posted for them */
+    private void resetPendingEvents() {
+        mPendingEvents = 0;
+        mPendingRunnable = newPendingRunnable();
+    }
+
+    private Runnable newPendingRunnable() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                dispatchPendingEvents(this);
+            }
+        };
+    }
+
+    private boolean post(Runnable runnable) {
+        if (mHandler != null)
+            return mHandler.post(runnable);
+        if (mExecutor == null)
+            return false;
+        mExecutor.execute(runnable);
+        return true;
+    }
+
+    /**
+     * Restrict the events sent to the listener.
+     *
+     * Other events are dropped by the native side before reaching Java, except those needed
+     * internally (see {@link #getInternalEventMask()}) which are never sent to the listener.
+     *
+     * @param types event types to receive, all events if empty
+     */
+    public synchronized void setEventTypes(int... types) {
+        int mask = 0;
+        for (int type : types)
+            mask |= getEventBit(type);
+        mEventMask = types.length == 0 ? ALL_EVENTS : mask;
+        if (!isReleased())
+            nativeSetEventMask(mEventMask | getInternalEventMask());
+    }
+
+    /**
+     * Enable or disable coalescing of high frequency events.
+     *
+     * When enabled, events for which {@link #isCoalescable(int)} is true are not queued one by one:
+     * only the latest one of each type is sent when the handler gets to it.
+     */
+    public synchronized void setEventCoalescing(boolean enabled) {
+        mCoalescing = enabled;
+        if (enabled && mPendingTypes == null) {
+            mPendingTypes = new int[32];
+            mPendingArg1 = new long[32];
+            mPendingArg2 = new long[32];
+            mPendingArgf1 = new float[32];
+        }
+    }
+
+    /**
+     * Events that must reach {@link #onEventNative} even if the listener doesn't want them,
+     * because they update the object state.
+     *
+     * @return mask of event bits, see {@link #getEventBit(int)}
+     */
+    protected int getInternalEventMask() {
+        return ALL_EVENTS;
+    }
+
+    /**
+     * Returns true if only the latest event of this type matters.
+     *
+     * {@link #onEventNative} is then called lazily from the handler for these events, so it must
+     * not have any side effect for them.
+     */
+    protected boolean isCoalescable(int eventType) {
+        return false;
+    }
+
+    /* Event types of one object class differ in their 5 low bits */
+    protected static int getEventBit(int eventType) {
+        return 1 << (eventType & 0x1f);
+    }
+
     /**
      * Called when libvlc send events.
      *
@@ -140,7 +263,23 @@ abstract class VLCObject<T extends VLCEvent> {
     private synchronized void dispatchEventFromNative(int eventType, long arg1, long arg2, float argf1) {
         if (isReleased())
             return;
+        final boolean wanted = (mEventMask & getEventBit(eventType)) != 0;
+        if (mCoalescing && wanted && isCoalescable(eventType)) {
+            if (mEventListener == null || (mHandler == null && mExecutor == null))
+                return;
+            final int slot = eventType & 0x1f;
+            mPendingTypes[slot] = eventType;
+            mPendingArg1[slot] = arg1;
+            mPendingArg2[slot] = arg2;
+            mPendingArgf1[slot] = argf1;
+            if (mPendingEvents == 0 && !post(mPendingRunnable))
+                return;
+            mPendingEvents |= 1 << slot;
+            return;
+        }
         final T event = onEventNative(eventType, arg1, arg2, argf1);
+        if (!wanted)
+            return;
 
         class EventRunnable implements Runnable {
             private final VLCEvent.Listener<T> listener;
@@ -152,14 +291,36 @@ abstract class VLCObject<T extends VLCEvent> {
             }
             @Override
             public void run() {
-                listener.onEvent(event);
+                if (listener == mEventListener)
+                    listener.onEvent(event);
             }
         }
 
-        if (event != null && mEventListener != null && mHandler != null)
-            mHandler.post(new EventRunnable(mEventListener, event));
+        if (event != null && mEventListener != null)
+            post(new EventRunnable(mEventListener, event));
     }
+
+    private void dispatchPendingEvents(Runnable runnable) {
+        while (true) {
+            final VLCEvent.Listener<T> listener;
+            final T event;
+            synchronized (this) {
+                // Posted for a previous listener or executor
+                if (runnable != mPendingRunnable || mPendingEvents == 0 || isReleased())
+                    return;
+                final int slot = Integer.numberOfTrailingZeros(mPendingEvents);
+                mPendingEvents &= ~(1 << slot);
+                listener = mEventListener;
+                event = onEventNative(mPendingTypes[slot], mPendingArg1[slot], mPendingArg2[slot],
+                        mPendingArgf1[slot]);
+            }
+            if (event != null && listener != null)
+                listener.onEvent(event);
+        }
+    }
+
     private native void nativeDetachEvents();
+    private native void nativeSetEventMask(int mask);
 
     /* used only before API 7: substitute for NewWeakGlobalRef */
     @SuppressWarnings("unused") /* Used from JNI */
@@ -41,9 +41,12 @@ public class MediaBrowser {
     private MediaList mBrowserMediaList;
     private Media mMedia;
     private EventListener mEventListener;
+    private EntriesListener mEntriesListener;
+    private int mEntriesFlags, mEntriesSort;
     private Handler mHandler;
     private boolean mAlive;
 
+    private static final int ENTRIES_PAGE_SIZE = 256;
     private static final String IGNORE_LIST_OPTION =  ":ignore-filetypes=";
     private String mIgnoreList = "db,nfo,ini,jpg,jpeg,ljpg,gif,png,pgm,pgmyuv,pbm,pam,tga,bmp,pnm,xpm,xcf,pcx,tif,tiff,lbm,sfv,txt,sub,idx,srt,cue,ssa";
 
@@ -80,6 +83,24 @@ public class MediaBrowser {
         void onBrowseEnd();
     }
 
+    /**
+     * Listener for {@link #browseEntries(Uri, int, int, EntriesListener)}.
+     */
+    public interface EntriesListener {
+        /**
+         * Received once browsing is done, for each page of entries, in order.
+         * Pages are slices of the same entries, fetched once: they only split the delivery.
+         * @param entries all entries of the folder
+         * @param offset index of the first entry of this page
+         * @param count number of entries in this page
+         */
+        void onEntries(MediaList.Entries entries, int offset, int count);
+        /**
+         * Called after the last page of entries.
+         */
+        void onBrowseEnd();
+    }
+
      /**
      *
      * @param libvlc The LibVLC instance to use
@@ -119,6 +140,7 @@ public class MediaBrowser {
             mBrowserMediaList.release();
             mBrowserMediaList = null;
         }
+        mEntriesListener = null;
     }
 
     /**
@@ -217,6 +239,44 @@ public class MediaBrowser {
          * so increment ref count in order to don't clean it with the medialist
          */
         media.retain();
+        final int mediaFlags = addBrowseOptions(media, flags);
+        reset();
+        mBrowserMediaList = media.subItems();
+        mBrowserMediaList.setEventListener(mBrowserMediaListEventListener, mHandler);
+        media.parseAsync(mediaFlags, 0);
+        mMedia = media;
+    }
+
+    /**
+     * Browse to the specified uri, without creating any {@link Media} for its items.
+     *
+     * Entries are read at once when browsing is done, filtered and sorted by the native side, then
+     * sent by pages to the listener. Pages are slices of this single fetch, not native pages: the
+     * first page arrives once the whole folder has been read, and all pages share the same
+     * {@link MediaList.Entries}. Much cheaper than {@link #browse(Uri, int)} for big folders,
+     * when items don't need to be displayed while browsing.
+     *
+     * @param flags see {@link MediaBrowser.Flag}
+     * @param sort see {@link MediaList.Entries}
+     */
+    @MainThread
+    public void browseEntries(Uri uri, int flags, int sort, EntriesListener listener) {
+        final Media media = new Media(mLibVlc, uri);
+        final int mediaFlags = addBrowseOptions(media, flags);
+        reset();
+        mEntriesListener = listener;
+        mEntriesFlags = flags;
+        mEntriesSort = sort;
+        mBrowserMediaList = media.subItems();
+        mBrowserMediaList.disableMediaTracking();
+        mBrowserMediaList.setEventTypes(MediaList.Event.EndReached);
+        mBrowserMediaList.setEventListener(mEntriesMediaListEventListener, mHandler);
+        media.parseAsync(mediaFlags, 0);
+        mMedia = media;
+    }
+
+    /* Returns the parse flags matching browse flags */
+    private int addBrowseOptions(Media media, int flags) {
         media.addOption(IGNORE_LIST_OPTION + mIgnoreList);
         if ((flags & Flag.NoSlavesAutodetect) != 0)
             media.addOption(":no-sub-autodetect-file");
@@ -225,11 +285,7 @@ public class MediaBrowser {
         int mediaFlags = Media.Parse.ParseNetwork;
         if ((flags & Flag.Interact) != 0)
             mediaFlags |= Media.Parse.DoInteract;
-        reset();
-        mBrowserMediaList = media.subItems();
-        mBrowserMediaList.setEventListener(mBrowserMediaListEventListener, mHandler);
-        media.parseAsync(mediaFlags, 0);
-        mMedia = media;
+        return mediaFlags;
     }
 
     /**
@@ -284,6 +340,21 @@ public class MediaBrowser {
         }
     };
 
+    private final MediaList.EventListener mEntriesMediaListEventListener = new MediaList.EventListener() {
+        @Override
+        public void onEvent(MediaList.Event event) {
+            final EntriesListener listener = mEntriesListener;
+            if (listener == null || event.type != MediaList.Event.EndReached || mBrowserMediaList == null)
+                return;
+            final MediaList.Entries entries = mBrowserMediaList.getEntries(mIgnoreList,
+                    (mEntriesFlags & Flag.ShowHiddenFiles) != 0, mEntriesSort);
+            for (int offset = 0; offset < entries.count && mEntriesListener == listener; offset += ENTRIES_PAGE_SIZE)
+                listener.onEntries(entries, offset, Math.min(ENTRIES_PAGE_SIZE, entries.count - offset));
+            if (mEntriesListener == listener)
+                listener.onBrowseEnd();
+        }
+    };
+
     private final MediaList.EventListener mDiscovererMediaListEventListener = new MediaList.EventListener() {
         @Override
         public void onEvent(MediaList.Event event) {
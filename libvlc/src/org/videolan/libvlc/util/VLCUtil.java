@@ -22,7 +22,11 @@ package org.videolan.libvlc.util;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
 import android.support.annotation.NonNull;
@@ -47,6 +51,10 @@ public class VLCUtil {
     private static String errorMsg = null;
     private static boolean isCompatible = false;
 
+    /* Result of hasCompatibleCPU, valid as long as the key doesn't change */
+    private static final String PROBE_PREFS = "libvlc_cpu_probe";
+    private static final String PROBE_KEY = "key";
+
     public static String getErrorMsg() {
         return errorMsg;
     }
@@ -71,6 +79,13 @@ public class VLCUtil {
         // If already checked return cached result
         if (errorMsg != null || isCompatible) return isCompatible;
 
+        final SharedPreferences prefs = context.getSharedPreferences(PROBE_PREFS, Context.MODE_PRIVATE);
+        final String probeKey = getProbeKey(context);
+        if (probeKey != null && probeKey.equals(prefs.getString(PROBE_KEY, null))) {
+            loadProbe(prefs);
+            return isCompatible;
+        }
+
         boolean hasNeon = false, hasFpu = false, hasArmV6 = false, hasPlaceHolder = false,
                 hasArmV7 = false, hasMips = false, hasX86 = false, is64bits = false, isIntel = false;
         float bogoMIPS = -1;
@@ -267,9 +282,67 @@ public class VLCUtil {
         machineSpecs.bogoMIPS = bogoMIPS;
         machineSpecs.processors = processors;
         machineSpecs.frequency = frequency;
+        if (probeKey != null)
+            saveProbe(prefs, probeKey);
         return isCompatible;
     }
 
+    /**
+     * The probe only depends on the device and on the installed libraries: it's done again after
+     * an update of the application or of the system.
+     */
+    private static String getProbeKey(Context context) {
+        final PackageInfo info;
+        try {
+            info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        sb.append(info.versionCode).append('|').append(info.lastUpdateTime).append('|').append(Build.FINGERPRINT);
+        final String[] abis = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? getABIList21() : getABIList();
+        for (String abi : abis)
+            sb.append('|').append(abi);
+        return sb.toString();
+    }
+
+    private static void loadProbe(SharedPreferences prefs) {
+        isCompatible = prefs.getBoolean("compatible", false);
+        errorMsg = prefs.getString("error", null);
+        if (!isCompatible && errorMsg == null)
+            errorMsg = "";
+        machineSpecs = new MachineSpecs();
+        machineSpecs.hasArmV6 = prefs.getBoolean("armv6", false);
+        machineSpecs.hasArmV7 = prefs.getBoolean("armv7", false);
+        machineSpecs.hasFpu = prefs.getBoolean("fpu", false);
+        machineSpecs.hasMips = prefs.getBoolean("mips", false);
+        machineSpecs.hasNeon = prefs.getBoolean("neon", false);
+        machineSpecs.hasX86 = prefs.getBoolean("x86", false);
+        machineSpecs.is64bits = prefs.getBoolean("64bits", false);
+        machineSpecs.bogoMIPS = prefs.getFloat("bogomips", -1);
+        machineSpecs.processors = prefs.getInt("processors", 1);
+        machineSpecs.frequency = prefs.getFloat("frequency", -1);
+    }
+
+    private static void saveProbe(SharedPreferences prefs, String probeKey) {
+        prefs.edit()
+                .clear()
+                .putString(PROBE_KEY, probeKey)
+                .putBoolean("compatible", isCompatible)
+                .putString("error", errorMsg)
+                .putBoolean("armv6", machineSpecs.hasArmV6)
+                .putBoolean("armv7", machineSpecs.hasArmV7)
+                .putBoolean("fpu", machineSpecs.hasFpu)
+                .putBoolean("mips", machineSpecs.hasMips)
+                .putBoolean("neon", machineSpecs.hasNeon)
+                .putBoolean("x86", machineSpecs.hasX86)
+                .putBoolean("64bits", machineSpecs.is64bits)
+                .putFloat("bogomips", machineSpecs.bogoMIPS)
+                .putInt("processors", machineSpecs.processors)
+                .putFloat("frequency", machineSpecs.frequency)
+                .apply();
+    }
+
     public static MachineSpecs getMachineSpecs() {
         return machineSpecs;
     }
@@ -575,22 +648,61 @@ public class VLCUtil {
      * @return a bytearray with the RGBA thumbnail data inside.
      */
     public static byte[] getThumbnail(LibVLC libVLC, Uri uri, int i_width, int i_height) {
-        /* dvd thumbnails can work only with dvdsimple demux */
-        if (uri.getLastPathSegment().endsWith(".iso"))
-            uri = Uri.parse("dvdsimple://" + uri.getEncodedPath());
-        final Media media = new Media(libVLC, uri);
+        final Media media = newThumbnailMedia(libVLC, uri);
         byte[] bytes = getThumbnail(media, i_width, i_height);
         media.release();
         return bytes;
     }
 
     public static byte[] getThumbnail(Media media, int i_width, int i_height) {
+        addThumbnailOptions(media);
+        return nativeGetThumbnail(media, i_width, i_height);
+    }
+
+    /**
+     * Get a media thumbnail, decoded directly in the bitmap pixels.
+     * @param bitmap a mutable ARGB_8888 bitmap, the thumbnail is generated at its size
+     * @param crop if true, black borders are cut and the thumbnail fills the bitmap,
+     *             otherwise it is letterboxed
+     * @return true if the bitmap now holds the thumbnail
+     */
+    public static boolean getThumbnail(LibVLC libVLC, Uri uri, Bitmap bitmap, boolean crop) {
+        final Media media = newThumbnailMedia(libVLC, uri);
+        final boolean success = getThumbnail(media, bitmap, crop);
+        media.release();
+        return success;
+    }
+
+    public static boolean getThumbnail(Media media, Bitmap bitmap, boolean crop) {
+        addThumbnailOptions(media);
+        return nativeGetThumbnailBitmap(media, bitmap, crop);
+    }
+
+    /**
+     * Get a media thumbnail, written as RGBA rows in a direct buffer of at least
+     * i_width * i_height * 4 bytes.
+     * @see #getThumbnail(Media, Bitmap, boolean)
+     */
+    public static boolean getThumbnail(Media media, ByteBuffer buffer, int i_width, int i_height, boolean crop) {
+        addThumbnailOptions(media);
+        return nativeGetThumbnailBuffer(media, buffer, i_width, i_height, crop);
+    }
+
+    private static Media newThumbnailMedia(LibVLC libVLC, Uri uri) {
+        /* dvd thumbnails can work only with dvdsimple demux */
+        if (uri.getLastPathSegment().endsWith(".iso"))
+            uri = Uri.parse("dvdsimple://" + uri.getEncodedPath());
+        return new Media(libVLC, uri);
+    }
+
+    private static void addThumbnailOptions(Media media) {
         media.addOption(":no-audio");
         media.addOption(":no-spu");
         media.addOption(":no-osd");
         media.addOption(":input-fast-seek");
-        return nativeGetThumbnail(media, i_width, i_height);
     }
 
     private static native byte[] nativeGetThumbnail(Media media, int i_width, int i_height);
+    private static native boolean nativeGetThumbnailBuffer(Media media, ByteBuffer buffer, int i_width, int i_height, boolean crop);
+    private static native boolean nativeGetThumbnailBitmap(Media media, Bitmap bitmap, boolean crop);
 }
@@ -264,9 +264,9 @@ AndroidMediaLibrary::audioFiles( medialibrary::SortingCriteria sort, bool desc )
 }
 
 std::vector<medialibrary::AlbumPtr>
-AndroidMediaLibrary::albums()
+AndroidMediaLibrary::albums( medialibrary::SortingCriteria sort, bool desc )
 {
-    return p_ml->albums();
+    return p_ml->albums(sort, desc);
 }
 
 medialibrary::AlbumPtr
@@ -276,9 +276,9 @@ AndroidMediaLibrary::album(int64_t albumId)
 }
 
 std::vector<medialibrary::ArtistPtr>
-AndroidMediaLibrary::artists()
+AndroidMediaLibrary::artists( medialibrary::SortingCriteria sort, bool desc )
 {
-    return p_ml->artists();
+    return p_ml->artists(sort, desc);
 }
 
 medialibrary::ArtistPtr
@@ -288,9 +288,9 @@ AndroidMediaLibrary::artist(int64_t artistId)
 }
 
 std::vector<medialibrary::GenrePtr>
-AndroidMediaLibrary::genres()
+AndroidMediaLibrary::genres( medialibrary::SortingCriteria sort, bool desc )
 {
-    return p_ml->genres();
+    return p_ml->genres(sort, desc);
 }
 
 medialibrary::GenrePtr
@@ -299,6 +299,107 @@ AndroidMediaLibrary::genre(int64_t genreId)
     return p_ml->genre(genreId);
 }
 
+template <typename T, typename Loader>
+std::shared_ptr<const std::vector<T>>
+AndroidMediaLibrary::cachedListing( Listing<T>& listing, medialibrary::SortingCriteria sort, bool desc, Loader load )
+{
+    std::lock_guard<std::mutex> lock(m_listingsLock);
+    /* Read before loading: a change during the load leaves the listing outdated */
+    const uint32_t generation = m_generation.load();
+    if (listing.items == nullptr || listing.generation != generation
+            || listing.sort != sort || listing.desc != desc)
+    {
+        listing.items = std::make_shared<const std::vector<T>>(load(sort, desc));
+        listing.generation = generation;
+        listing.sort = sort;
+        listing.desc = desc;
+    }
+    return listing.items;
+}
+
+template <typename T, typename Loader>
+size_t
+AndroidMediaLibrary::cachedCount( Listing<T>& listing, Loader load )
+{
+    {
+        std::lock_guard<std::mutex> lock(m_listingsLock);
+        /* Any sorting of the current generation has the right size */
+        if (listing.items != nullptr && listing.generation == m_generation.load())
+            return listing.items->size();
+    }
+    return cachedListing(listing, medialibrary::SortingCriteria::Default, false, load)->size();
+}
+
+void
+AndroidMediaLibrary::invalidateListings()
+{
+    ++m_generation;
+}
+
+std::shared_ptr<const std::vector<medialibrary::MediaPtr>>
+AndroidMediaLibrary::sortedVideoFiles( medialibrary::SortingCriteria sort, bool desc )
+{
+    return cachedListing(m_videoListing, sort, desc, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->videoFiles(s, d);
+    });
+}
+
+std::shared_ptr<const std::vector<medialibrary::MediaPtr>>
+AndroidMediaLibrary::sortedAudioFiles( medialibrary::SortingCriteria sort, bool desc )
+{
+    return cachedListing(m_audioListing, sort, desc, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->audioFiles(s, d);
+    });
+}
+
+std::shared_ptr<const std::vector<medialibrary::AlbumPtr>>
+AndroidMediaLibrary::sortedAlbums( medialibrary::SortingCriteria sort, bool desc )
+{
+    return cachedListing(m_albumListing, sort, desc, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->albums(s, d);
+    });
+}
+
+std::shared_ptr<const std::vector<medialibrary::ArtistPtr>>
+AndroidMediaLibrary::sortedArtists( medialibrary::SortingCriteria sort, bool desc )
+{
+    return cachedListing(m_artistListing, sort, desc, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->artists(s, d);
+    });
+}
+
+std::shared_ptr<const std::vector<medialibrary::GenrePtr>>
+AndroidMediaLibrary::sortedGenres( medialibrary::SortingCriteria sort, bool desc )
+{
+    return cachedListing(m_genreListing, sort, desc, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->genres(s, d);
+    });
+}
+
+size_t
+AndroidMediaLibrary::albumsCount()
+{
+    return cachedCount(m_albumListing, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->albums(s, d);
+    });
+}
+
+size_t
+AndroidMediaLibrary::artistsCount()
+{
+    return cachedCount(m_artistListing, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->artists(s, d);
+    });
+}
+
+size_t
+AndroidMediaLibrary::genresCount()
+{
+    return cachedCount(m_genreListing, [this](medialibrary::SortingCriteria s, bool d) {
+        return p_ml->genres(s, d);
+    });
+}
+
 std::vector<medialibrary::PlaylistPtr>
 AndroidMediaLibrary::playlists()
 {
@@ -399,6 +500,7 @@ AndroidMediaLibrary::PlaylistDelete( int64_t playlistId )
 void
 AndroidMediaLibrary::onMediaAdded( std::vector<medialibrary::MediaPtr> mediaList )
 {
+    invalidateListings();
     if (m_mediaAddedType & FLAG_MEDIA_ADDED_AUDIO || m_mediaAddedType & FLAG_MEDIA_ADDED_VIDEO
             || m_mediaAddedType & FLAG_MEDIA_ADDED_AUDIO_EMPTY) {
         JNIEnv *env = getEnv();
@@ -446,6 +548,7 @@ AndroidMediaLibrary::onMediaAdded( std::vector<medialibrary::MediaPtr> mediaList
 
 void AndroidMediaLibrary::onMediaUpdated( std::vector<medialibrary::MediaPtr> mediaList )
 {
+    invalidateListings();
     if (m_mediaUpdatedType & FLAG_MEDIA_UPDATED_AUDIO || m_mediaUpdatedType & FLAG_MEDIA_UPDATED_VIDEO
             || m_mediaUpdatedType & FLAG_MEDIA_UPDATED_AUDIO_EMPTY) {
         JNIEnv *env = getEnv();
@@ -492,11 +595,27 @@ void AndroidMediaLibrary::onMediaUpdated( std::vector<medialibrary::MediaPtr> me
 
 void AndroidMediaLibrary::onMediaDeleted( std::vector<int64_t> ids )
 {
-
+    invalidateListings();
+    if ((m_mediaAddedType == 0 && m_mediaUpdatedType == 0) || ids.empty())
+        return;
+    JNIEnv *env = getEnv();
+    if (env == NULL)
+        return;
+    jlongArray idArray = env->NewLongArray(ids.size());
+    env->SetLongArrayRegion(idArray, 0, ids.size(), (const jlong*) ids.data());
+    jobject thiz = getWeakReference(env);
+    if (thiz)
+    {
+        env->CallVoidMethod(thiz, p_fields->MediaLibrary.onMediaDeletedId, idArray);
+        if (weak_compat)
+            env->DeleteLocalRef(thiz);
+    }
+    env->DeleteLocalRef(idArray);
 }
 
 void AndroidMediaLibrary::onArtistsAdded( std::vector<medialibrary::ArtistPtr> artists )
 {
+    invalidateListings();
     if (m_mediaAddedType & FLAG_MEDIA_ADDED_AUDIO)
     {
         JNIEnv *env = getEnv();
@@ -514,6 +633,7 @@ void AndroidMediaLibrary::onArtistsAdded( std::vector<medialibrary::ArtistPtr> a
 
 void AndroidMediaLibrary::onArtistsModified( std::vector<medialibrary::ArtistPtr> artist )
 {
+    invalidateListings();
     if (m_mediaUpdatedType & FLAG_MEDIA_UPDATED_AUDIO)
     {
         JNIEnv *env = getEnv();
@@ -531,11 +651,12 @@ void AndroidMediaLibrary::onArtistsModified( std::vector<medialibrary::ArtistPtr
 
 void AndroidMediaLibrary::onArtistsDeleted( std::vector<int64_t> ids )
 {
-
+    invalidateListings();
 }
 
 void AndroidMediaLibrary::onAlbumsAdded( std::vector<medialibrary::AlbumPtr> albums )
 {
+    invalidateListings();
     if (m_mediaAddedType & FLAG_MEDIA_ADDED_AUDIO)
     {
         JNIEnv *env = getEnv();
@@ -553,6 +674,7 @@ void AndroidMediaLibrary::onAlbumsAdded( std::vector<medialibrary::AlbumPtr> alb
 
 void AndroidMediaLibrary::onAlbumsModified( std::vector<medialibrary::AlbumPtr> albums )
 {
+    invalidateListings();
     if (m_mediaUpdatedType & FLAG_MEDIA_UPDATED_AUDIO)
     {
         JNIEnv *env = getEnv();
@@ -585,16 +707,16 @@ void AndroidMediaLibrary::onPlaylistsDeleted( std::vector<int64_t> ids )
 
 void AndroidMediaLibrary::onAlbumsDeleted( std::vector<int64_t> ids )
 {
-
+    invalidateListings();
 }
 
 void AndroidMediaLibrary::onTracksAdded( std::vector<medialibrary::AlbumTrackPtr> tracks )
 {
-
+    invalidateListings();
 }
 void AndroidMediaLibrary::onTracksDeleted( std::vector<int64_t> trackIds )
 {
-
+    invalidateListings();
 }
 
 void AndroidMediaLibrary::onDiscoveryStarted( const std::string& entryPoint )
@@ -637,6 +759,7 @@ void AndroidMediaLibrary::onDiscoveryProgress( const std::string& entryPoint )
 
 void AndroidMediaLibrary::onDiscoveryCompleted( const std::string& entryPoint )
 {
+    invalidateListings();
     --m_nbDiscovery;
     JNIEnv *env = getEnv();
     if (env == NULL)
@@ -674,6 +797,7 @@ void AndroidMediaLibrary::onReloadStarted( const std::string& entryPoint )
 
 void AndroidMediaLibrary::onReloadCompleted( const std::string& entryPoint )
 {
+    invalidateListings();
     JNIEnv *env = getEnv();
     if (env == NULL)
         return;
@@ -692,6 +816,7 @@ void AndroidMediaLibrary::onReloadCompleted( const std::string& entryPoint )
 
 void AndroidMediaLibrary::onEntryPointBanned( const std::string& entryPoint, bool success )
 {
+    invalidateListings();
     JNIEnv *env = getEnv();
     if (env == NULL)
         return;
@@ -707,6 +832,7 @@ void AndroidMediaLibrary::onEntryPointBanned( const std::string& entryPoint, boo
 
 void AndroidMediaLibrary::onEntryPointUnbanned( const std::string& entryPoint, bool success )
 {
+    invalidateListings();
     JNIEnv *env = getEnv();
     if (env == NULL)
         return;
@@ -722,6 +848,7 @@ void AndroidMediaLibrary::onEntryPointUnbanned( const std::string& entryPoint, b
 
 void AndroidMediaLibrary::onEntryPointRemoved( const std::string& entryPoint, bool success )
 {
+    invalidateListings();
     JNIEnv *env = getEnv();
     if (env == NULL)
         return;
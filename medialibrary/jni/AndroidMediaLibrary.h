@@ -1,6 +1,9 @@
 #ifndef ANDROIDMEDIALIBRARY_H
 #define ANDROIDMEDIALIBRARY_H
 
+#include <atomic>
+#include <memory>
+#include <mutex>
 #include <vector>
 #include <string>
 #include <tuple>
@@ -62,12 +65,21 @@ public:
     medialibrary::MediaPtr addMedia(const std::string& mrl);
     std::vector<medialibrary::MediaPtr> videoFiles( medialibrary::SortingCriteria sort = medialibrary::SortingCriteria::Default, bool desc = false );
     std::vector<medialibrary::MediaPtr> audioFiles( medialibrary::SortingCriteria sort = medialibrary::SortingCriteria::Default, bool desc = false );
-    std::vector<medialibrary::AlbumPtr> albums();
+    std::vector<medialibrary::AlbumPtr> albums( medialibrary::SortingCriteria sort = medialibrary::SortingCriteria::Default, bool desc = false );
     medialibrary::AlbumPtr album(int64_t albumId);
-    std::vector<medialibrary::ArtistPtr> artists();
+    std::vector<medialibrary::ArtistPtr> artists( medialibrary::SortingCriteria sort = medialibrary::SortingCriteria::Default, bool desc = false );
     medialibrary::ArtistPtr artist(int64_t artistId);
-    std::vector<medialibrary::GenrePtr> genres();
+    std::vector<medialibrary::GenrePtr> genres( medialibrary::SortingCriteria sort = medialibrary::SortingCriteria::Default, bool desc = false );
     medialibrary::GenrePtr genre(int64_t genreId);
+    /* Sorted listings, built once per library generation and shared by paged queries */
+    std::shared_ptr<const std::vector<medialibrary::MediaPtr>> sortedVideoFiles( medialibrary::SortingCriteria sort, bool desc );
+    std::shared_ptr<const std::vector<medialibrary::MediaPtr>> sortedAudioFiles( medialibrary::SortingCriteria sort, bool desc );
+    std::shared_ptr<const std::vector<medialibrary::AlbumPtr>> sortedAlbums( medialibrary::SortingCriteria sort, bool desc );
+    std::shared_ptr<const std::vector<medialibrary::ArtistPtr>> sortedArtists( medialibrary::SortingCriteria sort, bool desc );
+    std::shared_ptr<const std::vector<medialibrary::GenrePtr>> sortedGenres( medialibrary::SortingCriteria sort, bool desc );
+    size_t albumsCount();
+    size_t artistsCount();
+    size_t genresCount();
     std::vector<medialibrary::PlaylistPtr> playlists();
     medialibrary::PlaylistPtr playlist( int64_t playlistId );
     medialibrary::PlaylistPtr PlaylistCreate( const std::string &name );
@@ -116,10 +128,24 @@ public:
     void onBackgroundTasksIdleChanged( bool isIdle );
 
 private:
+    template <typename T>
+    struct Listing
+    {
+        uint32_t generation = 0;
+        medialibrary::SortingCriteria sort = medialibrary::SortingCriteria::Default;
+        bool desc = false;
+        std::shared_ptr<const std::vector<T>> items;
+    };
+
     void jni_detach_thread(void *data);
     jobject getWeakReference(JNIEnv *env);
     JNIEnv *getEnv();
     void detachCurrentThread();
+    void invalidateListings();
+    template <typename T, typename Loader>
+    std::shared_ptr<const std::vector<T>> cachedListing( Listing<T>& listing, medialibrary::SortingCriteria sort, bool desc, Loader load );
+    template <typename T, typename Loader>
+    size_t cachedCount( Listing<T>& listing, Loader load );
 
     pthread_once_t key_once = PTHREAD_ONCE_INIT;
     jweak weak_thiz, weak_compat;
@@ -131,5 +157,12 @@ private:
     bool discoveryEnded = false;
     bool m_paused = false;
     uint32_t m_nbDiscovery = 0, m_progress = 0, m_mediaAddedType = 0, m_mediaUpdatedType = 0;
+    /* Bumped by every library change callback, cached listings of older generations are rebuilt */
+    std::atomic<uint32_t> m_generation{1};
+    std::mutex m_listingsLock;
+    Listing<medialibrary::MediaPtr> m_videoListing, m_audioListing;
+    Listing<medialibrary::AlbumPtr> m_albumListing;
+    Listing<medialibrary::ArtistPtr> m_artistListing;
+    Listing<medialibrary::GenrePtr> m_genreListing;
 };
 #endif // ANDROIDMEDIALIBRARY_H
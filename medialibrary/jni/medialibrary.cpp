@@ -1,5 +1,6 @@
 #include <stdlib.h>
 #include <string>
+#include <algorithm>
 #include <jni.h>
 #include <medialibrary/IDeviceLister.h>
 #define LOG_TAG "VLC/JNI/MediaLibrary"
@@ -294,6 +295,56 @@ getRecentAudio(JNIEnv* env, jobject thiz)
     return getInternalAudio(env, thiz, medialibrary::SortingCriteria::InsertionDate, true);
 }
 
+/*
+ * Paged queries: medialibrary only returns whole listings, so each sorted
+ * listing is fetched once per library generation and cached natively (see
+ * AndroidMediaLibrary::cachedListing). Pages are served from that cache, and
+ * only the requested window is converted into Java objects.
+ */
+template <typename T>
+static bool
+getPageBounds(const std::vector<T>& items, jint offset, jint limit, size_t& begin, size_t& end)
+{
+    if (offset < 0 || limit <= 0 || (size_t)offset >= items.size())
+        return false;
+    begin = offset;
+    end = std::min(items.size(), begin + limit);
+    return true;
+}
+
+static jobjectArray
+getPagedMedia(JNIEnv* env, std::shared_ptr<const std::vector<medialibrary::MediaPtr>> const& listing, jint offset, jint limit)
+{
+    std::vector<medialibrary::MediaPtr> const& mediaList = *listing;
+    size_t begin, end;
+    if (!getPageBounds(mediaList, offset, limit, begin, end))
+        return (jobjectArray) env->NewObjectArray(0, ml_fields.MediaWrapper.clazz, NULL);
+    jobjectArray mediaRefs = (jobjectArray) env->NewObjectArray(end - begin, ml_fields.MediaWrapper.clazz, NULL);
+    int index = -1, drops = 0;
+    for (size_t i = begin; i < end; ++i) {
+        jobject item = mediaToMediaWrapper(env, &ml_fields, mediaList[i]);
+        env->SetObjectArrayElement(mediaRefs, ++index, item);
+        if (item == nullptr)
+            ++drops;
+        env->DeleteLocalRef(item);
+    }
+    return filteredArray(env, &ml_fields, mediaRefs, drops);
+}
+
+jobjectArray
+getPagedVideos(JNIEnv* env, jobject thiz, jint sort, jboolean desc, jint offset, jint limit)
+{
+    AndroidMediaLibrary *aml = MediaLibrary_getInstance(env, thiz);
+    return getPagedMedia(env, aml->sortedVideoFiles((medialibrary::SortingCriteria)sort, desc), offset, limit);
+}
+
+jobjectArray
+getPagedAudio(JNIEnv* env, jobject thiz, jint sort, jboolean desc, jint offset, jint limit)
+{
+    AndroidMediaLibrary *aml = MediaLibrary_getInstance(env, thiz);
+    return getPagedMedia(env, aml->sortedAudioFiles((medialibrary::SortingCriteria)sort, desc), offset, limit);
+}
+
 jobject
 search(JNIEnv* env, jobject thiz, jstring query)
 {
@@ -477,6 +528,78 @@ getGenres(JNIEnv* env, jobject thiz)
     return genreRefs;
 }
 
+jobjectArray
+getPagedAlbums(JNIEnv* env, jobject thiz, jint sort, jboolean desc, jint offset, jint limit)
+{
+    AndroidMediaLibrary *aml = MediaLibrary_getInstance(env, thiz);
+    std::shared_ptr<const std::vector<medialibrary::AlbumPtr>> listing = aml->sortedAlbums((medialibrary::SortingCriteria)sort, desc);
+    std::vector<medialibrary::AlbumPtr> const& albums = *listing;
+    size_t begin, end;
+    if (!getPageBounds(albums, offset, limit, begin, end))
+        return (jobjectArray) env->NewObjectArray(0, ml_fields.Album.clazz, NULL);
+    jobjectArray albumRefs = (jobjectArray) env->NewObjectArray(end - begin, ml_fields.Album.clazz, NULL);
+    int index = -1;
+    for (size_t i = begin; i < end; ++i) {
+        jobject item = convertAlbumObject(env, &ml_fields, albums[i]);
+        env->SetObjectArrayElement(albumRefs, ++index, item);
+        env->DeleteLocalRef(item);
+    }
+    return albumRefs;
+}
+
+jobjectArray
+getPagedArtists(JNIEnv* env, jobject thiz, jint sort, jboolean desc, jint offset, jint limit)
+{
+    AndroidMediaLibrary *aml = MediaLibrary_getInstance(env, thiz);
+    std::shared_ptr<const std::vector<medialibrary::ArtistPtr>> listing = aml->sortedArtists((medialibrary::SortingCriteria)sort, desc);
+    std::vector<medialibrary::ArtistPtr> const& artists = *listing;
+    size_t begin, end;
+    if (!getPageBounds(artists, offset, limit, begin, end))
+        return (jobjectArray) env->NewObjectArray(0, ml_fields.Artist.clazz, NULL);
+    jobjectArray artistRefs = (jobjectArray) env->NewObjectArray(end - begin, ml_fields.Artist.clazz, NULL);
+    int index = -1;
+    for (size_t i = begin; i < end; ++i) {
+        jobject item = convertArtistObject(env, &ml_fields, artists[i]);
+        env->SetObjectArrayElement(artistRefs, ++index, item);
+        env->DeleteLocalRef(item);
+    }
+    return artistRefs;
+}
+
+jobjectArray
+getPagedGenres(JNIEnv* env, jobject thiz, jint sort, jboolean desc, jint offset, jint limit)
+{
+    AndroidMediaLibrary *aml = MediaLibrary_getInstance(env, thiz);
+    std::shared_ptr<const std::vector<medialibrary::GenrePtr>> listing = aml->sortedGenres((medialibrary::SortingCriteria)sort, desc);
+    std::vector<medialibrary::GenrePtr> const& genres = *listing;
+    size_t begin, end;
+    if (!getPageBounds(genres, offset, limit, begin, end))
+        return (jobjectArray) env->NewObjectArray(0, ml_fields.Genre.clazz, NULL);
+    jobjectArray genreRefs = (jobjectArray) env->NewObjectArray(end - begin, ml_fields.Genre.clazz, NULL);
+    int index = -1;
+    for (size_t i = begin; i < end; ++i) {
+        jobject item = convertGenreObject(env, &ml_fields, genres[i]);
+        env->SetObjectArrayElement(genreRefs, ++index, item);
+        env->DeleteLocalRef(item);
+    }
+    return genreRefs;
+}
+
+jint
+getAlbumsCount(JNIEnv* env, jobject thiz) {
+    return MediaLibrary_getInstance(env, thiz)->albumsCount();
+}
+
+jint
+getArtistsCount(JNIEnv* env, jobject thiz) {
+    return MediaLibrary_getInstance(env, thiz)->artistsCount();
+}
+
+jint
+getGenresCount(JNIEnv* env, jobject thiz) {
+    return MediaLibrary_getInstance(env, thiz)->genresCount();
+}
+
 jobject
 getGenre(JNIEnv* env, jobject thiz, jlong id)
 {
@@ -779,6 +902,14 @@ static JNINativeMethod methods[] = {
     {"nativeGetMedia", "(J)Lorg/videolan/medialibrary/media/MediaWrapper;", (void*)getMedia },
     {"nativeGetMediaFromMrl", "(Ljava/lang/String;)Lorg/videolan/medialibrary/media/MediaWrapper;", (void*)getMediaFromMrl },
     {"nativeAddMedia", "(Ljava/lang/String;)Lorg/videolan/medialibrary/media/MediaWrapper;", (void*)addMedia },
+    {"nativeGetPagedVideos", "(IZII)[Lorg/videolan/medialibrary/media/MediaWrapper;", (void*)getPagedVideos },
+    {"nativeGetPagedAudio", "(IZII)[Lorg/videolan/medialibrary/media/MediaWrapper;", (void*)getPagedAudio },
+    {"nativeGetPagedAlbums", "(IZII)[Lorg/videolan/medialibrary/media/Album;", (void*)getPagedAlbums },
+    {"nativeGetPagedArtists", "(IZII)[Lorg/videolan/medialibrary/media/Artist;", (void*)getPagedArtists },
+    {"nativeGetPagedGenres", "(IZII)[Lorg/videolan/medialibrary/media/Genre;", (void*)getPagedGenres },
+    {"nativeGetAlbumsCount", "()I", (void*)getAlbumsCount },
+    {"nativeGetArtistsCount", "()I", (void*)getArtistsCount },
+    {"nativeGetGenresCount", "()I", (void*)getGenresCount },
     {"nativeGetVideoCount", "()I", (void*)getVideoCount },
     {"nativeGetAudioCount", "()I", (void*)getAudioCount },
     {"nativeGetAlbums", "()[Lorg/videolan/medialibrary/media/Album;", (void*)getAlbums },
@@ -19,6 +19,7 @@ import org.videolan.libvlc.util.VLCUtil;
 import org.videolan.medialibrary.interfaces.DevicesDiscoveryCb;
 import org.videolan.medialibrary.interfaces.EntryPointsEventsCb;
 import org.videolan.medialibrary.interfaces.MediaAddedCb;
+import org.videolan.medialibrary.interfaces.MediaDeletedCb;
 import org.videolan.medialibrary.interfaces.MediaUpdatedCb;
 import org.videolan.medialibrary.media.Album;
 import org.videolan.medialibrary.media.Artist;
@@ -53,6 +54,14 @@ public class Medialibrary {
     public static final String VLC_MEDIA_DB_NAME = "/vlc_media.db";
     public static final String THUMBS_FOLDER_NAME = "/thumbs";
 
+    /* Sorting criteria for paged queries, mirroring medialibrary::SortingCriteria */
+    public static final int SORT_DEFAULT = 0;
+    public static final int SORT_ALPHA = 1;
+    public static final int SORT_DURATION = 2;
+    public static final int SORT_INSERTIONDATE = 3;
+    public static final int SORT_LASTMODIFICATIONDATE = 4;
+    public static final int SORT_RELEASEDATE = 5;
+
 
     private long mInstanceID;
     private volatile boolean mIsInitiated = false;
@@ -60,6 +69,7 @@ public class Medialibrary {
 
     private MediaUpdatedCb mediaUpdatedCb = null;
     private MediaAddedCb mediaAddedCb = null;
+    private MediaDeletedCb mediaDeletedCb = null;
     private ArtistsAddedCb mArtistsAddedCb = null;
     private ArtistsModifiedCb mArtistsModifiedCb = null;
     private AlbumsAddedCb mAlbumsAddedCb = null;
@@ -168,6 +178,50 @@ public class Medialibrary {
         return mIsInitiated ? nativeGetRecentAudio() : new MediaWrapper[0];
     }
 
+    /**
+     * Get a window of the videos list
+     * @param sort one of the SORT_* criteria
+     * @param desc reverse the sorting order
+     * @param offset index of the first video to return
+     * @param limit maximum number of videos to return
+     */
+    @WorkerThread
+    public MediaWrapper[] getPagedVideos(int sort, boolean desc, int offset, int limit) {
+        return mIsInitiated ? nativeGetPagedVideos(sort, desc, offset, limit) : new MediaWrapper[0];
+    }
+
+    @WorkerThread
+    public MediaWrapper[] getPagedAudio(int sort, boolean desc, int offset, int limit) {
+        return mIsInitiated ? nativeGetPagedAudio(sort, desc, offset, limit) : new MediaWrapper[0];
+    }
+
+    @WorkerThread
+    public Album[] getPagedAlbums(int sort, boolean desc, int offset, int limit) {
+        return mIsInitiated ? nativeGetPagedAlbums(sort, desc, offset, limit) : new Album[0];
+    }
+
+    @WorkerThread
+    public Artist[] getPagedArtists(int sort, boolean desc, int offset, int limit) {
+        return mIsInitiated ? nativeGetPagedArtists(sort, desc, offset, limit) : new Artist[0];
+    }
+
+    @WorkerThread
+    public Genre[] getPagedGenres(int sort, boolean desc, int offset, int limit) {
+        return mIsInitiated ? nativeGetPagedGenres(sort, desc, offset, limit) : new Genre[0];
+    }
+
+    public int getAlbumsCount() {
+        return mIsInitiated ? nativeGetAlbumsCount() : 0;
+    }
+
+    public int getArtistsCount() {
+        return mIsInitiated ? nativeGetArtistsCount() : 0;
+    }
+
+    public int getGenresCount() {
+        return mIsInitiated ? nativeGetGenresCount() : 0;
+    }
+
     public int getVideoCount() {
         return mIsInitiated ? nativeGetVideoCount() : 0;
     }
@@ -319,8 +373,8 @@ public class Medialibrary {
     }
 
     public void onMediaDeleted(long[] ids) {
-        for (long id : ids)
-            Log.d(TAG, "onMediaDeleted: "+id);
+        if (mediaDeletedCb != null)
+            mediaDeletedCb.onMediaDeleted(ids);
     }
 
     public void onArtistsAdded() {
@@ -463,6 +517,17 @@ public class Medialibrary {
         nativeSetMediaAddedCbFlag(flags);
     }
 
+    /**
+     * Deleted media ids are only reported while a MediaAddedCb or a MediaUpdatedCb is set.
+     */
+    public void setMediaDeletedCb(MediaDeletedCb mediaDeletedCb) {
+        this.mediaDeletedCb = mediaDeletedCb;
+    }
+
+    public void removeMediaDeletedCb() {
+        setMediaDeletedCb(null);
+    }
+
     public void setArtistsAddedCb(ArtistsAddedCb artistsAddedCb) {
         if (!mIsInitiated)
             return;
@@ -606,6 +671,14 @@ public class Medialibrary {
     private native MediaWrapper[] nativeGetRecentVideos();
     private native MediaWrapper[] nativeGetAudio();
     private native MediaWrapper[] nativeGetRecentAudio();
+    private native MediaWrapper[] nativeGetPagedVideos(int sort, boolean desc, int offset, int limit);
+    private native MediaWrapper[] nativeGetPagedAudio(int sort, boolean desc, int offset, int limit);
+    private native Album[] nativeGetPagedAlbums(int sort, boolean desc, int offset, int limit);
+    private native Artist[] nativeGetPagedArtists(int sort, boolean desc, int offset, int limit);
+    private native Genre[] nativeGetPagedGenres(int sort, boolean desc, int offset, int limit);
+    private native int nativeGetAlbumsCount();
+    private native int nativeGetArtistsCount();
+    private native int nativeGetGenresCount();
     private native int nativeGetVideoCount();
     private native int nativeGetAudioCount();
     private native Album[] nativeGetAlbums();
@@ -28,6 +28,8 @@ public abstract class MediaLibraryItem implements Parcelable {
     protected String mTitle;
     String mDescription;
     private int mFlags;
+    /* Cached by the app sorting code, not parceled */
+    private volatile Object mSortKey;
 
     protected MediaLibraryItem() {}
 
@@ -89,6 +91,14 @@ public abstract class MediaLibraryItem implements Parcelable {
         mFlags &= ~flags;
     }
 
+    public Object getSortKey() {
+        return mSortKey;
+    }
+
+    public void setSortKey(Object key) {
+        mSortKey = key;
+    }
+
     @Override
     public void writeToParcel(Parcel parcel, int i) {
         parcel.writeLong(mId);
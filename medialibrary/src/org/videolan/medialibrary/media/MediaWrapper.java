@@ -350,6 +350,8 @@ public class MediaWrapper extends MediaLibraryItem implements Parcelable {
                 mDiscNumber = Integer.parseInt(discNumber);
             } catch (NumberFormatException ignored) {}
         }
+        // The track number may have changed, sort keys only check strings
+        setSortKey(null);
     }
 
     public void updateMeta(MediaPlayer mediaPlayer) {
@@ -410,6 +412,7 @@ public class MediaWrapper extends MediaLibraryItem implements Parcelable {
 
     public void setType(int type){
         mType = type;
+        setSortKey(null);
     }
 
     public int getWidth() {
@@ -564,6 +567,7 @@ public class MediaWrapper extends MediaLibraryItem implements Parcelable {
 
     public void setLastModified(long mLastModified) {
         this.mLastModified = mLastModified;
+        setSortKey(null);
     }
 
     public long getSeen() {
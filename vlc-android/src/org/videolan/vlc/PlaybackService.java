@@ -88,6 +88,7 @@ import org.videolan.vlc.media.BrowserProvider;
 import org.videolan.vlc.media.MediaDatabase;
 import org.videolan.vlc.media.MediaUtils;
 import org.videolan.vlc.media.MediaWrapperList;
+import org.videolan.vlc.media.ShuffleOrder;
 import org.videolan.vlc.util.AndroidDevices;
 import org.videolan.vlc.util.FileUtils;
 import org.videolan.vlc.util.Permissions;
@@ -111,7 +112,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Random;
-import java.util.Stack;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -176,13 +176,19 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     private PowerManager.WakeLock mWakeLock;
     private final AtomicBoolean mExpanding = new AtomicBoolean(false);
     private final ExecutorService mExecutorService = Executors.newSingleThreadExecutor();
+    /* Max time the next media preparsing may take, in ms */
+    private static final int PREPARE_PARSE_TIMEOUT = 10000;
     private final AtomicBoolean mUpdateMeta = new AtomicBoolean(false);
+    /* Next media, opened and preparsed ahead of time so that track changes don't wait for the input */
+    private PreparedMedia mPreparedMedia = null;
 
     // Index management
     /**
-     * Stack of previously played indexes, used in shuffle mode
+     * Play order in shuffle mode, null when not shuffling
      */
-    private final Stack<Integer> mPrevious = new Stack<>();
+    private ShuffleOrder mShuffleOrder = null;
+    /* Queue saved in MediaDatabase and updated incrementally, TYPE_AUDIO or TYPE_VIDEO, -1 if none */
+    private int mSavedQueueType = -1;
     private int mCurrentIndex = -1; // Set to -1 if no media is currently loaded
     private int mPrevIndex = -1; // Set to -1 if no previous media
     private int mNextIndex = -1; // Set to -1 if no next media
@@ -204,7 +210,6 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     private boolean mHasWidget;
     private boolean mShuffling = false;
     private int mRepeating = REPEAT_NONE;
-    private Random mRandom = null; // Used in shuffling process
     private long mSavedTime = 0L;
     private boolean mHasAudioFocus = false;
     // RemoteControlClient-related
@@ -233,6 +238,8 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         if (aout != null)
             mp.setAudioOutput(aout);
         mp.getVLCVout().addCallback(this);
+        // Only the latest time/position/buffering sample matters to the UI
+        mp.setEventCoalescing(true);
 
         return mp;
     }
@@ -354,6 +361,26 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             mRemoteControlClientReceiver = null;
         }
         mMediaPlayer.release();
+        flushDatabase();
+    }
+
+    @Override
+    public void onTaskRemoved(Intent rootIntent) {
+        super.onTaskRemoved(rootIntent);
+        flushDatabase();
+    }
+
+    /**
+     * Commit pending database writes once the ones still queued in mExecutorService are queued,
+     * before the process may be killed. The main thread does not wait for it.
+     */
+    private void flushDatabase() {
+        mExecutorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                MediaDatabase.getInstance().commitPendingWrites();
+            }
+        });
     }
 
     @Override
@@ -600,8 +627,16 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
                         showNotification();
                     }
                     mVideoBackground = false;
-                    if (getCurrentMediaWrapper().getType() == MediaWrapper.TYPE_STREAM)
-                        mMedialibrary.addToHistory(getCurrentMediaLocation(), getCurrentMediaWrapper().getTitle());
+                    if (getCurrentMediaWrapper().getType() == MediaWrapper.TYPE_STREAM) {
+                        final String location = getCurrentMediaLocation();
+                        final String title = getCurrentMediaWrapper().getTitle();
+                        mExecutorService.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                mMedialibrary.addToHistory(location, title);
+                            }
+                        });
+                    }
                     break;
                 case MediaPlayer.Event.Paused:
                     Log.i(TAG, "MediaPlayer.Event.Paused");
@@ -680,17 +715,47 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     };
 
     private void showPlayer() {
-        sendBroadcast(new Intent(AudioPlayerContainerActivity.ACTION_SHOW_PLAYER));
+        sendBroadcastInBackground(new Intent(AudioPlayerContainerActivity.ACTION_SHOW_PLAYER));
     }
 
+    /* Broadcasts are binder calls, keep them off the main thread but in order */
+    private void sendBroadcastInBackground(final Intent intent) {
+        mExecutorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                sendBroadcast(intent);
+            }
+        });
+    }
+
+    /**
+     * Read player state now and save it to the media library in the background.
+     */
     public void saveMediaMeta() {
-        MediaWrapper media = mMedialibrary.findMedia(getCurrentMediaWrapper());
+        final MediaWrapper current = getCurrentMediaWrapper();
+        if (current == null)
+            return;
+        final boolean canSwitchToVideo = canSwitchToVideo();
+        final long time = getTime();
+        final boolean saveAudioDelay = canSwitchToVideo && mSettings.getBoolean("save_individual_audio_delay", false);
+        final long audioDelay = saveAudioDelay ? mMediaPlayer.getAudioDelay() : 0L;
+        final long spuDelay = canSwitchToVideo ? mMediaPlayer.getSpuDelay() : 0L;
+        final int spuTrack = canSwitchToVideo ? mMediaPlayer.getSpuTrack() : 0;
+        mExecutorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                saveMediaMeta(current, canSwitchToVideo, time, saveAudioDelay, audioDelay, spuDelay, spuTrack);
+            }
+        });
+    }
+
+    private void saveMediaMeta(MediaWrapper current, boolean canSwitchToVideo, long time,
+                               boolean saveAudioDelay, long audioDelay, long spuDelay, int spuTrack) {
+        MediaWrapper media = mMedialibrary.findMedia(current);
         if (media == null || media.getId() == 0)
             return;
-        boolean canSwitchToVideo = canSwitchToVideo();
         if (canSwitchToVideo || media.isPodcast()) {
             //Save progress
-            long time = getTime();
             float progress = time / (float)media.getLength();
             if (progress > 0.90f) {
                 //increase seen counter if more than 90% of the media have been seen
@@ -705,10 +770,10 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         }
         if (canSwitchToVideo) {
             //Save audio delay
-            if (mSettings.getBoolean("save_individual_audio_delay", false))
-                media.setLongMeta(MediaWrapper.META_AUDIODELAY, mMediaPlayer.getAudioDelay());
-            media.setLongMeta(MediaWrapper.META_SUBTITLE_DELAY, mMediaPlayer.getSpuDelay());
-            media.setLongMeta(MediaWrapper.META_SUBTITLE_TRACK, mMediaPlayer.getSpuTrack());
+            if (saveAudioDelay)
+                media.setLongMeta(MediaWrapper.META_AUDIODELAY, audioDelay);
+            media.setLongMeta(MediaWrapper.META_SUBTITLE_DELAY, spuDelay);
+            media.setLongMeta(MediaWrapper.META_SUBTITLE_TRACK, spuTrack);
         }
     }
 
@@ -727,8 +792,20 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     private final MediaWrapperList.EventListener mListEventListener = new MediaWrapperList.EventListener() {
 
         @Override
-        public void onItemAdded(int index, String mrl) {
+        public void onItemAdded(final int index, String mrl) {
             Log.i(TAG, "CustomMediaListItemAdded");
+            if (mShuffleOrder != null)
+                mShuffleOrder.insert(index);
+            final MediaWrapper media = mMediaList.getMedia(index);
+            if (mSavedQueueType != -1 && media != null) {
+                final int type = mSavedQueueType;
+                mExecutorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        MediaDatabase.getInstance().queueInsert(type, index, media);
+                    }
+                });
+            }
             if(mCurrentIndex >= index && !mExpanding.get())
                 mCurrentIndex++;
 
@@ -737,18 +814,47 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         }
 
         @Override
-        public void onItemRemoved(int index, String mrl) {
+        public void onItemsAdded(final int index, int count) {
+            Log.i(TAG, "CustomMediaListItemsAdded: " + count);
+            if (mShuffleOrder != null)
+                mShuffleOrder.insert(index, count);
+            if (mSavedQueueType != -1) {
+                final int type = mSavedQueueType;
+                final List<MediaWrapper> medias = new ArrayList<>(mMediaList.getAll().subList(index, index + count));
+                mExecutorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        MediaDatabase.getInstance().queueInsert(type, index, medias);
+                    }
+                });
+            }
+            if(mCurrentIndex >= index && !mExpanding.get())
+                mCurrentIndex += count;
+
+            determinePrevAndNextIndices();
+            executeUpdate();
+        }
+
+        @Override
+        public void onItemRemoved(final int index, String mrl) {
             Log.i(TAG, "CustomMediaListItemDeleted");
+            if (mShuffleOrder != null)
+                mShuffleOrder.remove(index);
+            if (mSavedQueueType != -1) {
+                final int type = mSavedQueueType;
+                mExecutorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        MediaDatabase.getInstance().queueRemove(type, index);
+                    }
+                });
+            }
             if (mCurrentIndex == index && !mExpanding.get()) {
                 // The current item has been deleted
-                mCurrentIndex--;
-                determinePrevAndNextIndices();
-                if (mNextIndex != -1)
-                    next();
-                else if (mCurrentIndex != -1) {
-                    playIndex(mCurrentIndex, 0);
-                } else
-                    stop();
+                // In shuffle mode, the previously played item is now the current one in the order
+                mCurrentIndex = mShuffleOrder != null ? mShuffleOrder.getCurrent() : mCurrentIndex - 1;
+                onCurrentRemoved();
+                return;
             }
 
             if(mCurrentIndex > index && !mExpanding.get())
@@ -758,7 +864,48 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         }
 
         @Override
-        public void onItemMoved(int indexBefore, int indexAfter, String mrl) {
+        public void onItemsRemoved(final int[] positions) {
+            Log.i(TAG, "CustomMediaListItemsDeleted: " + positions.length);
+            if (mShuffleOrder != null)
+                mShuffleOrder.remove(positions);
+            if (mSavedQueueType != -1) {
+                final int type = mSavedQueueType;
+                mExecutorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        MediaDatabase.getInstance().queueRemove(type, positions);
+                    }
+                });
+            }
+            if (!mExpanding.get()) {
+                final int index = Arrays.binarySearch(positions, mCurrentIndex);
+                if (index >= 0) {
+                    // The current item has been deleted, see onItemRemoved
+                    mCurrentIndex = mShuffleOrder != null ? mShuffleOrder.getCurrent() : mCurrentIndex - index - 1;
+                    onCurrentRemoved();
+                    return;
+                }
+                // Shift by the number of items removed before the current one
+                mCurrentIndex += index + 1;
+            }
+            determinePrevAndNextIndices();
+            executeUpdate();
+        }
+
+        private void onCurrentRemoved() {
+            determinePrevAndNextIndices();
+            if (mNextIndex != -1)
+                next();
+            else if (mCurrentIndex != -1) {
+                playIndex(mCurrentIndex, 0);
+            } else
+                stop();
+            // Indexes above are already relative to the new list
+            executeUpdate();
+        }
+
+        @Override
+        public void onItemMoved(final int indexBefore, final int indexAfter, String mrl) {
             Log.i(TAG, "CustomMediaListItemMoved");
             if (mCurrentIndex == indexBefore) {
                 mCurrentIndex = indexAfter;
@@ -771,9 +918,17 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
                     && indexAfter > mCurrentIndex)
                 mCurrentIndex--;
 
-            // If we are in random mode, we completely reset the stored previous track
-            // as their indices changed.
-            mPrevious.clear();
+            if (mShuffleOrder != null)
+                mShuffleOrder.move(indexBefore, indexAfter);
+            if (mSavedQueueType != -1) {
+                final int type = mSavedQueueType;
+                mExecutorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        MediaDatabase.getInstance().queueMove(type, indexBefore, indexAfter);
+                    }
+                });
+            }
 
             determinePrevAndNextIndices();
             executeUpdate();
@@ -994,8 +1149,9 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             publishState();
         }
         mMediaList.removeEventListener(mListEventListener);
+        releasePreparedMedia();
         mCurrentIndex = -1;
-        mPrevious.clear();
+        mShuffleOrder = null;
         mHandler.removeMessages(SHOW_PROGRESS);
         hideNotification();
         broadcastMetadata();
@@ -1022,6 +1178,8 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             // No subitems; play the next item.
             int size = mMediaList.size();
             mShuffling &= size > 2;
+            if (!mShuffling)
+                mShuffleOrder = null;
 
             // Repeating once doesn't change the index
             if (mRepeating == REPEAT_ONE) {
@@ -1029,36 +1187,19 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             } else {
 
                 if(mShuffling) {
-                    if(!mPrevious.isEmpty()){
-                        mPrevIndex = mPrevious.peek();
-                        while (!isValidIndex(mPrevIndex)) {
-                            mPrevious.remove(mPrevious.size() - 1);
-                            if (mPrevious.isEmpty()) {
-                                mPrevIndex = -1;
-                                break;
-                            }
-                            mPrevIndex = mPrevious.peek();
-                        }
-                    }
+                    if (mShuffleOrder == null || mShuffleOrder.size() != size) {
+                        mShuffleOrder = new ShuffleOrder(new Random(System.currentTimeMillis()));
+                        mShuffleOrder.reset(size, mCurrentIndex);
+                    } else
+                        mShuffleOrder.setCurrent(mCurrentIndex);
+                    mPrevIndex = mShuffleOrder.getPrevious();
+                    mNextIndex = mShuffleOrder.getNext();
                     // If we've played all songs already in shuffle, then either
                     // reshuffle or stop (depending on RepeatType).
-                    if(mPrevious.size() + 1 == size) {
-                        if(mRepeating == REPEAT_NONE) {
-                            mNextIndex = -1;
-                            return;
-                        } else {
-                            mPrevious.clear();
-                            mRandom = new Random(System.currentTimeMillis());
-                        }
-                    }
-                    if(mRandom == null) mRandom = new Random(System.currentTimeMillis());
-                    // Find a new index not in mPrevious.
-                    do
-                    {
-                        mNextIndex = mRandom.nextInt(size);
+                    if (mNextIndex == -1 && mRepeating != REPEAT_NONE) {
+                        mShuffleOrder.reset(size, mCurrentIndex);
+                        mNextIndex = mShuffleOrder.getNext();
                     }
-                    while(mNextIndex == mCurrentIndex || mPrevious.contains(mNextIndex));
-
                 } else {
                     // normal playback
                     if(mCurrentIndex > 0)
@@ -1392,7 +1533,6 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     }
 
     private void onMediaListChanged() {
-        saveMediaList();
         determinePrevAndNextIndices();
         executeUpdate();
     }
@@ -1401,7 +1541,6 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     public void next() {
         int size = mMediaList.size();
 
-        mPrevious.push(mCurrentIndex);
         mCurrentIndex = mNextIndex;
         if (size == 0 || mCurrentIndex < 0 || mCurrentIndex >= size) {
             if (mCurrentIndex < 0)
@@ -1424,8 +1563,6 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
                 (force || !mMediaPlayer.isSeekable() || mMediaPlayer.getTime() < 2000l)) {
             int size = mMediaList.size();
             mCurrentIndex = mPrevIndex;
-            if (mPrevious.size() > 0)
-                mPrevious.pop();
             if (size == 0 || mPrevIndex < 0 || mCurrentIndex >= size) {
                 Log.w(TAG, "Warning: invalid previous index, aborted !");
                 stop();
@@ -1441,7 +1578,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     @MainThread
     public void shuffle() {
         if (mShuffling)
-            mPrevious.clear();
+            mShuffleOrder = null;
         mShuffling = !mShuffling;
         savePosition();
         determinePrevAndNextIndices();
@@ -1478,7 +1615,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             widgetIntent.putExtra("artist", "");
         }
         widgetIntent.putExtra("isplaying", isPlaying());
-        sendBroadcast(widgetIntent);
+        sendBroadcastInBackground(widgetIntent);
     }
 
     private String mCurrentWidgetCover = null;
@@ -1486,7 +1623,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     String newWidgetCover = hasCurrentMedia() ? getCurrentMedia().getArtworkMrl() : null;
         if (!TextUtils.equals(mCurrentWidgetCover, newWidgetCover)) {
             mCurrentWidgetCover = newWidgetCover;
-            sendBroadcast(new Intent(VLCAppWidgetProvider.ACTION_WIDGET_UPDATE_COVER)
+            sendBroadcastInBackground(new Intent(VLCAppWidgetProvider.ACTION_WIDGET_UPDATE_COVER)
                             .putExtra("artworkMrl", newWidgetCover));
         }
     }
@@ -1499,7 +1636,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         if (!hasCurrentMedia() || timestamp - mWidgetPositionTimestamp < getCurrentMedia().getLength() / 50)
             return;
         mWidgetPositionTimestamp = timestamp;
-        sendBroadcast(new Intent(VLCAppWidgetProvider.ACTION_WIDGET_UPDATE_POSITION)
+        sendBroadcastInBackground(new Intent(VLCAppWidgetProvider.ACTION_WIDGET_UPDATE_POSITION)
                 .putExtra("position", pos));
     }
 
@@ -1507,7 +1644,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         final MediaWrapper media = getCurrentMedia();
         if (media == null || isVideoPlaying())
             return;
-        sendBroadcast(new Intent("com.android.music.metachanged")
+        sendBroadcastInBackground(new Intent("com.android.music.metachanged")
                 .putExtra("track", media.getTitle())
                 .putExtra("artist", media.getArtist())
                 .putExtra("album", media.getAlbum())
@@ -1542,24 +1679,40 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             @Override
             public void run() {
                 final boolean audio = type == TYPE_AUDIO;
-                String[] locations;
+                final String savedList;
+                final int savedPosition;
                 synchronized (PlaybackService.this) {
                     String currentMedia = mSettings.getString(audio ? "current_song" : "current_media", "");
                     if (currentMedia.equals(""))
                         return;
-                    locations = mSettings.getString(audio ? "audio_list" : "media_list", "").split(" ");
+                    savedList = mSettings.getString(audio ? "audio_list" : "media_list", null);
+                    savedPosition = mSettings.getInt(audio ? "position_in_audio_list" : "position_in_media_list", 0);
                 }
-                if (locations.length == 0)
-                    return;
 
-                final List<MediaWrapper> playList = new ArrayList<>(locations.length);
-                for (String location : locations) {
-                    String mrl = Uri.decode(location);
-                    MediaWrapper mw = mMedialibrary.getMedia(mrl);
-                    if (mw == null)
-                        mw = new MediaWrapper(Uri.parse(mrl));
-                    playList.add(mw);
+                final List<MediaWrapper> playList;
+                if (savedList != null) {
+                    // Queue saved by a former version
+                    final String[] locations = savedList.split(" ");
+                    playList = new ArrayList<>(locations.length);
+                    for (String location : locations) {
+                        String mrl = Uri.decode(location);
+                        MediaWrapper mw = mMedialibrary.getMedia(mrl);
+                        if (mw == null)
+                            mw = new MediaWrapper(Uri.parse(mrl));
+                        playList.add(mw);
+                    }
+                } else {
+                    // Items are restored from their saved metas, only the current one is fetched
+                    // from the media library
+                    playList = MediaDatabase.getInstance().getQueue(type);
+                    if (savedPosition >= 0 && savedPosition < playList.size()) {
+                        final MediaWrapper mw = mMedialibrary.getMedia(playList.get(savedPosition).getLocation());
+                        if (mw != null)
+                            playList.set(savedPosition, mw);
+                    }
                 }
+                if (playList.isEmpty())
+                    return;
                 // load playlist
                 VLCApplication.runOnMainThread(new Runnable() {
                     @Override
@@ -1594,16 +1747,26 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         editor.apply();
     }
 
+    /**
+     * Save the whole queue, following changes are saved incrementally by mListEventListener.
+     */
     private synchronized void saveMediaList() {
         if (getCurrentMedia() == null)
             return;
-        StringBuilder locations = new StringBuilder();
-        for (int i = 0; i < mMediaList.size(); i++)
-            locations.append(" ").append(Uri.encode(mMediaList.getMRL(i)));
-        //We save a concatenated String because putStringSet is APIv11.
-        SharedPreferences.Editor editor = mSettings.edit();
-        editor.putString(canSwitchToVideo() || !mMediaList.isAudioList() ? "media_list" : "audio_list", locations.toString().trim());
-        editor.apply();
+        final boolean audio = !canSwitchToVideo() && mMediaList.isAudioList();
+        final int type = audio ? TYPE_AUDIO : TYPE_VIDEO;
+        final List<MediaWrapper> list = new ArrayList<>(mMediaList.getAll());
+        mSavedQueueType = type;
+        mExecutorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                MediaDatabase.getInstance().saveQueue(type, list);
+            }
+        });
+        // Former storage as a single string of all MRLs
+        final String key = audio ? "audio_list" : "media_list";
+        if (mSettings.contains(key))
+            mSettings.edit().remove(key).apply();
     }
 
     private synchronized void savePosition(){
@@ -1863,10 +2026,9 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         mMediaList.removeEventListener(mListEventListener);
         mMediaList.clear();
 
-        mPrevious.clear();
+        mShuffleOrder = null;
 
-        for (MediaWrapper media : mediaList)
-            mMediaList.add(media);
+        mMediaList.add(mediaList);
 
         if (mMediaList.size() == 0) {
             Log.w(TAG, "Warning: empty media list, nothing to play !");
@@ -1936,7 +2098,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         String mrl = mMediaList.getMRL(index);
         if (mrl == null)
             return;
-        final MediaWrapper mw = mMediaList.getMedia(index);
+        final MediaWrapper mw = resolveMedia(index);
         if (mw == null)
             return;
 
@@ -1951,22 +2113,38 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         mParsed = false;
         mSwitchingToVideo = false;
         mPausable = mSeekable = true;
-        final Media media = new Media(VLCInstance.get(), FileUtils.getUri(mw.getUri()));
-        VLCOptions.setMediaOptions(media, this, flags | mw.getFlags());
-
-        /* keeping only video during benchmark */
-        if (mIsBenchmark) {
-            media.addOption(":no-audio");
-            media.addOption(":no-spu");
-            if (mIsHardware) {
-                media.addOption(":codec=mediacodec_ndk,mediacodec_jni,none");
-                mIsHardware = false;
+        final PreparedMedia prepared = takePreparedMedia(index, mrl, flags | mw.getFlags());
+        final Media media;
+        if (prepared != null) {
+            media = prepared.media;
+        } else {
+            media = new Media(VLCInstance.get(), FileUtils.getUri(mw.getUri()));
+            VLCOptions.setMediaOptions(media, this, flags | mw.getFlags());
+
+            /* keeping only video during benchmark */
+            if (mIsBenchmark) {
+                media.addOption(":no-audio");
+                media.addOption(":no-spu");
+                if (mIsHardware) {
+                    media.addOption(":codec=mediacodec_ndk,mediacodec_jni,none");
+                    mIsHardware = false;
+                }
             }
-        }
 
+            if (mw.getSlaves() != null) {
+                for (Media.Slave slave : mw.getSlaves())
+                    media.addSlave(slave);
+            }
+            VLCApplication.runBackground(new Runnable() {
+                @Override
+                public void run() {
+                    final ArrayList<Media.Slave> list = MediaDatabase.getInstance().getSlaves(mw.getLocation());
+                    for (Media.Slave slave : list)
+                        mMediaPlayer.addSlave(slave.type, Uri.parse(slave.uri), false);
+                }
+            });
+        }
         if (mw.getSlaves() != null) {
-            for (Media.Slave slave : mw.getSlaves())
-                media.addSlave(slave);
             VLCApplication.runBackground(new Runnable() {
                 @Override
                 public void run() {
@@ -1974,18 +2152,19 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
                 }
             });
         }
-        VLCApplication.runBackground(new Runnable() {
-            @Override
-            public void run() {
-                final ArrayList<Media.Slave> list = MediaDatabase.getInstance().getSlaves(mw.getLocation());
-                for (Media.Slave slave : list)
-                    mMediaPlayer.addSlave(slave.type, Uri.parse(slave.uri), false);
-            }
-        });
 
         media.setEventListener(mMediaListener);
         mMediaPlayer.setMedia(media);
         media.release();
+        if (prepared != null) {
+            for (Media.Slave slave : prepared.slaves)
+                mMediaPlayer.addSlave(slave.type, Uri.parse(slave.uri), false);
+            /* Already parsed, ParsedChanged won't be sent again */
+            if (media.isParsed()) {
+                updateCurrentMeta(-1);
+                mParsed = true;
+            }
+        }
 
         if (mw .getType() != MediaWrapper.TYPE_VIDEO || isVideoPlaying || mw.hasFlag(MediaWrapper.MEDIA_FORCE_AUDIO)) {
             mMediaPlayer.setEqualizer(VLCOptions.getEqualizerSetFromSettings(this));
@@ -1999,6 +2178,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             mMediaPlayer.play();
 
             determinePrevAndNextIndices();
+            prepareNextMedia();
             mMediaSession.setSessionActivity(getSessionPendingIntent());
             if (mSettings.getBoolean(PreferencesFragment.PLAYBACK_HISTORY, true))
                 VLCApplication.runBackground(new Runnable() {
@@ -2024,6 +2204,119 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         }
     }
 
+    private static class PreparedMedia {
+        final int index;
+        final String mrl;
+        final int flags;
+        /* Set from the preparing thread, guarded by this */
+        Media media = null;
+        ArrayList<Media.Slave> slaves = null;
+        boolean cancelled = false;
+
+        PreparedMedia(int index, String mrl, int flags) {
+            this.index = index;
+            this.mrl = mrl;
+            this.flags = flags;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (media != null) {
+                media.release();
+                media = null;
+            }
+        }
+    }
+
+    /**
+     * Items of a restored queue are built from their saved metas only, they are replaced by
+     * their media library item when played.
+     */
+    @MainThread
+    private MediaWrapper resolveMedia(int index) {
+        final MediaWrapper mw = mMediaList.getMedia(index);
+        if (mw == null || mw.getId() != 0L)
+            return mw;
+        final MediaWrapper media = mMedialibrary.getMedia(mw.getUri());
+        if (media == null)
+            return mw;
+        media.addFlags(mw.getFlags());
+        mMediaList.replace(index, media);
+        return media;
+    }
+
+    /**
+     * Open the next audio media in background, with its slaves, and start its preparsing so that
+     * the network connection and demuxer probing are done when the current one ends.
+     * Preparsing runs in libvlc, with a timeout, and is not waited for: the media is taken as is
+     * when played, ParsedChanged then reaches mMediaListener if it was not over.
+     */
+    @MainThread
+    private void prepareNextMedia() {
+        final MediaWrapper mw = isValidIndex(mNextIndex) && mNextIndex != mCurrentIndex
+                ? mMediaList.getMedia(mNextIndex) : null;
+        final String mrl = mw != null ? mMediaList.getMRL(mNextIndex) : null;
+        if (mIsBenchmark || mrl == null || mw.getType() != MediaWrapper.TYPE_AUDIO) {
+            releasePreparedMedia();
+            return;
+        }
+        if (mPreparedMedia != null && mPreparedMedia.index == mNextIndex && mrl.equals(mPreparedMedia.mrl))
+            return;
+        releasePreparedMedia();
+        final PreparedMedia prepared = new PreparedMedia(mNextIndex, mrl, mw.getFlags());
+        mPreparedMedia = prepared;
+        VLCApplication.runBackground(new Runnable() {
+            @Override
+            public void run() {
+                final Media media = new Media(VLCInstance.get(), FileUtils.getUri(mw.getUri()));
+                VLCOptions.setMediaOptions(media, PlaybackService.this, prepared.flags);
+                if (mw.getSlaves() != null) {
+                    for (Media.Slave slave : mw.getSlaves())
+                        media.addSlave(slave);
+                }
+                final ArrayList<Media.Slave> slaves = MediaDatabase.getInstance().getSlaves(mw.getLocation());
+                media.parseAsync(Media.Parse.ParseNetwork, PREPARE_PARSE_TIMEOUT);
+                synchronized (prepared) {
+                    if (prepared.cancelled) {
+                        media.release();
+                        return;
+                    }
+                    prepared.media = media;
+                    prepared.slaves = slaves;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the prepared media for this item if it is ready, null otherwise.
+     * Prepared media is consumed in any case.
+     */
+    @MainThread
+    private PreparedMedia takePreparedMedia(int index, String mrl, int flags) {
+        final PreparedMedia prepared = mPreparedMedia;
+        mPreparedMedia = null;
+        if (prepared == null)
+            return null;
+        synchronized (prepared) {
+            if (prepared.index == index && prepared.mrl.equals(mrl) && prepared.flags == flags
+                    && prepared.media != null) {
+                prepared.cancelled = true;
+                return prepared;
+            }
+            prepared.cancel();
+        }
+        return null;
+    }
+
+    @MainThread
+    private void releasePreparedMedia() {
+        if (mPreparedMedia != null) {
+            mPreparedMedia.cancel();
+            mPreparedMedia = null;
+        }
+    }
+
     /**
      * Use this function to play a media inside whatever MediaList LibVLC is following.
      *
@@ -2121,10 +2414,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             return;
         }
 
-        for (int i = 0; i < mediaList.size(); i++) {
-            MediaWrapper mediaWrapper = mediaList.get(i);
-            mMediaList.add(mediaWrapper);
-        }
+        mMediaList.add(mediaList);
         onMediaListChanged();
         updateMediaQueue();
     }
@@ -2152,12 +2442,7 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
             return;
         }
 
-        int startIndex = mCurrentIndex + 1;
-
-        for (int i = 0; i < mediaList.size(); i++) {
-            MediaWrapper mediaWrapper = mediaList.get(i);
-            mMediaList.insert(startIndex + i, mediaWrapper);
-        }
+        mMediaList.insert(mCurrentIndex + 1, mediaList);
         onMediaListChanged();
         updateMediaQueue();
     }
@@ -2175,13 +2460,11 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     @MainThread
     public void moveItem(int positionStart, int positionEnd) {
         mMediaList.move(positionStart, positionEnd);
-        PlaybackService.this.saveMediaList();
     }
 
     @MainThread
     public void insertItem(int position, MediaWrapper mw) {
         mMediaList.insert(position, mw);
-        saveMediaList();
         determinePrevAndNextIndices();
     }
 
@@ -2189,14 +2472,12 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
     @MainThread
     public void remove(int position) {
         mMediaList.remove(position);
-        saveMediaList();
         determinePrevAndNextIndices();
     }
 
     @MainThread
     public void removeLocation(String location) {
         mMediaList.remove(location);
-        saveMediaList();
         determinePrevAndNextIndices();
     }
 
@@ -2213,6 +2494,11 @@ public class PlaybackService extends MediaBrowserServiceCompat implements IVLCVo
         return ml;
     }
 
+    @MainThread
+    public boolean containsLocation(String location) {
+        return mMediaList.contains(location);
+    }
+
     @MainThread
     public List<String> getMediaLocations() {
         ArrayList<String> medias = new ArrayList<>();
@@ -1,18 +1,25 @@
 package org.videolan.vlc;
 
+import android.support.annotation.MainThread;
 import android.support.v7.widget.RecyclerView;
 
 import org.videolan.medialibrary.media.MediaLibraryItem;
+import org.videolan.medialibrary.media.MediaWrapper;
 import org.videolan.vlc.gui.BaseQueuedAdapter;
+import org.videolan.vlc.media.MediaChangeFeed;
 import org.videolan.vlc.util.MediaLibraryItemComparator;
 import org.videolan.vlc.util.Util;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 
 
 public abstract class SortableAdapter<T extends MediaLibraryItem, VH extends RecyclerView.ViewHolder> extends BaseQueuedAdapter<T, VH> {
     private static final String TAG = "VLC/SortableAdapter";
+    /* Above this count of changes, they are merged in background and go through the regular update */
+    private static final int MAX_IN_PLACE_CHANGES = 64;
     public static final MediaLibraryItemComparator sMediaComparator = new MediaLibraryItemComparator(SortableAdapter.class);
     private int mCurrentSort = -1, mCurrentDirection = 1;
 
@@ -70,7 +77,7 @@ public abstract class SortableAdapter<T extends MediaLibraryItem, VH extends Rec
 
     protected ArrayList<T> prepareList(ArrayList<T> list) {
         if (needsSorting())
-            Collections.sort(list, sMediaComparator);
+            sMediaComparator.sort(list);
         return list;
     }
 
@@ -98,4 +105,101 @@ public abstract class SortableAdapter<T extends MediaLibraryItem, VH extends Rec
             });
         }
     }
+
+    /**
+     * Apply a batch of library changes.
+     * Small batches are applied in place with fine grained notifications, bigger ones
+     * are merged in background then go through {@link #update(ArrayList)}.
+     */
+    @MainThread
+    public void applyChanges(final MediaChangeFeed.Changes changes) {
+        if (changes.isEmpty())
+            return;
+        if (!hasPendingUpdates() && canApplyInPlace(changes)) {
+            applyInPlace(changes);
+            return;
+        }
+        final ArrayList<T> list = new ArrayList<>(peekLast());
+        final Comparator<? super T> comparator = getOrderComparator();
+        VLCApplication.runBackground(new Runnable() {
+            @Override
+            public void run() {
+                changes.applyTo(list, comparator);
+                VLCApplication.runOnMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        update(list);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return the comparator matching the dataset order, the default sort when it is not sorted by the app
+     */
+    protected Comparator<? super T> getOrderComparator() {
+        if (needsSorting())
+            return sMediaComparator;
+        final MediaLibraryItemComparator comparator = new MediaLibraryItemComparator(getClass());
+        comparator.sortBy(getDefaultSort(), getDefaultDirection());
+        return comparator;
+    }
+
+    protected boolean canApplyInPlace(MediaChangeFeed.Changes changes) {
+        return changes.size() <= MAX_IN_PLACE_CHANGES;
+    }
+
+    @SuppressWarnings("unchecked")
+    @MainThread
+    private void applyInPlace(MediaChangeFeed.Changes changes) {
+        final ArrayList<T> dataset = mDataset;
+        final Comparator<? super T> comparator = getOrderComparator();
+        final HashMap<Long, Integer> positions = new HashMap<>(dataset.size());
+        for (int i = 0; i < dataset.size(); ++i) {
+            final T item = dataset.get(i);
+            if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA)
+                positions.put(item.getId(), i);
+        }
+        final ArrayList<Integer> removals = new ArrayList<>();
+        final ArrayList<T> insertions = new ArrayList<>();
+        // Updates in place, unless the item does not fit its position anymore
+        for (MediaWrapper[] medias : new MediaWrapper[][]{changes.updated, changes.inserted})
+            for (MediaWrapper media : medias) {
+                final Integer position = positions.get(media.getId());
+                if (position == null)
+                    insertions.add((T) media);
+                else if (isInOrder(dataset, position, (T) media, comparator)) {
+                    dataset.set(position, (T) media);
+                    notifyItemChanged(position);
+                } else {
+                    removals.add(position);
+                    insertions.add((T) media);
+                }
+            }
+        for (long id : changes.deleted) {
+            final Integer position = positions.get(id);
+            if (position != null)
+                removals.add(position);
+        }
+        // Remove from the end so positions stay valid
+        Collections.sort(removals, Collections.<Integer>reverseOrder());
+        for (int position : removals) {
+            dataset.remove(position);
+            notifyItemRemoved(position);
+        }
+        for (T item : insertions) {
+            int position = Collections.binarySearch(dataset, item, comparator);
+            if (position < 0)
+                position = -position - 1;
+            dataset.add(position, item);
+            notifyItemInserted(position);
+        }
+        onUpdateFinished();
+    }
+
+    private boolean isInOrder(ArrayList<T> dataset, int position, T item, Comparator<? super T> comparator) {
+        return (position == 0 || comparator.compare(dataset.get(position - 1), item) <= 0)
+                && (position == dataset.size() - 1 || comparator.compare(item, dataset.get(position + 1)) <= 0);
+    }
 }
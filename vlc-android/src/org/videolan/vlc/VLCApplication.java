@@ -92,6 +92,15 @@ public class VLCApplication extends Application {
 
         setLocale();
 
+        // LibVLC first, it's on the way to the first frame: other setup runs alongside
+        runBackground(new Runnable() {
+            @Override
+            public void run() {
+                if (!VLCInstance.testCompatibleCPU(instance))
+                    return;
+                Dialog.setCallbacks(VLCInstance.get(), mDialogCallbacks);
+            }
+        });
         runBackground(new Runnable() {
             @Override
             public void run() {
@@ -102,10 +111,6 @@ public class VLCApplication extends Application {
 
                 sTV = AndroidDevices.isAndroidTv() || !AndroidDevices.hasTsp();
 
-                if (!VLCInstance.testCompatibleCPU(instance))
-                    return;
-                Dialog.setCallbacks(VLCInstance.get(), mDialogCallbacks);
-
                 // Disable remote control receiver on Fire TV.
                 if (!AndroidDevices.hasTsp())
                     AndroidDevices.setRemoteControlReceiverEnabled(false);
@@ -23,8 +23,10 @@ package org.videolan.vlc.gui;
 import android.support.annotation.MainThread;
 import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
+import android.util.Log;
 
 import org.videolan.medialibrary.media.MediaLibraryItem;
+import org.videolan.vlc.BuildConfig;
 import org.videolan.vlc.VLCApplication;
 import org.videolan.vlc.util.MediaItemDiffCallback;
 
@@ -34,6 +36,25 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public abstract class BaseQueuedAdapter <T extends MediaLibraryItem, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+    private static final String TAG = "VLC/BaseQueuedAdapter";
+    /* Above these thresholds, lists are swapped without diff */
+    private static final int MAX_DIFF_SIZE = 8000;
+    private static final long MAX_DIFF_COST = 4000000L;
+
+    public interface UpdateMetrics {
+        /**
+         * Called from the update thread once the new list is ready.
+         * @param diffTime time spent computing the diff in ms, 0 for full replacements
+         */
+        void onListUpdate(BaseQueuedAdapter adapter, int oldSize, int newSize, long prepareTime, long diffTime, boolean fullUpdate);
+    }
+
+    private static volatile UpdateMetrics sUpdateMetrics = null;
+
+    public static void setUpdateMetrics(UpdateMetrics metrics) {
+        sUpdateMetrics = metrics;
+    }
+
     protected final ExecutorService mUpdateExecutor = Executors.newSingleThreadExecutor();
 
     protected volatile ArrayList<T> mDataset = new ArrayList<>();
@@ -68,13 +89,22 @@ public abstract class BaseQueuedAdapter <T extends MediaLibraryItem, VH extends
         mUpdateExecutor.execute(new Runnable() {
             @Override
             public void run() {
+                final long start = System.currentTimeMillis();
                 final ArrayList<T> finalList = prepareList(newList);
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(createCB(finalList), detectMoves());
+                final long prepared = System.currentTimeMillis();
+                final int oldSize = mDataset.size(), newSize = finalList.size();
+                final boolean fullUpdate = needsFullUpdate(oldSize, newSize);
+                final DiffUtil.DiffResult result = fullUpdate ? null : DiffUtil.calculateDiff(createCB(finalList), detectMoves());
+                final long diffTime = fullUpdate ? 0L : System.currentTimeMillis() - prepared;
+                reportUpdate(oldSize, newSize, prepared - start, diffTime, fullUpdate);
                 VLCApplication.runOnMainThread(new Runnable() {
                     @Override
                     public void run() {
                         mDataset = finalList;
-                        result.dispatchUpdatesTo(BaseQueuedAdapter.this);
+                        if (result != null)
+                            result.dispatchUpdatesTo(BaseQueuedAdapter.this);
+                        else
+                            notifyDataSetChanged();
                         processQueue();
                     }
                 });
@@ -87,6 +117,23 @@ public abstract class BaseQueuedAdapter <T extends MediaLibraryItem, VH extends
         return false;
     }
 
+    /**
+     * Diffing costs O((old + new) x changes), and there are at least |old - new| changes.
+     * Large lists, or lists which size changes a lot, are cheaper to swap than to animate.
+     */
+    protected boolean needsFullUpdate(int oldSize, int newSize) {
+        final int size = oldSize + newSize;
+        return size > MAX_DIFF_SIZE || (long) size * Math.abs(oldSize - newSize) > MAX_DIFF_COST;
+    }
+
+    private void reportUpdate(int oldSize, int newSize, long prepareTime, long diffTime, boolean fullUpdate) {
+        final UpdateMetrics metrics = sUpdateMetrics;
+        if (metrics != null)
+            metrics.onListUpdate(this, oldSize, newSize, prepareTime, diffTime, fullUpdate);
+        if (BuildConfig.DEBUG && diffTime > 100L)
+            Log.d(TAG, getClass().getSimpleName() + " diff " + oldSize + " -> " + newSize + " took " + diffTime + "ms");
+    }
+
     protected ArrayList<T> prepareList(ArrayList<T> list) {
         return list;
     }
@@ -28,6 +28,7 @@ import android.content.Context;
 import android.databinding.ViewDataBinding;
 import android.graphics.drawable.BitmapDrawable;
 import android.support.annotation.MainThread;
+import android.support.annotation.WorkerThread;
 import android.support.v7.widget.RecyclerView;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -48,12 +49,13 @@ import org.videolan.vlc.gui.helpers.AsyncImageLoader;
 import org.videolan.vlc.gui.helpers.UiTools;
 import org.videolan.vlc.gui.view.FastScroller;
 import org.videolan.vlc.interfaces.IEventsHandler;
+import org.videolan.vlc.media.MediaChangeFeed;
 import org.videolan.vlc.util.MediaItemFilter;
 import org.videolan.vlc.util.MediaLibraryItemComparator;
 import org.videolan.vlc.util.Util;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -71,6 +73,15 @@ public class AudioBrowserAdapter extends SortableAdapter<MediaLibraryItem, Audio
     private int mType;
     private int mParentType = 0;
     private BitmapDrawable mDefaultCover;
+    private volatile PageLoader mPageLoader = null;
+
+    /**
+     * Source of the items not fetched yet, for lists loaded page by page.
+     */
+    public interface PageLoader {
+        @WorkerThread
+        MediaLibraryItem[] loadRemaining();
+    }
 
     public AudioBrowserAdapter(Activity context, int type, IEventsHandler eventsHandler, boolean sections) {
         mContext = context;
@@ -92,6 +103,17 @@ public class AudioBrowserAdapter extends SortableAdapter<MediaLibraryItem, Audio
         return mParentType;
     }
 
+    /**
+     * Set when the dataset is only a window of the list, filtering then fetches the remaining items.
+     */
+    public void setPageLoader(PageLoader loader) {
+        mPageLoader = loader;
+    }
+
+    public boolean isFiltered() {
+        return mOriginalDataSet != null;
+    }
+
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -217,108 +239,52 @@ public class AudioBrowserAdapter extends SortableAdapter<MediaLibraryItem, Audio
     }
 
     private ArrayList<MediaLibraryItem> generateSections(ArrayList<? extends MediaLibraryItem> items, int sortby) {
-        ArrayList<MediaLibraryItem> datalist = new ArrayList<>();
-        switch(sortby) {
-            case MediaLibraryItemComparator.SORT_BY_TITLE:
-                String currentLetter = null;
-                for (MediaLibraryItem item : items) {
-                    if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
-                        continue;
-                    String title = item.getTitle();
-                    String letter = (title.isEmpty() || !Character.isLetter(title.charAt(0))) ? "#" : title.substring(0, 1).toUpperCase();
-                    if (currentLetter == null || !TextUtils.equals(currentLetter, letter)) {
-                        currentLetter = letter;
-                        DummyItem sep = new DummyItem(currentLetter);
-                        datalist.add(sep);
-                    }
-                    datalist.add(item);
-                }
-                break;
-            case MediaLibraryItemComparator.SORT_BY_ARTIST:
-                String currentArtist = null;
-                for (MediaLibraryItem item : items) {
-                    if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
-                        continue;
-                    String artist = ((MediaWrapper)item).getArtist();
-                    if (artist == null)
-                        artist = "";
-                    if (currentArtist == null || !TextUtils.equals(currentArtist, artist)) {
-                        currentArtist = artist;
-                        DummyItem sep = new DummyItem(TextUtils.isEmpty(currentArtist)
-                                ? mContext.getResources().getString(R.string.unknown_artist)
-                                : currentArtist);
-                        datalist.add(sep);
-                    }
-                    datalist.add(item);
-                }
-                break;
-            case MediaLibraryItemComparator.SORT_BY_ALBUM:
-                String currentAlbum = null;
-                for (MediaLibraryItem item : items) {
-                    if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
-                        continue;
-                    String album = ((MediaWrapper)item).getAlbum();
-                    if (album == null)
-                        album = "";
-                    if (currentAlbum == null || !TextUtils.equals(currentAlbum, album)) {
-                        currentAlbum = album;
-                        DummyItem sep = new DummyItem(TextUtils.isEmpty(currentAlbum)
-                                ? mContext.getResources().getString(R.string.unknown_album)
-                                : currentAlbum);
-                        datalist.add(sep);
-                    }
-                    datalist.add(item);
-                }
-                break;
-            case MediaLibraryItemComparator.SORT_BY_LENGTH :
-                String currentLengthCategory = null;
-                for (MediaLibraryItem item : items) {
-                    if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
-                        continue;
-                    int length = MediaLibraryItemComparator.getLength(item);
-                    String lengthCategory = MediaLibraryItemComparator.lengthToCategory(length);
-                    if (currentLengthCategory == null || !TextUtils.equals(currentLengthCategory, lengthCategory)) {
-                        currentLengthCategory = lengthCategory;
-                        DummyItem sep = new DummyItem(currentLengthCategory);
-                        datalist.add(sep);
-                    }
-                    datalist.add(item);
-                }
-                break;
-            case MediaLibraryItemComparator.SORT_BY_DATE :
-                String currentYear = null;
-                for (MediaLibraryItem item : items) {
-                    if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
-                        continue;
-                    String year = MediaLibraryItemComparator.getYear(item);
-                    if (currentYear == null || !TextUtils.equals(currentYear, year)) {
-                        currentYear = year;
-                        DummyItem sep = new DummyItem(currentYear);
-                        datalist.add(sep);
-                    }
-                    datalist.add(item);
-                }
-                break;
-            case MediaLibraryItemComparator.SORT_BY_NUMBER :
-                int currentNumber = 0;
-                for (MediaLibraryItem item : items) {
-                    if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
-                        continue;
-                    int number = MediaLibraryItemComparator.getTracksCount(item);
-                    if (currentNumber != number) {
-                        currentNumber = number;
-                        DummyItem sep = new DummyItem(currentNumber == 0
-                                ? mContext.getResources().getString(R.string.unknown_number)
-                                : mContext.getResources().getQuantityString(R.plurals.songs_quantity, currentNumber, currentNumber));
-                        datalist.add(sep);
-                    }
-                    datalist.add(item);
-                }
-                break;
+        final MediaLibraryItemComparator.SectionProvider sections = getSectionProvider(sortby);
+        final ArrayList<MediaLibraryItem> datalist = new ArrayList<>(items.size() + 32);
+        String currentSection = null;
+        for (MediaLibraryItem item : items) {
+            if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
+                continue;
+            final String section = sections.getSection(item);
+            if (section != null && !section.equals(currentSection)) {
+                currentSection = section;
+                datalist.add(new DummyItem(section));
+            }
+            datalist.add(item);
         }
         return datalist;
     }
 
+    private MediaLibraryItemComparator.SectionProvider getSectionProvider(final int sortby) {
+        return new MediaLibraryItemComparator.SectionProvider() {
+            @Override
+            public String getSection(MediaLibraryItem item) {
+                switch (sortby) {
+                    case MediaLibraryItemComparator.SORT_BY_TITLE:
+                        final String title = item.getTitle();
+                        return (title.isEmpty() || !Character.isLetter(title.charAt(0))) ? "#" : String.valueOf(Character.toUpperCase(title.charAt(0)));
+                    case MediaLibraryItemComparator.SORT_BY_ARTIST:
+                        final String artist = ((MediaWrapper)item).getArtist();
+                        return TextUtils.isEmpty(artist) ? mContext.getResources().getString(R.string.unknown_artist) : artist;
+                    case MediaLibraryItemComparator.SORT_BY_ALBUM:
+                        final String album = ((MediaWrapper)item).getAlbum();
+                        return TextUtils.isEmpty(album) ? mContext.getResources().getString(R.string.unknown_album) : album;
+                    case MediaLibraryItemComparator.SORT_BY_LENGTH:
+                        return MediaLibraryItemComparator.lengthToCategory(MediaLibraryItemComparator.getLength(item));
+                    case MediaLibraryItemComparator.SORT_BY_DATE:
+                        return MediaLibraryItemComparator.getYear(item);
+                    case MediaLibraryItemComparator.SORT_BY_NUMBER:
+                        final int number = MediaLibraryItemComparator.getTracksCount(item);
+                        return number == 0
+                                ? mContext.getResources().getString(R.string.unknown_number)
+                                : mContext.getResources().getQuantityString(R.plurals.songs_quantity, number, number);
+                    default:
+                        return null;
+                }
+            }
+        };
+    }
+
     public void remove(final MediaLibraryItem item) {
         final ArrayList<MediaLibraryItem> referenceList = new ArrayList<>(peekLast());
         if (referenceList.size() == 0) return;
@@ -348,17 +314,20 @@ public class AudioBrowserAdapter extends SortableAdapter<MediaLibraryItem, Audio
         mIEventsHandler.onUpdateFinished(AudioBrowserAdapter.this);
     }
 
+    @Override
+    protected boolean canApplyInPlace(MediaChangeFeed.Changes changes) {
+        return !mMakeSections && super.canApplyInPlace(changes);
+    }
+
     protected ArrayList<MediaLibraryItem> prepareList(ArrayList<MediaLibraryItem> items) {
         if (mMakeSections) {
             if (sMediaComparator.sortBy == MediaLibraryItemComparator.SORT_DEFAULT) {
                 return generateSections(items, getDefaultSort());
             } else {
-                ArrayList<MediaLibraryItem> newList = removeSections(items);
-                Collections.sort(newList, sMediaComparator);
-                return generateSections(newList, sMediaComparator.sortBy);
+                return sMediaComparator.sort(items, getSectionProvider(sMediaComparator.sortBy));
             }
         } else {
-            Collections.sort(items, sMediaComparator);
+            sMediaComparator.sort(items);
             return items;
         }
     }
@@ -483,6 +452,9 @@ public class AudioBrowserAdapter extends SortableAdapter<MediaLibraryItem, Audio
             }
             if (referenceList == null) {
                 referenceList = new ArrayList<>(mDataset);
+                final PageLoader loader = mPageLoader;
+                if (loader != null)
+                    referenceList.addAll(Arrays.asList(loader.loadRemaining()));
             }
             return referenceList;
         }
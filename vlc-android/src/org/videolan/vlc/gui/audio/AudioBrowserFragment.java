@@ -43,8 +43,6 @@ import android.widget.Filter;
 import android.widget.TextView;
 
 import org.videolan.medialibrary.Medialibrary;
-import org.videolan.medialibrary.interfaces.MediaAddedCb;
-import org.videolan.medialibrary.interfaces.MediaUpdatedCb;
 import org.videolan.medialibrary.media.MediaLibraryItem;
 import org.videolan.medialibrary.media.MediaWrapper;
 import org.videolan.medialibrary.media.Playlist;
@@ -59,8 +57,10 @@ import org.videolan.vlc.gui.helpers.UiTools;
 import org.videolan.vlc.gui.view.ContextMenuRecyclerView;
 import org.videolan.vlc.gui.view.FastScroller;
 import org.videolan.vlc.gui.view.SwipeRefreshLayout;
+import org.videolan.vlc.media.MediaChangeFeed;
 import org.videolan.vlc.util.AndroidDevices;
 import org.videolan.vlc.util.FileUtils;
+import org.videolan.vlc.util.MediaLibraryItemComparator;
 import org.videolan.vlc.util.Util;
 import org.videolan.vlc.util.WeakHandler;
 
@@ -69,7 +69,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
-public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefreshLayout.OnRefreshListener, ViewPager.OnPageChangeListener, Medialibrary.ArtistsAddedCb, Medialibrary.ArtistsModifiedCb, Medialibrary.AlbumsAddedCb, Medialibrary.AlbumsModifiedCb, MediaAddedCb, MediaUpdatedCb, TabLayout.OnTabSelectedListener {
+import static org.videolan.vlc.SortableAdapter.sMediaComparator;
+
+public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefreshLayout.OnRefreshListener, ViewPager.OnPageChangeListener, Medialibrary.ArtistsAddedCb, Medialibrary.ArtistsModifiedCb, Medialibrary.AlbumsAddedCb, Medialibrary.AlbumsModifiedCb, MediaChangeFeed.Listener, TabLayout.OnTabSelectedListener {
     public final static String TAG = "VLC/AudioBrowserFragment";
 
     private AudioBrowserAdapter mArtistsAdapter;
@@ -83,6 +85,13 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
     private TextView mEmptyView;
     private ContextMenuRecyclerView[] mLists;
     private FastScroller mFastScroller;
+    private MediaChangeFeed mChangeFeed;
+
+    /* Artists are fetched by pages, while scrolling */
+    private static final int ARTISTS_PAGE_SIZE = 100;
+    private volatile int mArtistsLoaded = 0;
+    private int mArtistsCount = 0, mArtistsGeneration = 0;
+    private boolean mLoadingArtists = false;
 
     public static final int REFRESH = 101;
     public static final int UPDATE_LIST = 102;
@@ -146,6 +155,22 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
             mLists[i].setRecycledViewPool(rvp);
             mLists[i].setAdapter(mAdapters[i]);
         }
+        mArtistsAdapter.setPageLoader(new AudioBrowserAdapter.PageLoader() {
+            @Override
+            public MediaLibraryItem[] loadRemaining() {
+                final int offset = mArtistsLoaded;
+                return mMediaLibrary.getPagedArtists(Medialibrary.SORT_ALPHA, isArtistsSortDesc(),
+                        offset, Math.max(mMediaLibrary.getArtistsCount() - offset, 0));
+            }
+        });
+        mLists[MODE_ARTIST].addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                final int last = ((LinearLayoutManager) recyclerView.getLayoutManager()).findLastVisibleItemPosition();
+                if (last >= mArtistsAdapter.getItemCount() - ARTISTS_PAGE_SIZE / 4)
+                    loadMoreArtists();
+            }
+        });
         mViewPager.setOnTouchListener(mSwipeFilter);
         setupTabLayout();
         mSwipeRefreshLayout.setOnRefreshListener(this);
@@ -174,8 +199,8 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
     @Override
     public void onStop() {
         super.onStop();
-        mMediaLibrary.removeMediaUpdatedCb();
-        mMediaLibrary.removeMediaAddedCb();
+        if (mChangeFeed != null)
+            mChangeFeed.stop();
         for (View rv : mLists)
             unregisterForContextMenu(rv);
         mViewPager.removeOnPageChangeListener(this);
@@ -203,8 +228,9 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
         super.onMedialibraryReady();
         mMediaLibrary.setArtistsAddedCb(this);
         mMediaLibrary.setAlbumsAddedCb(this);
-        mMediaLibrary.setMediaAddedCb(this, Medialibrary.FLAG_MEDIA_ADDED_AUDIO_EMPTY);
-        mMediaLibrary.setMediaUpdatedCb(this, Medialibrary.FLAG_MEDIA_UPDATED_AUDIO_EMPTY);
+        if (mChangeFeed == null)
+            mChangeFeed = new MediaChangeFeed(mMediaLibrary, this, Medialibrary.FLAG_MEDIA_ADDED_AUDIO, Medialibrary.FLAG_MEDIA_UPDATED_AUDIO);
+        mChangeFeed.start();
         if (mArtistsAdapter.isEmpty() || mGenresAdapter.isEmpty() ||
                 mAlbumsAdapter.isEmpty() || mSongsAdapter.isEmpty())
             mHandler.sendEmptyMessage(UPDATE_LIST);
@@ -534,13 +560,8 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
     }
 
     @Override
-    public void onMediaAdded(MediaWrapper[] mediaList) {
-        updateSongs();
-    }
-
-    @Override
-    public void onMediaUpdated(MediaWrapper[] mediaList) {
-        updateSongs();
+    public void onMediaChanges(MediaChangeFeed.Changes changes) {
+        mSongsAdapter.applyChanges(changes);
     }
 
     public AudioBrowserAdapter getCurrentAdapter() {
@@ -588,8 +609,7 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
         if (fragment.mService == null)
             return;
 
-        final List<String> mediaLocations = fragment.mService.getMediaLocations();
-        if (mediaLocations != null && mediaLocations.contains(path))
+        if (fragment.mService.containsLocation(path))
             fragment.mService.removeLocation(path);
         fragment.updateLists();
     }
@@ -607,14 +627,27 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
         updatePlaylists();
     }
 
+    private static boolean isArtistsSortDesc() {
+        return sMediaComparator.sortBy == MediaLibraryItemComparator.SORT_BY_TITLE && sMediaComparator.sortDirection == -1;
+    }
+
+    /**
+     * Reload the artists pages already shown, at least the first one.
+     */
     private void updateArtists() {
         VLCApplication.runBackground(new Runnable() {
             @Override
             public void run() {
-                final ArrayList<MediaLibraryItem> artists = Util.arrayToMediaArrayList(mMediaLibrary.getArtists());
+                final int count = mMediaLibrary.getArtistsCount();
+                final int limit = Math.max(mArtistsLoaded, ARTISTS_PAGE_SIZE);
+                final ArrayList<MediaLibraryItem> artists = Util.arrayToMediaArrayList(
+                        mMediaLibrary.getPagedArtists(Medialibrary.SORT_ALPHA, isArtistsSortDesc(), 0, limit));
                 VLCApplication.runOnMainThread(new Runnable() {
                     @Override
                     public void run() {
+                        ++mArtistsGeneration;
+                        mArtistsCount = count;
+                        mArtistsLoaded = artists.size();
                         mArtistsAdapter.update(artists);
                     }
                 });
@@ -622,6 +655,35 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
         });
     }
 
+    @MainThread
+    private void loadMoreArtists() {
+        if (mLoadingArtists || mArtistsLoaded >= mArtistsCount || mArtistsAdapter.isFiltered())
+            return;
+        mLoadingArtists = true;
+        final int generation = mArtistsGeneration;
+        final int offset = mArtistsLoaded;
+        final ArrayList<MediaLibraryItem> list = mArtistsAdapter.removeSections(mArtistsAdapter.peekLast());
+        VLCApplication.runBackground(new Runnable() {
+            @Override
+            public void run() {
+                final MediaLibraryItem[] page = mMediaLibrary.getPagedArtists(Medialibrary.SORT_ALPHA,
+                        isArtistsSortDesc(), offset, ARTISTS_PAGE_SIZE);
+                VLCApplication.runOnMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLoadingArtists = false;
+                        // Artists have been reloaded in the meantime
+                        if (generation != mArtistsGeneration || mArtistsAdapter.isFiltered())
+                            return;
+                        list.addAll(Arrays.asList(page));
+                        mArtistsLoaded = offset + page.length;
+                        mArtistsAdapter.update(list);
+                    }
+                });
+            }
+        });
+    }
+
     private void updateAlbums() {
         VLCApplication.runBackground(new Runnable() {
             @Override
@@ -717,6 +779,13 @@ public class AudioBrowserFragment extends BaseAudioBrowser implements SwipeRefre
         mHandler.sendEmptyMessage(UPDATE_LIST);
     }
 
+    @Override
+    public void sortBy(int newSortby) {
+        super.sortBy(newSortby);
+        // Loaded artists are only a window, fetch it again in the new order
+        updateArtists();
+    }
+
     @Override
     public int sortDirection(int sortby) {
         return getCurrentAdapter().sortDirection(sortby);
@@ -26,6 +26,7 @@ import android.databinding.ViewDataBinding;
 import android.graphics.BitmapFactory;
 import android.graphics.drawable.BitmapDrawable;
 import android.support.annotation.MainThread;
+import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -49,7 +50,6 @@ import org.videolan.vlc.util.MediaItemFilter;
 import org.videolan.vlc.util.Util;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import static org.videolan.medialibrary.media.MediaLibraryItem.FLAG_SELECTED;
@@ -241,6 +241,9 @@ public class BaseBrowserAdapter extends SortableAdapter<MediaLibraryItem, BaseBr
     }
 
     void addItem(MediaLibraryItem item, boolean top, int positionTo) {
+        item = prepareItem(item);
+        if (item == null)
+            return;
         int position;
         ArrayList<MediaLibraryItem> list = new ArrayList<>(peekLast());
         if (positionTo != -1)
@@ -254,6 +257,66 @@ public class BaseBrowserAdapter extends SortableAdapter<MediaLibraryItem, BaseBr
         }
     }
 
+    /**
+     * Add a chunk of items with one list update.
+     * Unsorted items are appended in place, otherwise the sorted chunk is merged into the list.
+     */
+    @MainThread
+    void addAll(ArrayList<MediaLibraryItem> items) {
+        prepareItems(items);
+        if (items.isEmpty())
+            return;
+        final boolean sorted = fragment.isSortEnabled() && needsSorting();
+        if (!sorted && !hasPendingUpdates()) {
+            final int start = mDataset.size();
+            mDataset.addAll(items);
+            for (MediaLibraryItem item : items)
+                if (isPlayable(item))
+                    ++mMediaCount;
+            notifyItemRangeInserted(start, items.size());
+            return;
+        }
+        final ArrayList<MediaLibraryItem> list = peekLast();
+        if (!sorted) {
+            final ArrayList<MediaLibraryItem> newList = new ArrayList<>(list.size() + items.size());
+            newList.addAll(list);
+            newList.addAll(items);
+            update(newList);
+            return;
+        }
+        sMediaComparator.sort(items);
+        final ArrayList<MediaLibraryItem> merged = new ArrayList<>(list.size() + items.size());
+        int i = 0, j = 0;
+        while (i < list.size() && j < items.size())
+            merged.add(sMediaComparator.compare(items.get(j), list.get(i)) < 0 ? items.get(j++) : list.get(i++));
+        while (i < list.size())
+            merged.add(list.get(i++));
+        while (j < items.size())
+            merged.add(items.get(j++));
+        update(merged);
+    }
+
+    /**
+     * @return the item to display for a browsed item, null to skip it
+     */
+    @Nullable
+    protected MediaLibraryItem prepareItem(MediaLibraryItem item) {
+        return item;
+    }
+
+    /**
+     * Replace browsed items by the ones to display, see {@link #prepareItem(MediaLibraryItem)}.
+     */
+    void prepareItems(ArrayList<MediaLibraryItem> items) {
+        int count = 0;
+        for (MediaLibraryItem item : items) {
+            item = prepareItem(item);
+            if (item != null)
+                items.set(count++, item);
+        }
+        items.subList(count, items.size()).clear();
+    }
+
     public void setTop (int top) {
         mTop = top;
     }
@@ -359,16 +422,20 @@ public class BaseBrowserAdapter extends SortableAdapter<MediaLibraryItem, BaseBr
     @Override
     protected ArrayList<MediaLibraryItem> prepareList(ArrayList<MediaLibraryItem> list) {
         if (fragment.isSortEnabled() && needsSorting())
-            Collections.sort(list, sMediaComparator);
+            sMediaComparator.sort(list);
         mMediaCount = 0;
         for (MediaLibraryItem item : list) {
-            if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA
-                    && (((MediaWrapper)item).getType() == MediaWrapper.TYPE_AUDIO|| (AndroidUtil.isHoneycombOrLater && ((MediaWrapper)item).getType() == MediaWrapper.TYPE_VIDEO)))
+            if (isPlayable(item))
                 ++mMediaCount;
         }
         return list;
     }
 
+    private static boolean isPlayable(MediaLibraryItem item) {
+        return item.getItemType() == MediaLibraryItem.TYPE_MEDIA
+                && (((MediaWrapper)item).getType() == MediaWrapper.TYPE_AUDIO|| (AndroidUtil.isHoneycombOrLater && ((MediaWrapper)item).getType() == MediaWrapper.TYPE_VIDEO));
+    }
+
     @Override
     protected void onUpdateFinished() {
         super.onUpdateFinished();
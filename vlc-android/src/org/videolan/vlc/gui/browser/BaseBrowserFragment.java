@@ -25,6 +25,8 @@ package org.videolan.vlc.gui.browser;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.content.Intent;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -32,6 +34,7 @@ import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Message;
 import android.os.Process;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
@@ -57,7 +60,6 @@ import org.videolan.libvlc.util.AndroidUtil;
 import org.videolan.libvlc.util.MediaBrowser;
 import org.videolan.medialibrary.media.MediaLibraryItem;
 import org.videolan.medialibrary.media.MediaWrapper;
-import org.videolan.medialibrary.media.Storage;
 import org.videolan.vlc.R;
 import org.videolan.vlc.VLCApplication;
 import org.videolan.vlc.gui.InfoActivity;
@@ -74,12 +76,16 @@ import org.videolan.vlc.media.MediaUtils;
 import org.videolan.vlc.util.AndroidDevices;
 import org.videolan.vlc.util.FileUtils;
 import org.videolan.vlc.util.Strings;
+import org.videolan.vlc.util.ThumbnailsProvider;
 import org.videolan.vlc.util.Util;
 import org.videolan.vlc.util.VLCInstance;
 import org.videolan.vlc.util.WeakHandler;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 
 public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAdapter> implements IRefreshable, MediaBrowser.EventListener, SwipeRefreshLayout.OnRefreshListener, View.OnClickListener, Filterable, IEventsHandler {
@@ -109,13 +115,32 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
     private final boolean mShowHiddenFiles;
 
     private SimpleArrayMap<MediaLibraryItem, ArrayList<MediaLibraryItem>> mFoldersContentLists;
-    public int mCurrentParsedPosition = 0;
 
     protected abstract Fragment createFragment();
     protected abstract void browseRoot();
     protected abstract String getCategoryTitle();
 
     private Handler mBrowserHandler;
+    private final FoldersProber mFoldersProber;
+    /* Thumbnails generation of the listed videos, main thread only */
+    private ThumbnailsProvider.ThumbnailsBatch mThumbnailsBatch;
+    /* Adapter positions of the videos of mThumbnailsBatch when it was started, main thread only */
+    private final IdentityHashMap<MediaWrapper, Integer> mThumbnailsPositions = new IdentityHashMap<>();
+    /* Listing being browsed, to be saved at browse end. Only accessed from the browser thread */
+    private ArrayList<MediaWrapper> mBrowsedMedia;
+    private String mBrowsedFolder, mBrowsedValidator;
+
+    /* Browse results are published by chunks of at most FLUSH_SIZE items, or after FLUSH_DELAY ms */
+    private static final int FLUSH_SIZE = 100;
+    private static final long FLUSH_DELAY = 100L;
+    /* Only accessed from the browser thread */
+    private final ArrayList<MediaLibraryItem> mPendingMedia = new ArrayList<>();
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushMedia();
+        }
+    };
 
     protected void runOnBrowserThread(Runnable runnable) {
         mBrowserHandler.post(runnable);
@@ -130,6 +155,7 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
             mBrowserHandler = new Handler(handlerThread.getLooper());
         }
         mShowHiddenFiles = PreferenceManager.getDefaultSharedPreferences(VLCApplication.getAppContext()).getBoolean("browser_show_hidden_files", false);
+        mFoldersProber = new FoldersProber(mBrowserHandler, mShowHiddenFiles ? MediaBrowser.Flag.ShowHiddenFiles : 0, mFoldersProberCallback);
     }
 
     @SuppressWarnings("unchecked")
@@ -183,6 +209,13 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
         mLayoutManager = new LinearLayoutManager(getActivity());
         mRecyclerView.setLayoutManager(mLayoutManager);
         mRecyclerView.setAdapter(mAdapter);
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE)
+                    parseSubDirectories();
+            }
+        });
         registerForContextMenu(mRecyclerView);
         mSwipeRefreshLayout.setOnRefreshListener(this);
         if (savedInstanceState != null) {
@@ -212,6 +245,7 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
             runOnBrowserThread(new Runnable() {
                 @Override
                 public void run() {
+                    mFoldersProber.cancel();
                     releaseBrowser();
                 }
             });
@@ -223,9 +257,11 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
 
     public void onStop(){
         super.onStop();
+        cancelThumbnails();
         runOnBrowserThread(new Runnable() {
             @Override
             public void run() {
+                mFoldersProber.cancel();
                 releaseBrowser();
             }
         });
@@ -282,6 +318,13 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
 
     public void browse(MediaWrapper media, int position, boolean save) {
         mBrowserHandler.removeCallbacksAndMessages(null);
+        cancelThumbnails();
+        runOnBrowserThread(new Runnable() {
+            @Override
+            public void run() {
+                mFoldersProber.cancel();
+            }
+        });
         FragmentTransaction ft = getActivity().getSupportFragmentManager().beginTransaction();
         Fragment next = createFragment();
         Bundle args = new Bundle();
@@ -302,23 +345,40 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
 
     @Override
     public void onMediaAdded(final int index, final Media media) {
+        final MediaWrapper mediaWrapper = getMediaWrapper(new MediaWrapper(media));
+        if (mBrowsedMedia != null)
+            mBrowsedMedia.add(mediaWrapper);
         if (refreshing && !mRoot) {
-            MediaWrapper mediaWrapper = getMediaWrapper(new MediaWrapper(media));
             refreshList.add(mediaWrapper);
             return;
         }
-        final boolean wasEmpty = mAdapter.isEmpty();
-        final MediaWrapper mediaWrapper = getMediaWrapper(new MediaWrapper(media));
+        mPendingMedia.add(mediaWrapper);
+        if (mPendingMedia.size() >= FLUSH_SIZE)
+            flushMedia();
+        else if (mPendingMedia.size() == 1)
+            mBrowserHandler.postDelayed(mFlushRunnable, FLUSH_DELAY);
+    }
+
+    /**
+     * Publish buffered browse results to the adapter, with a single list update.
+     */
+    private void flushMedia() {
+        mBrowserHandler.removeCallbacks(mFlushRunnable);
+        if (mPendingMedia.isEmpty())
+            return;
+        final ArrayList<MediaLibraryItem> chunk = new ArrayList<>(mPendingMedia);
+        mPendingMedia.clear();
         VLCApplication.runOnMainThread(new Runnable() {
             @Override
             public void run() {
-                publishMedia(mediaWrapper, wasEmpty);
+                publishMedia(chunk);
             }
         });
     }
 
-    private void publishMedia(MediaWrapper mw, boolean wasEmpty) {
-        mAdapter.addItem(mw, false);
+    private void publishMedia(ArrayList<MediaLibraryItem> chunk) {
+        final boolean wasEmpty = mAdapter.isEmpty();
+        mAdapter.addAll(chunk);
         if (wasEmpty) {
             updateEmptyView();
             mHandler.sendEmptyMessage(BrowserFragmentHandler.MSG_HIDE_LOADING);
@@ -337,11 +397,23 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
 
     @Override
     public void onBrowseEnd() {
+        if (mBrowsedMedia != null) {
+            MediaDatabase.getInstance().saveBrowseListing(mBrowsedFolder, mBrowsedValidator, mBrowsedMedia);
+            mBrowsedMedia = null;
+        }
         if (!isAdded())
             return;
+        flushMedia();
         if (refreshing && !mRoot) {
             refreshing = false;
-            mAdapter.update(refreshList);
+            final ArrayList<MediaLibraryItem> list = refreshList;
+            VLCApplication.runOnMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    mAdapter.prepareItems(list);
+                    mAdapter.update(list);
+                }
+            });
         } else
             refreshList = null;
 
@@ -357,6 +429,7 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
 
     @Override
     public void onRefresh() {
+        FoldersProber.invalidateCache();
         mSavedPosition = mLayoutManager.findFirstCompletelyVisibleItemPosition();
         refresh();
     }
@@ -383,6 +456,7 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
 
     @Override
     public void refresh() {
+        final boolean showCache = !mRoot && isListingCacheEnabled() && mAdapter.isEmpty();
         if (isSortEnabled()) {
             refreshList = new ArrayList<>();
             refreshing = true;
@@ -394,20 +468,81 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
         runOnBrowserThread(new Runnable() {
             @Override
             public void run() {
+                mPendingMedia.clear();
+                mBrowsedMedia = null;
+                mFoldersProber.cancel();
                 mFoldersContentLists.clear();
                 initMediaBrowser(BaseBrowserFragment.this);
-                mCurrentParsedPosition = 0;
-                if (mRoot)
+                if (mRoot) {
                     VLCApplication.runOnMainThread(new Runnable() {
                         @Override
                         public void run() {
                             browseRoot();
                         }
                     });
-                else
-                    mMediaBrowser.browse(mCurrentMedia != null ? mCurrentMedia.getUri() : Uri.parse(mMrl), getBrowserFlags());
+                    return;
+                }
+                final Uri uri = mCurrentMedia != null ? mCurrentMedia.getUri() : Uri.parse(mMrl);
+                if (isListingCacheEnabled()) {
+                    mBrowsedFolder = uri.toString();
+                    mBrowsedValidator = getListingValidator(uri);
+                    if (showCache && showCachedListing()) {
+                        releaseBrowser();
+                        return;
+                    }
+                    mBrowsedMedia = new ArrayList<>();
+                }
+                mMediaBrowser.browse(uri, getBrowserFlags());
+            }
+        });
+    }
+
+    /**
+     * Show the saved listing of the browsed folder, which is then browsed again and updated,
+     * unless the folder is known to be unchanged.
+     *
+     * @return true if the saved listing is up to date
+     */
+    private boolean showCachedListing() {
+        final MediaDatabase.BrowseListing listing = MediaDatabase.getInstance().getBrowseListing(mBrowsedFolder);
+        if (listing == null)
+            return false;
+        final ArrayList<MediaLibraryItem> list = new ArrayList<>(listing.items.size());
+        for (MediaWrapper media : listing.items)
+            list.add(getMediaWrapper(media));
+        VLCApplication.runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                mAdapter.prepareItems(list);
+                mAdapter.update(list);
             }
         });
+        if (mBrowsedValidator != null && mBrowsedValidator.equals(listing.validator)) {
+            refreshing = false;
+            return true;
+        }
+        refreshList = new ArrayList<>();
+        refreshing = true;
+        return false;
+    }
+
+    /**
+     * @return a token changing with the folder content, null if it cannot be known without browsing it.
+     * Only local folders have one, their modification date.
+     */
+    @Nullable
+    private String getListingValidator(Uri uri) {
+        if (!"file".equals(uri.getScheme()))
+            return null;
+        final long modified = new File(uri.getPath()).lastModified();
+        return modified != 0L ? getBrowserFlags() + ":" + modified : null;
+    }
+
+    /**
+     * @return true to save browsed folders listings, and show them when the folder is opened again
+     */
+    protected boolean isListingCacheEnabled() {
+        return true;
     }
 
     protected void initMediaBrowser(MediaBrowser.EventListener listener) {
@@ -611,135 +746,62 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
         MediaUtils.openList(getActivity(), mediaLocations, positionInPlaylist);
     }
 
-    ArrayList<MediaLibraryItem> currentMediaList = new ArrayList<>();
     protected void parseSubDirectories() {
-        synchronized (currentMediaList) {
-            currentMediaList = new ArrayList<>(mAdapter.getAll());
-            if ((mRoot && this instanceof NetworkBrowserFragment) || mCurrentParsedPosition == -1 ||
-                    currentMediaList.isEmpty() || this instanceof FilePickerFragment)
-                return;
-        }
+        if ((mRoot && this instanceof NetworkBrowserFragment) || mAdapter.isEmpty() || this instanceof FilePickerFragment)
+            return;
+        final ArrayList<MediaLibraryItem> list = new ArrayList<>(mAdapter.getAll());
+        final int firstVisible = mLayoutManager.findFirstVisibleItemPosition();
+        final int lastVisible = mLayoutManager.findLastVisibleItemPosition();
         runOnBrowserThread(new Runnable() {
             @Override
             public void run() {
-                synchronized (currentMediaList) {
-                    mFoldersContentLists.clear();
-                    initMediaBrowser(mFoldersBrowserListener);
-                    mCurrentParsedPosition = 0;
-                    MediaLibraryItem item;
-                    MediaWrapper mw;
-                    while (mCurrentParsedPosition < currentMediaList.size()) {
-                        item = currentMediaList.get(mCurrentParsedPosition);
-                        if (item.getItemType() == MediaLibraryItem.TYPE_STORAGE) {
-                            mw = new MediaWrapper(((Storage) item).getUri());
-                            mw.setType(MediaWrapper.TYPE_DIR);
-                        } else if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-                            mw = (MediaWrapper) item;
-                        } else
-                            mw = null;
-                        if (mw != null) {
-                            if (mw.getType() == MediaWrapper.TYPE_DIR || mw.getType() == MediaWrapper.TYPE_PLAYLIST) {
-                                final Uri uri = mw.getUri();
-                                mMediaBrowser.browse(uri, mShowHiddenFiles ? MediaBrowser.Flag.ShowHiddenFiles : 0);
-                                return;
-                            }
-                        }
-                        ++mCurrentParsedPosition;
-                    }
-                }
+                mFoldersProber.probe(list, firstVisible, lastVisible);
             }
         });
     }
 
-    private MediaBrowser.EventListener mFoldersBrowserListener = new MediaBrowser.EventListener(){
-        ArrayList<MediaWrapper> directories = new ArrayList<>();
-        ArrayList<MediaWrapper> files = new ArrayList<>();
-
+    private final FoldersProber.Callback mFoldersProberCallback = new FoldersProber.Callback() {
         @Override
-        public void onMediaAdded(int index, final Media media) {
-            final int type = media.getType();
-            final MediaWrapper mw = getMediaWrapper(new MediaWrapper(media));
-            if (type == Media.Type.Directory)
-                directories.add(mw);
-            else if (type == Media.Type.File)
-                files.add(mw);
+        public void onFolderProbed(final MediaLibraryItem item, final int position, FoldersProber.Content content) {
+            final String holderText = getDescription(content.folders, content.files);
+            if (mFoldersContentLists.get(item) == content.items && TextUtils.equals(item.getDescription(), holderText))
+                return;
+            mFoldersContentLists.put(item, content.items);
+            item.setDescription(holderText);
+            VLCApplication.runOnMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    final int index = mAdapter.getItem(position) == item ? position : mAdapter.getAll().indexOf(item);
+                    if (index != -1)
+                        mAdapter.notifyItemChanged(index, holderText);
+                }
+            });
         }
 
         @Override
-        public void onMediaRemoved(int index, Media media) {}
-
-        @Override
-        public void onBrowseEnd() {
-            synchronized (currentMediaList) {
-                if (currentMediaList.isEmpty() || !isAdded()) {
-                    mCurrentParsedPosition = -1;
-                    releaseBrowser();
-                    return;
-                }
-                final String holderText = getDescription(directories.size(), files.size());
-                MediaWrapper mw = null;
-
-                if (!TextUtils.equals(holderText, "")) {
-                    MediaLibraryItem item = currentMediaList.get(mCurrentParsedPosition);
-                    item.setDescription(holderText);
-                    final int position = mCurrentParsedPosition;
-                    VLCApplication.runOnMainThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            mAdapter.notifyItemChanged(position, holderText);
-                        }
-                    });
-                    directories.addAll(files);
-                    mFoldersContentLists.put(item, new ArrayList<MediaLibraryItem>(directories));
-                }
-                while (++mCurrentParsedPosition < currentMediaList.size()){ //skip media that are not browsable
-                    MediaLibraryItem item = currentMediaList.get(mCurrentParsedPosition);
-                    if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-                        mw = (MediaWrapper) item;
-                        if (mw.getType() == MediaWrapper.TYPE_DIR || mw.getType() == MediaWrapper.TYPE_PLAYLIST)
-                            break;
-                    } else if (item.getItemType() == MediaLibraryItem.TYPE_STORAGE) {
-                        mw = new MediaWrapper(((Storage) item).getUri());
-                        break;
-                    } else
-                        mw = null;
-                }
-
-                if (mw != null) {
-                    if (mCurrentParsedPosition < currentMediaList.size()) {
-                        mMediaBrowser.browse(mw.getUri(), 0);
-                    } else {
-                        mCurrentParsedPosition = -1;
-                        currentMediaList = new ArrayList<>();
-                        releaseBrowser();
-                    }
-                } else {
-                    releaseBrowser();
-                    currentMediaList = new ArrayList<>();
-                }
-                directories .clear();
-                files.clear();
-            }
+        public MediaWrapper getMediaWrapper(MediaWrapper media) {
+            return BaseBrowserFragment.this.getMediaWrapper(media);
         }
+    };
 
-        private String getDescription(int folderCount, int mediaFileCount) {
-            String holderText = "";
-            if (folderCount > 0) {
-                holderText += VLCApplication.getAppResources().getQuantityString(
-                        R.plurals.subfolders_quantity, folderCount, folderCount
-                );
-                if (mediaFileCount > 0)
-                    holderText += ", ";
-            }
+    private String getDescription(int folderCount, int mediaFileCount) {
+        final Resources res = VLCApplication.getAppResources();
+        String holderText = "";
+        if (folderCount > 0) {
+            holderText += res.getQuantityString(
+                    R.plurals.subfolders_quantity, folderCount, folderCount
+            );
             if (mediaFileCount > 0)
-                holderText += VLCApplication.getAppResources().getQuantityString(
-                        R.plurals.mediafiles_quantity, mediaFileCount,
-                        mediaFileCount);
-            else if (folderCount == 0 && mediaFileCount == 0)
-                holderText = getString(R.string.directory_empty);
-            return holderText;
+                holderText += ", ";
         }
-    };
+        if (mediaFileCount > 0)
+            holderText += res.getQuantityString(
+                    R.plurals.mediafiles_quantity, mediaFileCount,
+                    mediaFileCount);
+        else if (folderCount == 0 && mediaFileCount == 0)
+            holderText = res.getString(R.string.directory_empty);
+        return holderText;
+    }
 
     @NonNull
     private MediaWrapper getMediaWrapper(MediaWrapper media) {
@@ -887,10 +949,73 @@ public abstract class BaseBrowserFragment extends SortableFragment<BaseBrowserAd
                 mSavedPosition = 0;
             }
         }
-        if (!mRoot)
+        if (!mRoot) {
             updateFab();
+            if (!mAdapter.hasPendingUpdates())
+                generateThumbnails();
+        }
     }
 
+    /**
+     * Generate thumbnails of the listed local videos which have no artwork, cached ones are
+     * reported right away. Visible videos are queued first. A previous generation is cancelled.
+     */
+    @MainThread
+    private void generateThumbnails() {
+        cancelThumbnails();
+        final List<MediaLibraryItem> items = mAdapter.getAll();
+        final int firstVisible = Math.max(mLayoutManager.findFirstVisibleItemPosition(), 0);
+        final ArrayList<MediaWrapper> videos = new ArrayList<>();
+        // From the first visible item, so that the visible range goes first, then the preceding items
+        for (int i = firstVisible; i < items.size(); ++i)
+            addThumbnailVideo(videos, items.get(i), i);
+        for (int i = 0; i < Math.min(firstVisible, items.size()); ++i)
+            addThumbnailVideo(videos, items.get(i), i);
+        if (!videos.isEmpty())
+            mThumbnailsBatch = ThumbnailsProvider.getThumbnails(videos, mThumbnailsCallback);
+    }
+
+    private void addThumbnailVideo(List<MediaWrapper> videos, MediaLibraryItem item, int position) {
+        if (item.getItemType() != MediaLibraryItem.TYPE_MEDIA)
+            return;
+        final MediaWrapper media = (MediaWrapper) item;
+        if (media.getType() == MediaWrapper.TYPE_VIDEO && TextUtils.isEmpty(media.getArtworkMrl())
+                && "file".equals(media.getUri().getScheme())) {
+            videos.add(media);
+            mThumbnailsPositions.put(media, position);
+        }
+    }
+
+    @MainThread
+    private void cancelThumbnails() {
+        if (mThumbnailsBatch != null) {
+            mThumbnailsBatch.cancel();
+            mThumbnailsBatch = null;
+        }
+        mThumbnailsPositions.clear();
+    }
+
+    private final ThumbnailsProvider.ThumbnailsCallback mThumbnailsCallback = new ThumbnailsProvider.ThumbnailsCallback() {
+        @Override
+        public void onThumbnail(final MediaWrapper media, Bitmap bitmap, int done, int total) {
+            if (bitmap == null)
+                return;
+            VLCApplication.runOnMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    if (mThumbnailsBatch == null)
+                        return;
+                    // Positions are only looked up again if the list changed since the batch started
+                    final Integer position = mThumbnailsPositions.get(media);
+                    final int index = position != null && position < mAdapter.getItemCount() && mAdapter.getItem(position) == media
+                            ? position : mAdapter.getAll().indexOf(media);
+                    if (index != -1)
+                        mAdapter.notifyItemChanged(index);
+                }
+            });
+        }
+    };
+
     private void updateFab() {
         if (mFabPlay != null) {
             if (mAdapter.getMediaCount() > 0) {
@@ -34,11 +34,9 @@ public class FilePickerAdapter extends BaseBrowserAdapter {
         super(fragment);
     }
 
-    public void addItem(MediaLibraryItem media, boolean top){
-        if (media.getItemType() != TYPE_MEDIA)
-            return;
-        if (filter((MediaWrapper) media))
-            super.addItem(media, top);
+    @Override
+    protected MediaLibraryItem prepareItem(MediaLibraryItem media) {
+        return media.getItemType() == TYPE_MEDIA && filter((MediaWrapper) media) ? media : null;
     }
 
     public void onBindViewHolder(final ViewHolder holder, int position) {
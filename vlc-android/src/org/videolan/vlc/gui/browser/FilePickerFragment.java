@@ -54,6 +54,11 @@ public class FilePickerFragment extends FileBrowserFragment {
         return false;
     }
 
+    @Override
+    protected boolean isListingCacheEnabled() {
+        return false;
+    }
+
     @Override
     public void onCreate(Bundle bundle) {
         if (getActivity().getIntent() != null) {
@@ -0,0 +1,228 @@
+/*****************************************************************************
+ * FoldersProber.java
+ *****************************************************************************
+ * Copyright © 2017 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.vlc.gui.browser;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.support.v4.util.LruCache;
+
+import org.videolan.libvlc.Media;
+import org.videolan.libvlc.MediaList;
+import org.videolan.libvlc.util.MediaBrowser;
+import org.videolan.medialibrary.media.MediaLibraryItem;
+import org.videolan.medialibrary.media.MediaWrapper;
+import org.videolan.medialibrary.media.Storage;
+import org.videolan.vlc.util.VLCInstance;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Browses folders to count their content, up to {@link #MAX_BROWSERS} folders at once.
+ *
+ * Must be used from the thread of the handler given to the constructor, results are delivered on it.
+ * Probed content is cached for {@link #CACHE_TTL} ms, shared by all browsers.
+ */
+class FoldersProber {
+
+    private static final int MAX_BROWSERS = 4;
+    private static final long CACHE_TTL = 5 * 60 * 1000L;
+    private static final LruCache<String, Content> sCache = new LruCache<>(500);
+
+    interface Callback {
+        /**
+         * @param position position of the item in the list given to {@link #probe(List, int, int)}
+         */
+        void onFolderProbed(MediaLibraryItem item, int position, Content content);
+
+        MediaWrapper getMediaWrapper(MediaWrapper media);
+    }
+
+    static class Content {
+        final ArrayList<MediaLibraryItem> items;
+        final int folders, files;
+        final long time;
+
+        Content(ArrayList<MediaLibraryItem> items, int folders, int files) {
+            this.items = items;
+            this.folders = folders;
+            this.files = files;
+            time = System.currentTimeMillis();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - time > CACHE_TTL;
+        }
+    }
+
+    private static class Task {
+        final MediaLibraryItem item;
+        final int position;
+        final Uri uri;
+
+        Task(MediaLibraryItem item, int position, Uri uri) {
+            this.item = item;
+            this.position = position;
+            this.uri = uri;
+        }
+    }
+
+    private final Handler mHandler;
+    private final int mFlags;
+    private final Callback mCallback;
+    private final ArrayDeque<Task> mQueue = new ArrayDeque<>();
+    private final ArrayList<Prober> mProbers = new ArrayList<>(MAX_BROWSERS);
+    /* Locations being browsed */
+    private final HashSet<String> mProbing = new HashSet<>();
+
+    FoldersProber(Handler handler, int flags, Callback callback) {
+        mHandler = handler;
+        mFlags = flags;
+        mCallback = callback;
+    }
+
+    static void invalidateCache() {
+        sCache.evictAll();
+    }
+
+    /**
+     * Probe the browsable items of the list, visible ones first.
+     * Folders with cached content are reported right away, pending folders of a previous call are dropped.
+     */
+    void probe(List<MediaLibraryItem> items, int firstVisible, int lastVisible) {
+        mQueue.clear();
+        final ArrayList<Task> others = new ArrayList<>();
+        for (int position = 0; position < items.size(); ++position) {
+            final MediaLibraryItem item = items.get(position);
+            final Uri uri = getBrowsableUri(item);
+            if (uri == null)
+                continue;
+            final String location = uri.toString();
+            if (mProbing.contains(location))
+                continue;
+            final Content content = sCache.get(location);
+            if (content != null && !content.isExpired()) {
+                mCallback.onFolderProbed(item, position, content);
+                continue;
+            }
+            final Task task = new Task(item, position, uri);
+            if (position >= firstVisible && position <= lastVisible)
+                mQueue.add(task);
+            else
+                others.add(task);
+        }
+        mQueue.addAll(others);
+        while (!mQueue.isEmpty() && mProbers.size() < MAX_BROWSERS) {
+            final Prober prober = new Prober();
+            mProbers.add(prober);
+            prober.start(mQueue.poll());
+        }
+    }
+
+    /**
+     * Stop all browsing, queued folders are dropped.
+     */
+    void cancel() {
+        mQueue.clear();
+        mProbing.clear();
+        for (Prober prober : mProbers)
+            prober.release();
+        mProbers.clear();
+    }
+
+    private static Uri getBrowsableUri(MediaLibraryItem item) {
+        if (item.getItemType() == MediaLibraryItem.TYPE_STORAGE)
+            return ((Storage) item).getUri();
+        if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
+            final MediaWrapper mw = (MediaWrapper) item;
+            if (mw.getType() == MediaWrapper.TYPE_DIR || mw.getType() == MediaWrapper.TYPE_PLAYLIST)
+                return mw.getUri();
+        }
+        return null;
+    }
+
+    /* Browses one folder at a time, then takes the next one from the queue */
+    private class Prober implements MediaBrowser.EntriesListener {
+        private final MediaBrowser mBrowser = new MediaBrowser(VLCInstance.get(), null, mHandler);
+        private final ArrayList<MediaLibraryItem> mDirectories = new ArrayList<>();
+        private final ArrayList<MediaLibraryItem> mFiles = new ArrayList<>();
+        private Task mTask;
+
+        void start(Task task) {
+            mTask = task;
+            mProbing.add(task.uri.toString());
+            mBrowser.browseEntries(task.uri, mFlags, MediaList.Entries.SORT_NAME, this);
+        }
+
+        void release() {
+            mTask = null;
+            mBrowser.release();
+        }
+
+        @Override
+        public void onEntries(MediaList.Entries entries, int offset, int count) {
+            if (mTask == null)
+                return;
+            for (int i = offset; i < offset + count; ++i) {
+                final int type = entries.types[i];
+                if (type == Media.Type.Directory)
+                    mDirectories.add(getMediaWrapper(entries.mrls[i], entries.names[i], MediaWrapper.TYPE_DIR));
+                else if (type == Media.Type.File)
+                    mFiles.add(getMediaWrapper(entries.mrls[i], entries.names[i], MediaWrapper.TYPE_ALL));
+            }
+        }
+
+        private MediaWrapper getMediaWrapper(String mrl, String name, int type) {
+            final MediaWrapper media = new MediaWrapper(Uri.parse(mrl), 0L, 0L, type, null, name,
+                    null, null, null, null, 0, 0, null, -2, -2, 0, 0, 0L, 0L);
+            media.defineType();
+            return mCallback.getMediaWrapper(media);
+        }
+
+        @Override
+        public void onBrowseEnd() {
+            final Task task = mTask;
+            if (task == null)
+                return;
+            final ArrayList<MediaLibraryItem> items = new ArrayList<>(mDirectories.size() + mFiles.size());
+            items.addAll(mDirectories);
+            items.addAll(mFiles);
+            final Content content = new Content(items, mDirectories.size(), mFiles.size());
+            mDirectories.clear();
+            mFiles.clear();
+            final String location = task.uri.toString();
+            sCache.put(location, content);
+            mProbing.remove(location);
+            mCallback.onFolderProbed(task.item, task.position, content);
+            if (mTask != task)
+                return;
+            final Task next = mQueue.poll();
+            if (next != null)
+                start(next);
+            else {
+                mProbers.remove(this);
+                release();
+            }
+        }
+    }
+}
@@ -79,12 +79,11 @@ class StorageBrowserAdapter extends BaseBrowserAdapter {
         return false;
     }
 
-    public void addItem(MediaLibraryItem item, boolean top, int position) {
+    @Override
+    protected MediaLibraryItem prepareItem(MediaLibraryItem item) {
         if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA)
-            item = new Storage(((MediaWrapper)item).getUri());
-        else if (item.getItemType() != MediaLibraryItem.TYPE_STORAGE)
-            return;
-        super.addItem(item, top, position);
+            return new Storage(((MediaWrapper)item).getUri());
+        return item.getItemType() == MediaLibraryItem.TYPE_STORAGE ? item : null;
     }
 
     void updateMediaDirs() {
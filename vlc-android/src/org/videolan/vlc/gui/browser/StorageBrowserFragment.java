@@ -66,6 +66,11 @@ public class StorageBrowserFragment extends FileBrowserFragment implements Entry
         return false;
     }
 
+    @Override
+    protected boolean isListingCacheEnabled() {
+        return false;
+    }
+
     @Override
     protected Fragment createFragment() {
         return new StorageBrowserFragment();
@@ -30,12 +30,14 @@ import android.databinding.ViewDataBinding;
 import android.graphics.Bitmap;
 import android.graphics.drawable.BitmapDrawable;
 import android.net.Uri;
+import android.support.v4.util.SimpleArrayMap;
 import android.support.v4.view.ViewCompat;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import org.videolan.libvlc.util.AndroidUtil;
 import org.videolan.medialibrary.media.MediaLibraryItem;
 import org.videolan.medialibrary.media.MediaWrapper;
 import org.videolan.vlc.BR;
@@ -45,6 +47,12 @@ import org.videolan.vlc.media.MediaGroup;
 import org.videolan.vlc.util.HttpImageLoader;
 import org.videolan.vlc.util.ThumbnailsProvider;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 public class AsyncImageLoader {
 
     public interface Callbacks {
@@ -54,6 +62,23 @@ public class AsyncImageLoader {
 
     public final static String TAG = "VLC/AsyncImageLoader";
 
+    /*
+     * Dedicated pool for image loading, so covers do not starve other background tasks.
+     * Most recent requests are served first: during a fling, last bound views are the visible ones.
+     */
+    private static final int sMaxThreads = Math.max(AndroidUtil.isJellyBeanMR1OrLater ? Runtime.getRuntime().availableProcessors() : 2, 1);
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(sMaxThreads, sMaxThreads, 2, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(), VLCApplication.THREAD_FACTORY);
+    static {
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+    /* Pending and running requests, by cache key. Also used as lock for all requests state */
+    private static final SimpleArrayMap<String, ImageRequest> sRequests = new SimpleArrayMap<>();
+    private static int sSequence = 0;
+    /* Requests without cache key are registered with a unique one, so they can be cancelled too */
+    private static final String UNKEYED_PREFIX = "\0unkeyed:";
+    private static int sUnkeyedCount = 0;
+
     public static final Bitmap DEFAULT_COVER_VIDEO = BitmapCache.getFromResource(VLCApplication.getAppResources(), R.drawable.ic_no_thumbnail_1610);
     public static final BitmapDrawable DEFAULT_COVER_VIDEO_DRAWABLE = new BitmapDrawable(VLCApplication.getAppResources(), DEFAULT_COVER_VIDEO);
     public static final Bitmap DEFAULT_COVER_AUDIO = BitmapCache.getFromResource(VLCApplication.getAppResources(), R.drawable.ic_no_song);
@@ -82,11 +107,19 @@ public class AsyncImageLoader {
 
     @BindingAdapter({"media"})
     public static void loadPicture(View v, MediaLibraryItem item) {
-        if (item == null || TextUtils.isEmpty(item.getArtworkMrl())
-                || item.getItemType() == MediaLibraryItem.TYPE_GENRE
+        if (item == null || item.getItemType() == MediaLibraryItem.TYPE_GENRE
                 || item.getItemType() == MediaLibraryItem.TYPE_PLAYLIST)
             return;
         final boolean isMedia = item.getItemType() == MediaLibraryItem.TYPE_MEDIA;
+        if (TextUtils.isEmpty(item.getArtworkMrl())) {
+            // Videos without artwork may have a thumbnail generated by a ThumbnailsBatch
+            if (isMedia && ((MediaWrapper)item).getType() == MediaWrapper.TYPE_VIDEO) {
+                final Bitmap thumbnail = BitmapCache.getInstance().getBitmapFromMemCache(ThumbnailsProvider.getThumbnailKey((MediaWrapper) item));
+                if (thumbnail != null)
+                    updateTargetImage(thumbnail, v, DataBindingUtil.findBinding(v));
+            }
+            return;
+        }
         final boolean isGroup = isMedia && ((MediaWrapper)item).getType() == MediaWrapper.TYPE_GROUP;
         final String cacheKey = isGroup ? "group:"+item.getTitle() : item.getArtworkMrl();
         final Bitmap bitmap = BitmapCache.getInstance().getBitmapFromMemCache(cacheKey);
@@ -107,26 +140,131 @@ public class AsyncImageLoader {
                     item = mw;
             }
         }
-        AsyncImageLoader.LoadImage(new MLItemCoverFetcher(v, item), v);
+        AsyncImageLoader.LoadImage(cacheKey, new MLItemCoverFetcher(v, item, cacheKey), v);
     }
 
     public static void LoadImage(final Callbacks cbs, final View target){
-        VLCApplication.runBackground(new Runnable() {
-            @Override
-            public void run() {
-                final Bitmap bitmap = cbs.getImage();
-                cbs.updateImage(bitmap, target);
+        LoadImage(null, cbs, target);
+    }
+
+    /**
+     * Queue an image loading.
+     * Requests sharing the same non null key are merged: only one {@link Callbacks#getImage()} is
+     * done and every callback gets the result. Requests with a null key are never merged.
+     */
+    public static void LoadImage(final String key, final Callbacks cbs, final View target){
+        synchronized (sRequests) {
+            final String requestKey = key != null ? key : UNKEYED_PREFIX + (++sUnkeyedCount);
+            ImageRequest request = sRequests.get(requestKey);
+            if (request == null) {
+                request = new ImageRequest(requestKey);
+                sRequests.put(requestKey, request);
+            } else if (!request.started)
+                // Bump priority of the existing request
+                sExecutor.remove(request);
+            request.sequence = ++sSequence;
+            request.add(cbs, target);
+            if (!request.started)
+                sExecutor.execute(request);
+        }
+    }
+
+    /**
+     * Withdraw these callbacks from their request, which is dropped from the queue if no one else waits for it.
+     */
+    static void cancel(final Callbacks cbs) {
+        synchronized (sRequests) {
+            for (int i = 0; i < sRequests.size(); ++i) {
+                final ImageRequest request = sRequests.valueAt(i);
+                if (request.remove(cbs)) {
+                    if (request.isEmpty() && !request.started) {
+                        sRequests.removeAt(i);
+                        sExecutor.remove(request);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class ImageRequest implements Runnable, Comparable<ImageRequest> {
+        final String key;
+        int sequence;
+        boolean started = false;
+        final List<Callbacks> callbacks = new ArrayList<>(1);
+        final List<View> targets = new ArrayList<>(1);
+
+        ImageRequest(String key) {
+            this.key = key;
+        }
+
+        void add(Callbacks cbs, View target) {
+            callbacks.add(cbs);
+            targets.add(target);
+        }
+
+        boolean remove(Callbacks cbs) {
+            final int index = callbacks.indexOf(cbs);
+            if (index == -1)
+                return false;
+            callbacks.remove(index);
+            targets.remove(index);
+            return true;
+        }
+
+        boolean isEmpty() {
+            return callbacks.isEmpty();
+        }
+
+        @Override
+        public void run() {
+            final Callbacks fetcher;
+            synchronized (sRequests) {
+                started = true;
+                if (isEmpty()) {
+                    release();
+                    return;
+                }
+                fetcher = callbacks.get(0);
+            }
+            final Bitmap bitmap = fetcher.getImage();
+            final Callbacks[] cbs;
+            final View[] views;
+            synchronized (sRequests) {
+                if (bitmap == null && !callbacks.contains(fetcher) && !isEmpty()) {
+                    // Fetcher has been cancelled during loading, let another waiter do it
+                    started = false;
+                    sExecutor.execute(this);
+                    return;
+                }
+                release();
+                cbs = callbacks.toArray(new Callbacks[callbacks.size()]);
+                views = targets.toArray(new View[targets.size()]);
             }
-        });
+            for (int i = 0; i < cbs.length; ++i)
+                cbs[i].updateImage(bitmap, views[i]);
+        }
+
+        private void release() {
+            if (sRequests.get(key) == this)
+                sRequests.remove(key);
+        }
+
+        @Override
+        public int compareTo(ImageRequest other) {
+            return other.sequence < sequence ? -1 : (other.sequence == sequence ? 0 : 1);
+        }
     }
 
     private static class MLItemCoverFetcher extends AsyncImageLoader.CoverFetcher {
         MediaLibraryItem item;
+        String cacheKey;
         int width;
 
-        MLItemCoverFetcher(View v, MediaLibraryItem item) {
+        MLItemCoverFetcher(View v, MediaLibraryItem item, String cacheKey) {
             super(DataBindingUtil.findBinding(v));
             this.item = item;
+            this.cacheKey = cacheKey;
             width = v.getWidth();
         }
 
@@ -136,7 +274,13 @@ public class AsyncImageLoader {
                 return null;
             if (item instanceof MediaGroup)
                 return ThumbnailsProvider.getComposedImage((MediaGroup) item);
-            return AudioUtil.readCoverBitmap(Uri.decode(item.getArtworkMrl()), width);
+            final BitmapCache cache = BitmapCache.getInstance();
+            Bitmap bitmap = cache.getBitmap(cacheKey);
+            if (bitmap == null && !bindChanged) {
+                bitmap = AudioUtil.readCoverBitmap(Uri.decode(item.getArtworkMrl()), width);
+                cache.addBitmapToCache(cacheKey, bitmap);
+            }
+            return bitmap;
         }
 
         @Override
@@ -173,11 +317,13 @@ public class AsyncImageLoader {
 
     abstract static class CoverFetcher implements AsyncImageLoader.Callbacks {
         protected ViewDataBinding binding = null;
-        boolean bindChanged = false;
+        volatile boolean bindChanged = false;
         final OnRebindCallback<ViewDataBinding> rebindCallbacks = new OnRebindCallback<ViewDataBinding>() {
             @Override
             public boolean onPreBind(ViewDataBinding binding) {
                 bindChanged = true;
+                binding.removeOnRebindCallback(this);
+                AsyncImageLoader.cancel(CoverFetcher.this);
                 return super.onPreBind(binding);
             }
 
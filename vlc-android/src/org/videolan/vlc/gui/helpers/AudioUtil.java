@@ -26,7 +26,6 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.graphics.Bitmap;
-import android.graphics.Bitmap.CompressFormat;
 import android.graphics.BitmapFactory;
 import android.media.RingtoneManager;
 import android.net.Uri;
@@ -46,14 +45,9 @@ import org.videolan.vlc.util.AndroidDevices;
 import org.videolan.vlc.util.HttpImageLoader;
 import org.videolan.vlc.util.MurmurHash;
 import org.videolan.vlc.util.Permissions;
-import org.videolan.vlc.util.Util;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FilenameFilter;
-import java.io.IOException;
-import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
@@ -75,7 +69,7 @@ public class AudioUtil {
      */
     private static AtomicReference<String> ART_DIR = new AtomicReference<>();
     /**
-     * Cover caching directory
+     * Legacy cover caching directory
      */
     private static AtomicReference<String> COVER_DIR = new AtomicReference<>();
 //    /**
@@ -143,19 +137,24 @@ public class AudioUtil {
         }
         ART_DIR.set(CACHE_DIR + "/art/");
         COVER_DIR.set(CACHE_DIR + "/covers/");
-        for(String path : Arrays.asList(ART_DIR.get(), COVER_DIR.get())) {
-            File file = new File(path);
-            if (!file.exists())
-                file.mkdirs();
-        }
+        final File artDir = new File(ART_DIR.get());
+        if (!artDir.exists())
+            artDir.mkdirs();
+        // Covers are now stored in the bitmaps disk cache
+        final File coverDir = new File(COVER_DIR.get());
+        if (coverDir.exists())
+            deleteContent(coverDir, true);
+        BitmapCache.getInstance().initDiskCache(new File(CACHE_DIR + "/bitmaps/"));
     }
 
+    @WorkerThread
     public static void clearCacheFolders() {
         for(String path : Arrays.asList(ART_DIR.get(), COVER_DIR.get())) {
             File file = new File(path);
             if (file.exists())
                 deleteContent(file, false);
         }
+        BitmapCache.getInstance().clearDiskCache();
     }
 
     private static void deleteContent(File dir, boolean deleteDir) {
@@ -277,9 +276,9 @@ public class AudioUtil {
         return null;
     }
 
-    private static String getCoverCachePath(Context context, MediaWrapper media, int width) {
+    private static String getCoverCacheKey(Context context, MediaWrapper media, int width) {
         final int hash = MurmurHash.hash32(MediaUtils.getMediaArtist(context, media) + MediaUtils.getMediaAlbum(context, media));
-        return COVER_DIR.get() + (hash >= 0 ? "" + hash : "m" + (-hash)) + "_" + width;
+        return "cover:" + (hash >= 0 ? "" + hash : "m" + (-hash)) + "_" + width;
     }
 
     public static Bitmap getCoverFromMemCache(Context context, MediaWrapper media, int width) {
@@ -287,7 +286,7 @@ public class AudioUtil {
 
         if (media != null && media.getArtist() != null && media.getAlbum() != null) {
             final BitmapCache cache = BitmapCache.getInstance();
-            cover = cache.getBitmapFromMemCache(getCoverCachePath(context, media, width));
+            cover = cache.getBitmapFromMemCache(getCoverCacheKey(context, media, width));
         }
         if (cover == null && media != null && !TextUtils.isEmpty(media.getArtworkURL()) && media.getArtworkURL().startsWith("http")) {
             cover = HttpImageLoader.getBitmapFromIconCache(media.getArtworkURL());
@@ -300,8 +299,7 @@ public class AudioUtil {
         BitmapCache cache = BitmapCache.getInstance();
         String coverPath = null;
         Bitmap cover = null;
-        String cachePath = null;
-        File cacheFile = null;
+        String cacheKey = null;
 
         if (width <= 0) {
             Log.e(TAG, "Invalid cover width requested");
@@ -315,24 +313,16 @@ public class AudioUtil {
         try {
             // try to load from cache
             if (media.getArtist() != null && media.getAlbum() != null) {
-                cachePath = getCoverCachePath(context, media, width);
+                cacheKey = getCoverCacheKey(context, media, width);
 
-                // try to get the cover from the LRUCache first
-                cover = cache.getBitmapFromMemCache(cachePath);
+                // try to get the cover from the memory or disk cache first
+                cover = cache.getBitmap(cacheKey);
                 if (cover != null)
                     return cover;
-
-                // try to get the cover from the storage cache
-                cacheFile = new File(cachePath);
-                if (cacheFile.exists()) {
-                    if (cacheFile.length() > 0)
-                        coverPath = cachePath;
-                }
             } else
 
             // try to get it from VLC
-            if (coverPath == null || !cacheFile.exists())
-                coverPath = getCoverFromVlc(context, media);
+            coverPath = getCoverFromVlc(context, media);
 
             // try to get the cover from android MediaStore
             if (coverPath == null || !(new File(coverPath)).exists())
@@ -346,10 +336,8 @@ public class AudioUtil {
             cover = readCoverBitmap(coverPath, width);
 
             // store cover into both cache
-            if (cachePath != null) {
-                writeBitmap(cover, cachePath);
-                cache.addBitmapToMemCache(cachePath, cover);
-            }
+            if (cacheKey != null)
+                cache.addBitmapToCache(cacheKey, cover);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -357,22 +345,6 @@ public class AudioUtil {
         return cover;
     }
 
-    private static void writeBitmap(Bitmap bitmap, String path) throws IOException {
-        OutputStream out = null;
-        try {
-            File file = new File(path);
-            if (file.exists() && file.length() > 0)
-                return;
-            out = new BufferedOutputStream(new FileOutputStream(file), 4096);
-            if (bitmap != null)
-                bitmap.compress(CompressFormat.JPEG, 90, out);
-        } catch (Exception e) {
-            Log.e(TAG, "writeBitmap failed : "+ e.getMessage());
-        } finally {
-            Util.close(out);
-        }
-    }
-
     @WorkerThread
     public static Bitmap readCoverBitmap(String path, int width) {
         if (path == null)
@@ -25,18 +25,25 @@ import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.os.Build;
+import android.support.annotation.WorkerThread;
 import android.support.v4.util.LruCache;
 import android.util.Log;
 
 import org.videolan.vlc.BuildConfig;
 import org.videolan.vlc.util.Strings;
 
+import java.io.File;
+
 public class BitmapCache {
 
     private final static String TAG = "VLC/BitmapCache";
 
+    /* Disk cache takes at most 10% of free space, up to 64MB */
+    private static final long DISK_CACHE_MAX_SIZE = 64L * 1024 * 1024;
+
     private static BitmapCache mInstance;
     private final LruCache<String, Bitmap> mMemCache;
+    private volatile DiskBitmapCache mDiskCache;
 
     public synchronized static BitmapCache getInstance() {
         if (mInstance == null)
@@ -62,6 +69,20 @@ public class BitmapCache {
         };
     }
 
+    /**
+     * Open the disk cache tier in the given folder.
+     * Until this is done, only the memory cache is used.
+     */
+    @WorkerThread
+    public void initDiskCache(File directory) {
+        if (mDiskCache != null)
+            return;
+        final long freeSpace = directory.getParentFile() != null ? directory.getParentFile().getUsableSpace() : 0L;
+        final long size = Math.min(DISK_CACHE_MAX_SIZE, freeSpace / 10);
+        if (size > 0)
+            mDiskCache = new DiskBitmapCache(directory, size);
+    }
+
     public synchronized Bitmap getBitmapFromMemCache(String key) {
         final Bitmap b = mMemCache.get(key);
 
@@ -78,6 +99,59 @@ public class BitmapCache {
         }
     }
 
+    /**
+     * Look for this bitmap in memory, then on disk.
+     * Bitmaps found on disk are promoted to the memory cache.
+     */
+    @WorkerThread
+    public Bitmap getBitmap(String key) {
+        if (key == null)
+            return null;
+        Bitmap bitmap = getBitmapFromMemCache(key);
+        if (bitmap != null)
+            return bitmap;
+        final DiskBitmapCache diskCache = mDiskCache;
+        if (diskCache == null)
+            return null;
+        final File file = diskCache.get(key);
+        if (file == null)
+            return null;
+        bitmap = decodeFile(file.getPath());
+        if (bitmap != null)
+            synchronized (this) {
+                mMemCache.put(key, bitmap);
+            }
+        return bitmap;
+    }
+
+    /**
+     * Store this bitmap in memory and queue its write on disk.
+     */
+    public void addBitmapToCache(String key, Bitmap bitmap) {
+        if (key == null || bitmap == null)
+            return;
+        addBitmapToMemCache(key, bitmap);
+        final DiskBitmapCache diskCache = mDiskCache;
+        if (diskCache != null)
+            diskCache.put(key, bitmap);
+    }
+
+    @WorkerThread
+    public void clearDiskCache() {
+        final DiskBitmapCache diskCache = mDiskCache;
+        if (diskCache != null)
+            diskCache.clear();
+    }
+
+    /* Evicted bitmaps may still be displayed, so they are never decoded into (inBitmap) */
+    private Bitmap decodeFile(String path) {
+        try {
+            return BitmapFactory.decodeFile(path);
+        } catch (OutOfMemoryError e) {
+            return null;
+        }
+    }
+
     private Bitmap getBitmapFromMemCache(int resId) {
         return getBitmapFromMemCache("res:" + resId);
     }
@@ -0,0 +1,298 @@
+/*****************************************************************************
+ * DiskBitmapCache.java
+ *****************************************************************************
+ * Copyright © 2017 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.vlc.gui.helpers;
+
+import android.graphics.Bitmap;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import org.videolan.vlc.BuildConfig;
+import org.videolan.vlc.util.MurmurHash;
+import org.videolan.vlc.util.Strings;
+import org.videolan.vlc.util.Util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.videolan.vlc.VLCApplication.THREAD_FACTORY;
+
+/**
+ * Size capped, LRU ordered, bitmap storage backing {@link BitmapCache}.
+ *
+ * Entries are compressed files named after the 64 bits hash of their cache key. Their access
+ * order is kept in a journal which is replayed on startup and compacted once it holds too many
+ * redundant lines. Writes are done by one single background thread.
+ */
+class DiskBitmapCache {
+    private final static String TAG = "VLC/DiskBitmapCache";
+
+    private static final String JOURNAL = "journal";
+    private static final String JOURNAL_TMP = "journal.tmp";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String CLEAN = "CLEAN";
+    private static final String READ = "READ";
+    private static final String REMOVE = "REMOVE";
+    private static final int COMPACT_THRESHOLD = 2000;
+    private static final int JPEG_QUALITY = 85;
+
+    private final File mDirectory;
+    private final long mMaxSize;
+    private long mSize = 0L;
+    private int mRedundantOps = 0;
+    private Writer mJournalWriter;
+    /* file name -> file size, in access order */
+    private final LinkedHashMap<String, Long> mEntries = new LinkedHashMap<>(0, 0.75f, true);
+    private final Set<String> mPendingWrites = new HashSet<>();
+
+    /* Only one writer thread, idle thread is killed after 10 seconds */
+    private final ThreadPoolExecutor mWriter = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY);
+
+    @WorkerThread
+    DiskBitmapCache(File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+        if (!mDirectory.exists())
+            mDirectory.mkdirs();
+        readJournal();
+        removeOrphans();
+        rebuildJournal();
+        if (BuildConfig.DEBUG)
+            Log.i(TAG, "Disk cache opened with " + mEntries.size() + " entries, "
+                    + Strings.readableSize(mSize) + " / " + Strings.readableSize(mMaxSize));
+    }
+
+    /**
+     * @return the file holding the bitmap for this key, or null if it is not cached
+     */
+    @WorkerThread
+    synchronized File get(String key) {
+        final String name = getFileName(key);
+        if (mEntries.get(name) == null)
+            return null;
+        final File file = new File(mDirectory, name);
+        if (!file.exists()) {
+            remove(name);
+            return null;
+        }
+        appendJournal(READ, name, -1L);
+        return file;
+    }
+
+    synchronized boolean contains(String key) {
+        final String name = getFileName(key);
+        return mEntries.containsKey(name) || mPendingWrites.contains(name);
+    }
+
+    /**
+     * Queue the bitmap compression and storage on the writer thread.
+     * Nothing is done if this key is already stored or about to be.
+     */
+    void put(String key, final Bitmap bitmap) {
+        if (key == null || bitmap == null || bitmap.isRecycled())
+            return;
+        final String name = getFileName(key);
+        synchronized (this) {
+            if (mEntries.containsKey(name) || !mPendingWrites.add(name))
+                return;
+        }
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(name, bitmap);
+            }
+        });
+    }
+
+    synchronized void clear() {
+        for (String name : mEntries.keySet())
+            new File(mDirectory, name).delete();
+        mEntries.clear();
+        mSize = 0L;
+        rebuildJournal();
+    }
+
+    private void write(String name, Bitmap bitmap) {
+        final File tmp = new File(mDirectory, name + TMP_SUFFIX);
+        final File file = new File(mDirectory, name);
+        OutputStream out = null;
+        boolean success = false;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tmp), 4096);
+            success = !bitmap.isRecycled() && bitmap.compress(bitmap.hasAlpha()
+                    ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.e(TAG, "write failed : " + e.getMessage());
+        } finally {
+            Util.close(out);
+        }
+        synchronized (this) {
+            mPendingWrites.remove(name);
+            if (success && tmp.renameTo(file)) {
+                final long size = file.length();
+                final Long previous = mEntries.put(name, size);
+                if (previous != null)
+                    mSize -= previous;
+                mSize += size;
+                appendJournal(CLEAN, name, size);
+                trimToSize();
+            } else
+                tmp.delete();
+        }
+    }
+
+    private void trimToSize() {
+        final Iterator<Map.Entry<String, Long>> it = mEntries.entrySet().iterator();
+        while (mSize > mMaxSize && it.hasNext()) {
+            final Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            mSize -= eldest.getValue();
+            new File(mDirectory, eldest.getKey()).delete();
+            appendJournal(REMOVE, eldest.getKey(), -1L);
+        }
+    }
+
+    private void remove(String name) {
+        final Long size = mEntries.remove(name);
+        if (size != null) {
+            mSize -= size;
+            new File(mDirectory, name).delete();
+            appendJournal(REMOVE, name, -1L);
+        }
+    }
+
+    private void appendJournal(String op, String name, long size) {
+        if (mJournalWriter == null)
+            return;
+        try {
+            mJournalWriter.write(size >= 0 ? op + ' ' + name + ' ' + size + '\n' : op + ' ' + name + '\n');
+            if (!READ.equals(op))
+                mJournalWriter.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "journal write failed : " + e.getMessage());
+        }
+        if (++mRedundantOps >= COMPACT_THRESHOLD && mRedundantOps >= mEntries.size())
+            rebuildJournal();
+    }
+
+    private void readJournal() {
+        final File journal = new File(mDirectory, JOURNAL);
+        if (!journal.exists())
+            return;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(journal));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.split(" ");
+                if (parts.length < 2)
+                    continue;
+                final String name = parts[1];
+                if (CLEAN.equals(parts[0]) && parts.length == 3) {
+                    try {
+                        final long size = Long.parseLong(parts[2]);
+                        final Long previous = mEntries.put(name, size);
+                        if (previous != null)
+                            mSize -= previous;
+                        mSize += size;
+                    } catch (NumberFormatException ignored) {}
+                } else if (READ.equals(parts[0]))
+                    mEntries.get(name);
+                else if (REMOVE.equals(parts[0])) {
+                    final Long size = mEntries.remove(name);
+                    if (size != null)
+                        mSize -= size;
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "journal read failed : " + e.getMessage());
+        } finally {
+            Util.close(reader);
+        }
+    }
+
+    /* Drop files the journal does not know about, and journal entries without file */
+    private void removeOrphans() {
+        final File[] files = mDirectory.listFiles();
+        final Set<String> names = new HashSet<>();
+        if (files != null)
+            for (File file : files) {
+                final String name = file.getName();
+                if (JOURNAL.equals(name))
+                    continue;
+                if (mEntries.containsKey(name))
+                    names.add(name);
+                else
+                    file.delete();
+            }
+        final Iterator<Map.Entry<String, Long>> it = mEntries.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<String, Long> entry = it.next();
+            if (!names.contains(entry.getKey())) {
+                mSize -= entry.getValue();
+                it.remove();
+            }
+        }
+        trimToSize();
+    }
+
+    private synchronized void rebuildJournal() {
+        Util.close(mJournalWriter);
+        mJournalWriter = null;
+        final File tmp = new File(mDirectory, JOURNAL_TMP);
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new FileWriter(tmp));
+            for (Map.Entry<String, Long> entry : mEntries.entrySet())
+                writer.write(CLEAN + ' ' + entry.getKey() + ' ' + entry.getValue() + '\n');
+            writer.close();
+            writer = null;
+            final File journal = new File(mDirectory, JOURNAL);
+            if (tmp.renameTo(journal))
+                mJournalWriter = new BufferedWriter(new FileWriter(journal, true));
+            mRedundantOps = 0;
+        } catch (IOException e) {
+            Log.e(TAG, "journal rebuild failed : " + e.getMessage());
+        } finally {
+            Util.close(writer);
+        }
+    }
+
+    private static String getFileName(String key) {
+        return Long.toHexString(MurmurHash.hash64(key));
+    }
+}
@@ -51,8 +51,6 @@ import android.widget.TextView;
 import org.videolan.libvlc.Media;
 import org.videolan.libvlc.util.AndroidUtil;
 import org.videolan.medialibrary.Medialibrary;
-import org.videolan.medialibrary.interfaces.MediaAddedCb;
-import org.videolan.medialibrary.interfaces.MediaUpdatedCb;
 import org.videolan.medialibrary.media.MediaLibraryItem;
 import org.videolan.medialibrary.media.MediaWrapper;
 import org.videolan.vlc.MediaParsingService;
@@ -68,6 +66,7 @@ import org.videolan.vlc.gui.view.ContextMenuRecyclerView;
 import org.videolan.vlc.gui.view.SwipeRefreshLayout;
 import org.videolan.vlc.interfaces.Filterable;
 import org.videolan.vlc.interfaces.IEventsHandler;
+import org.videolan.vlc.media.MediaChangeFeed;
 import org.videolan.vlc.media.MediaGroup;
 import org.videolan.vlc.media.MediaUtils;
 import org.videolan.vlc.util.FileUtils;
@@ -78,7 +77,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-public class VideoGridFragment extends SortableFragment<VideoListAdapter> implements MediaUpdatedCb, SwipeRefreshLayout.OnRefreshListener, MediaAddedCb, Filterable, IEventsHandler {
+public class VideoGridFragment extends SortableFragment<VideoListAdapter> implements MediaChangeFeed.Listener, SwipeRefreshLayout.OnRefreshListener, Filterable, IEventsHandler {
 
     public final static String TAG = "VLC/VideoListFragment";
 
@@ -91,6 +90,17 @@ public class VideoGridFragment extends SortableFragment<VideoListAdapter> implem
     protected String mGroup;
     private View mSearchButtonView;
     private DividerItemDecoration mDividerItemDecoration;
+    private MediaChangeFeed mChangeFeed;
+    /* Above this count of displayed groups or of changes, grouped changes are merged in background */
+    private static final int MAX_MAIN_THREAD_GROUPS = 500;
+    private static final int MAX_MAIN_THREAD_CHANGES = 64;
+    /* Groups of the displayed list, null if it's not grouped. Main thread only */
+    private MediaGroup.Grouper mGrouper;
+    /* Incremented on each list load, so that results of previous loads and merges are dropped */
+    private int mGrouperGeneration = 0;
+    /* A load or a background merge owns the grouper, changes are queued until it's done */
+    private boolean mGrouperBusy = false;
+    private final ArrayList<MediaChangeFeed.Changes> mPendingChanges = new ArrayList<>();
 
     /* All subclasses of Fragment must include a public empty constructor. */
     public VideoGridFragment() { }
@@ -180,8 +190,8 @@ public class VideoGridFragment extends SortableFragment<VideoListAdapter> implem
     @Override
     public void onStop() {
         super.onStop();
-        mMediaLibrary.removeMediaUpdatedCb();
-        mMediaLibrary.removeMediaAddedCb();
+        if (mChangeFeed != null)
+            mChangeFeed.stop();
         unregisterForContextMenu(mGridView);
     }
 
@@ -195,8 +205,9 @@ public class VideoGridFragment extends SortableFragment<VideoListAdapter> implem
     protected void onMedialibraryReady() {
         super.onMedialibraryReady();
         if (mGroup == null) {
-            mMediaLibrary.setMediaUpdatedCb(this, Medialibrary.FLAG_MEDIA_UPDATED_VIDEO);
-            mMediaLibrary.setMediaAddedCb(this, Medialibrary.FLAG_MEDIA_ADDED_VIDEO);
+            if (mChangeFeed == null)
+                mChangeFeed = new MediaChangeFeed(mMediaLibrary, this, Medialibrary.FLAG_MEDIA_ADDED_VIDEO, Medialibrary.FLAG_MEDIA_UPDATED_VIDEO);
+            mChangeFeed.start();
         }
         if (!isHidden() && mAdapter.isEmpty())
             mHandler.sendEmptyMessage(UPDATE_LIST);
@@ -351,38 +362,123 @@ public class VideoGridFragment extends SortableFragment<VideoListAdapter> implem
     }
 
     @Override
-    public void onMediaUpdated(final MediaWrapper[] mediaList) {
-        mAdapter.add(mediaList);
+    public void onMediaChanges(MediaChangeFeed.Changes changes) {
+        if (mGroup == null && MediaGroup.getMinGroupLength() == 0)
+            mAdapter.applyChanges(changes);
+        else if (mGroup == null && mGrouperBusy)
+            // The grouper is being built or merged, these changes go on top of it
+            mPendingChanges.add(changes);
+        else if (mGroup == null && mGrouper != null)
+            applyGroupedChanges(changes);
+        else
+            // Group content view is filtered by title, reload it
+            updateList();
+    }
+
+    /**
+     * Move changed medias in their groups, only the groups they leave or join are computed again.
+     * Big lists or batches are merged in background, changes received meanwhile are queued.
+     */
+    @MainThread
+    private void applyGroupedChanges(final MediaChangeFeed.Changes changes) {
+        if (changes.isEmpty())
+            return;
+        final MediaGroup.Grouper grouper = mGrouper;
+        if (mAdapter.getItemCount() <= MAX_MAIN_THREAD_GROUPS && changes.size() <= MAX_MAIN_THREAD_CHANGES) {
+            mAdapter.update(mergeGroupedChanges(grouper, changes));
+            return;
+        }
+        final int generation = mGrouperGeneration;
+        mGrouperBusy = true;
+        VLCApplication.runBackground(new Runnable() {
+            @Override
+            public void run() {
+                final ArrayList<MediaWrapper> displayList = mergeGroupedChanges(grouper, changes);
+                VLCApplication.runOnMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A newer load replaced this grouper, it will apply the pending changes
+                        if (generation != mGrouperGeneration)
+                            return;
+                        mAdapter.update(displayList);
+                        onGrouperReady();
+                    }
+                });
+            }
+        });
     }
 
-    @Override
-    public void onMediaAdded(final MediaWrapper[] mediaList) {
-        mAdapter.add(mediaList);
+    private static ArrayList<MediaWrapper> mergeGroupedChanges(MediaGroup.Grouper grouper, MediaChangeFeed.Changes changes) {
+        for (long id : changes.deleted)
+            grouper.remove(id);
+        for (MediaWrapper[] medias : new MediaWrapper[][]{changes.updated, changes.inserted})
+            for (MediaWrapper media : medias)
+                grouper.update(media);
+        return getDisplayList(grouper);
+    }
+
+    private static ArrayList<MediaWrapper> getDisplayList(MediaGroup.Grouper grouper) {
+        final List<MediaGroup> groups = grouper.getGroups();
+        final ArrayList<MediaWrapper> displayList = new ArrayList<>(groups.size());
+        for (MediaGroup group : groups)
+            displayList.add(group.getMedia());
+        return displayList;
+    }
+
+    /* The grouper is free again, apply the changes queued meanwhile */
+    @MainThread
+    private void onGrouperReady() {
+        mGrouperBusy = false;
+        if (mPendingChanges.isEmpty())
+            return;
+        final ArrayList<MediaChangeFeed.Changes> pending = new ArrayList<>(mPendingChanges);
+        mPendingChanges.clear();
+        for (MediaChangeFeed.Changes changes : pending) {
+            if (mGrouperBusy)
+                mPendingChanges.add(changes);
+            else
+                applyGroupedChanges(changes);
+        }
     }
 
     @MainThread
     public void updateList() {
         mHandler.sendEmptyMessageDelayed(SET_REFRESHING, 300);
+        final int generation = ++mGrouperGeneration;
+        // Changes received until the new grouper is installed may be missing from its snapshot
+        mGrouperBusy = mGroup == null;
 
         VLCApplication.runBackground(new Runnable() {
             @Override
             public void run() {
                 final MediaWrapper[] itemList = mMediaLibrary.getVideos();
                 final ArrayList<MediaWrapper> displayList = new ArrayList<>();
+                final MediaGroup.Grouper grouper;
                 if (mGroup != null) {
+                    grouper = null;
                     for (MediaWrapper item : itemList) {
                         String title = item.getTitle().substring(item.getTitle().toLowerCase().startsWith("the") ? 4 : 0);
                         if (mGroup == null || title.toLowerCase().startsWith(mGroup.toLowerCase()))
                             displayList.add(item);
                     }
                 } else {
-                    for (MediaGroup item : MediaGroup.group(itemList))
-                        displayList.add(item.getMedia());
+                    grouper = new MediaGroup.Grouper(MediaGroup.getMinGroupLength());
+                    for (MediaWrapper item : itemList)
+                        if (item != null)
+                            grouper.add(item);
+                    displayList.addAll(getDisplayList(grouper));
                 }
                 VLCApplication.runOnMainThread(new Runnable() {
                     @Override
                     public void run() {
+                        if (generation != mGrouperGeneration)
+                            return;
+                        mGrouper = grouper;
                         mAdapter.update(displayList);
+                        if (grouper != null)
+                            onGrouperReady();
+                        else
+                            mPendingChanges.clear();
                     }
                 });
                 mHandler.sendEmptyMessage(UNSET_REFRESHING);
@@ -422,8 +518,8 @@ public class VideoGridFragment extends SortableFragment<VideoListAdapter> implem
 
     @Override
     protected void onParsingServiceFinished() {
-        mMediaLibrary.removeMediaUpdatedCb();
-        mMediaLibrary.removeMediaAddedCb();
+        if (mChangeFeed != null)
+            mChangeFeed.stop();
         mHandler.sendEmptyMessage(UPDATE_LIST);
     }
 
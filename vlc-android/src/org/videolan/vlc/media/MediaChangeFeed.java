@@ -0,0 +1,253 @@
+/*****************************************************************************
+ * MediaChangeFeed.java
+ *****************************************************************************
+ * Copyright © 2017 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.vlc.media;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.util.LongSparseArray;
+
+import org.videolan.medialibrary.Medialibrary;
+import org.videolan.medialibrary.interfaces.MediaAddedCb;
+import org.videolan.medialibrary.interfaces.MediaDeletedCb;
+import org.videolan.medialibrary.interfaces.MediaUpdatedCb;
+import org.videolan.medialibrary.media.MediaLibraryItem;
+import org.videolan.medialibrary.media.MediaWrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Collects Medialibrary added/updated/deleted callbacks into id keyed deltas,
+ * and delivers them on main thread once per time window.
+ */
+public class MediaChangeFeed implements MediaAddedCb, MediaUpdatedCb, MediaDeletedCb {
+
+    public static final long DEFAULT_WINDOW = 500L;
+
+    public interface Listener {
+        @MainThread
+        void onMediaChanges(Changes changes);
+    }
+
+    private final Medialibrary mMedialibrary;
+    private final Listener mListener;
+    private final int mAddedFlags, mUpdatedFlags;
+    private final long mWindow;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /* Pending changes, guarded by this */
+    private final LongSparseArray<MediaWrapper> mInserted = new LongSparseArray<>();
+    private final LongSparseArray<MediaWrapper> mUpdated = new LongSparseArray<>();
+    private final LongSparseArray<Boolean> mDeleted = new LongSparseArray<>();
+    private boolean mScheduled = false;
+    private volatile boolean mStarted = false;
+
+    public MediaChangeFeed(Medialibrary ml, Listener listener, int addedFlags, int updatedFlags) {
+        this(ml, listener, addedFlags, updatedFlags, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param addedFlags Medialibrary.FLAG_MEDIA_ADDED_* flags to subscribe to
+     * @param updatedFlags Medialibrary.FLAG_MEDIA_UPDATED_* flags to subscribe to
+     * @param window batching delay in ms
+     */
+    public MediaChangeFeed(Medialibrary ml, Listener listener, int addedFlags, int updatedFlags, long window) {
+        mMedialibrary = ml;
+        mListener = listener;
+        mAddedFlags = addedFlags;
+        mUpdatedFlags = updatedFlags;
+        mWindow = window;
+    }
+
+    public void start() {
+        mStarted = true;
+        mMedialibrary.setMediaDeletedCb(this);
+        mMedialibrary.setMediaUpdatedCb(this, mUpdatedFlags);
+        mMedialibrary.setMediaAddedCb(this, mAddedFlags);
+    }
+
+    public void stop() {
+        mStarted = false;
+        mMedialibrary.removeMediaUpdatedCb();
+        mMedialibrary.removeMediaAddedCb();
+        mMedialibrary.removeMediaDeletedCb();
+        mHandler.removeCallbacks(mFlush);
+        synchronized (this) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onMediaAdded(MediaWrapper[] mediaList) {
+        synchronized (this) {
+            for (MediaWrapper media : mediaList) {
+                if (media == null)
+                    continue;
+                final long id = media.getId();
+                mDeleted.remove(id);
+                mUpdated.remove(id);
+                mInserted.put(id, media);
+            }
+            schedule();
+        }
+    }
+
+    @Override
+    public void onMediaUpdated(MediaWrapper[] mediaList) {
+        synchronized (this) {
+            for (MediaWrapper media : mediaList) {
+                if (media == null)
+                    continue;
+                final long id = media.getId();
+                if (mInserted.get(id) != null)
+                    mInserted.put(id, media);
+                else
+                    mUpdated.put(id, media);
+            }
+            schedule();
+        }
+    }
+
+    @Override
+    public void onMediaDeleted(long[] ids) {
+        synchronized (this) {
+            for (long id : ids) {
+                mInserted.remove(id);
+                mUpdated.remove(id);
+                mDeleted.put(id, Boolean.TRUE);
+            }
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (!mScheduled && mStarted) {
+            mScheduled = true;
+            mHandler.postDelayed(mFlush, mWindow);
+        }
+    }
+
+    private void clear() {
+        mInserted.clear();
+        mUpdated.clear();
+        mDeleted.clear();
+        mScheduled = false;
+    }
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            final Changes changes;
+            synchronized (MediaChangeFeed.this) {
+                changes = new Changes(mInserted, mUpdated, mDeleted);
+                clear();
+            }
+            if (mStarted && !changes.isEmpty())
+                mListener.onMediaChanges(changes);
+        }
+    };
+
+    /**
+     * One batch of library changes. A media appears in at most one of the three sets.
+     */
+    public static class Changes {
+        public final MediaWrapper[] inserted;
+        public final MediaWrapper[] updated;
+        public final long[] deleted;
+
+        @VisibleForTesting
+        Changes(LongSparseArray<MediaWrapper> inserted, LongSparseArray<MediaWrapper> updated, LongSparseArray<Boolean> deleted) {
+            this.inserted = toArray(inserted);
+            this.updated = toArray(updated);
+            this.deleted = new long[deleted.size()];
+            for (int i = 0; i < deleted.size(); ++i)
+                this.deleted[i] = deleted.keyAt(i);
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        public int size() {
+            return inserted.length + updated.length + deleted.length;
+        }
+
+        /**
+         * Apply these changes to a list sorted with comparator, in O(list size + changes log(changes)).
+         * Inserted and updated media are merged at their sorted position, updates of unknown media
+         * are inserted and insertions of known ones replace them.
+         * Section headers (TYPE_DUMMY items) are dropped, they have to be generated again.
+         */
+        @SuppressWarnings("unchecked")
+        public <T extends MediaLibraryItem> void applyTo(List<T> list, Comparator<? super T> comparator) {
+            final int size = list.size();
+            final HashMap<Long, Integer> positions = new HashMap<>(size);
+            final boolean[] removed = new boolean[size];
+            for (int i = 0; i < size; ++i) {
+                final T item = list.get(i);
+                if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA)
+                    positions.put(item.getId(), i);
+                else if (item.getItemType() == MediaLibraryItem.TYPE_DUMMY)
+                    removed[i] = true;
+            }
+            final ArrayList<T> moved = new ArrayList<>(inserted.length + updated.length);
+            for (MediaWrapper[] medias : new MediaWrapper[][]{updated, inserted})
+                for (MediaWrapper media : medias) {
+                    final Integer position = positions.get(media.getId());
+                    if (position != null)
+                        removed[position] = true;
+                    moved.add((T) media);
+                }
+            for (long id : deleted) {
+                final Integer position = positions.get(id);
+                if (position != null)
+                    removed[position] = true;
+            }
+            Collections.sort(moved, comparator);
+            // Kept items are still sorted, merge the moved ones in
+            final ArrayList<T> result = new ArrayList<>(size + moved.size());
+            int next = 0;
+            for (int i = 0; i < size; ++i) {
+                if (removed[i])
+                    continue;
+                final T item = list.get(i);
+                while (next < moved.size() && comparator.compare(moved.get(next), item) < 0)
+                    result.add(moved.get(next++));
+                result.add(item);
+            }
+            result.addAll(moved.subList(next, moved.size()));
+            list.clear();
+            list.addAll(result);
+        }
+
+        private static MediaWrapper[] toArray(LongSparseArray<MediaWrapper> array) {
+            final MediaWrapper[] medias = new MediaWrapper[array.size()];
+            for (int i = 0; i < array.size(); ++i)
+                medias[i] = array.valueAt(i);
+            return medias;
+        }
+    }
+}
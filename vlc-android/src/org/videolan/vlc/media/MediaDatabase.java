@@ -23,6 +23,7 @@ package org.videolan.vlc.media;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteFullException;
@@ -30,7 +31,9 @@ import android.database.sqlite.SQLiteOpenHelper;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
+import android.os.Looper;
 import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
 import android.support.v4.util.ArrayMap;
 import android.text.TextUtils;
 import android.util.Log;
@@ -47,8 +50,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.videolan.vlc.VLCApplication.THREAD_FACTORY;
 
 public class MediaDatabase {
     public final static String TAG = "VLC/MediaDatabase";
@@ -58,7 +67,28 @@ public class MediaDatabase {
     private SQLiteDatabase mDb;
     private static final String DB_NAME = "vlc_database";
     private static final int DB_VERSION = 26;
-    private static final int CHUNK_SIZE = 50;
+    private static final int CHUNK_SIZE = 200;
+    /* Delay before pending writes are committed, in ms */
+    private static final long WRITE_DELAY = 300L;
+
+    /*
+     * Write-behind queue: fire and forget writes are committed together, in one transaction,
+     * by a single writer thread. A write replaces the pending one with the same key, and moves
+     * to the end of the queue so that it still runs after the writes queued before it.
+     */
+    private final LinkedHashMap<String, Runnable> mPendingWrites = new LinkedHashMap<>();
+    private final ScheduledThreadPoolExecutor mWriter = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            mWriterThread = THREAD_FACTORY.newThread(runnable);
+            return mWriterThread;
+        }
+    });
+    /* Thread of mWriter, so that it never waits for itself */
+    private volatile Thread mWriterThread;
+    private int mWriteCounter = 0;
+    /* Queued writes not committed yet, guarded by mPendingWrites */
+    private int mUncommittedWrites = 0;
 
     private static final String DIR_TABLE_NAME = "directories_table";
     private static final String DIR_ROW_PATH = "path";
@@ -125,6 +155,70 @@ public class MediaDatabase {
     private static final String NETWORK_FAV_TITLE = "title";
     private static final String NETWORK_FAV_ICON_URL = "icon_url";
 
+    /* Saved play queues, one row per item, with the metas needed to show them */
+    private static final String QUEUE_TABLE_NAME = "queue_table";
+    private static final String QUEUE_TYPE = "queue_type";
+    private static final String QUEUE_POSITION = "queue_position";
+    private static final String QUEUE_LOCATION = "location";
+
+    /* Browsed folders listings, one row per item, and the folders they belong to */
+    private static final String BROWSE_TABLE_NAME = "browse_table";
+    private static final String BROWSE_FOLDER = "folder";
+    private static final String BROWSE_POSITION = "position";
+    private static final String BROWSE_LOCATION = "location";
+    private static final String BROWSE_FOLDER_TABLE_NAME = "browse_folder_table";
+    private static final String BROWSE_FOLDER_DATE = "date";
+    private static final String BROWSE_FOLDER_VALIDATOR = "validator";
+    private static final int BROWSE_FOLDERS_SIZE = 200;
+
+    /*
+     * Constant SQL strings, so that their compiled statements are reused from the connection cache.
+     * Tables are paged on rowid (keyset) instead of OFFSET, which rescans every skipped row.
+     */
+    private static final String MEDIA_COLUMNS = MEDIA_TIME + ","  //0 long
+            + MEDIA_LENGTH + ","        //1 long
+            + MEDIA_TYPE + ","          //2 int
+            + MEDIA_TITLE + ","         //3 string
+            + MEDIA_ARTIST + ","        //4 string
+            + MEDIA_GENRE + ","         //5 string
+            + MEDIA_ALBUM + ","         //6 string
+            + MEDIA_ALBUMARTIST + ","   //7 string
+            + MEDIA_WIDTH + ","         //8 int
+            + MEDIA_HEIGHT + ","        //9 int
+            + MEDIA_ARTWORKURL + ","    //10 string
+            + MEDIA_AUDIOTRACK + ","    //11 int
+            + MEDIA_SPUTRACK + ","      //12 int
+            + MEDIA_TRACKNUMBER + ","   //13 int
+            + MEDIA_DISCNUMBER + ","    //14 int
+            + MEDIA_LAST_MODIFIED;      //15 long
+    private static final String QUERY_MEDIA = "SELECT " + MEDIA_COLUMNS + " FROM " + MEDIA_TABLE_NAME
+            + " WHERE " + MEDIA_LOCATION + "=?";
+    private static final String QUERY_MEDIAS_PAGE = "SELECT " + MEDIA_COLUMNS + "," + MEDIA_LOCATION + ",rowid FROM "
+            + MEDIA_TABLE_NAME + " WHERE rowid>? ORDER BY rowid LIMIT " + CHUNK_SIZE;
+    private static final String QUERY_VIDEO_TIMES_PAGE = "SELECT " + MEDIA_LOCATION + "," + MEDIA_TIME + ",rowid FROM "
+            + MEDIA_TABLE_NAME + " WHERE " + MEDIA_TYPE + "=" + MediaWrapper.TYPE_VIDEO
+            + " AND rowid>? ORDER BY rowid LIMIT " + CHUNK_SIZE;
+    private static final String QUERY_SUBTITLES = "SELECT " + EXTERNAL_SUBTITLES_URI + " FROM "
+            + EXTERNAL_SUBTITLES_TABLE_NAME + " WHERE " + EXTERNAL_SUBTITLES_MEDIA_NAME + "=?";
+    private static final String QUERY_SLAVES = "SELECT " + SLAVES_TYPE + "," + SLAVES_PRIORITY + "," + SLAVES_URI
+            + " FROM " + SLAVES_TABLE_NAME + " WHERE " + SLAVES_MEDIA_PATH + "=?";
+    private static final String QUERY_QUEUE = "SELECT " + QUEUE_LOCATION + "," + MEDIA_LENGTH + "," + MEDIA_TYPE + ","
+            + MEDIA_TITLE + "," + MEDIA_ARTIST + "," + MEDIA_ALBUM + "," + MEDIA_ARTWORKURL + " FROM "
+            + QUEUE_TABLE_NAME + " WHERE " + QUEUE_TYPE + "=? ORDER BY " + QUEUE_POSITION;
+    private static final String QUERY_BROWSE_FOLDER = "SELECT " + BROWSE_FOLDER_DATE + "," + BROWSE_FOLDER_VALIDATOR
+            + " FROM " + BROWSE_FOLDER_TABLE_NAME + " WHERE " + BROWSE_FOLDER + "=?";
+    private static final String QUERY_BROWSE = "SELECT " + BROWSE_LOCATION + "," + MEDIA_LENGTH + "," + MEDIA_TYPE + ","
+            + MEDIA_TITLE + "," + MEDIA_ARTWORKURL + " FROM " + BROWSE_TABLE_NAME + " WHERE " + BROWSE_FOLDER + "=? ORDER BY "
+            + BROWSE_POSITION;
+    private static final String TRIM_BROWSE_FOLDERS = "DELETE FROM " + BROWSE_FOLDER_TABLE_NAME + " WHERE " + BROWSE_FOLDER
+            + " NOT IN (SELECT " + BROWSE_FOLDER + " FROM " + BROWSE_FOLDER_TABLE_NAME + " ORDER BY " + BROWSE_FOLDER_DATE
+            + " DESC LIMIT " + BROWSE_FOLDERS_SIZE + ")";
+    private static final String TRIM_BROWSE = "DELETE FROM " + BROWSE_TABLE_NAME + " WHERE " + BROWSE_FOLDER
+            + " NOT IN (SELECT " + BROWSE_FOLDER + " FROM " + BROWSE_FOLDER_TABLE_NAME + ")";
+    private static final String SHIFT_QUEUE = "UPDATE " + QUEUE_TABLE_NAME + " SET " + QUEUE_POSITION + "="
+            + QUEUE_POSITION + "+? WHERE " + QUEUE_TYPE + "=? AND " + QUEUE_POSITION + ">=? AND "
+            + QUEUE_POSITION + "<=?";
+
     //    public static final int INDEX_MEDIA_TABLE_NAME = 0;
 //    public static final int INDEX_MEDIA_PATH = 1;
     public static final int INDEX_MEDIA_TIME = 2;
@@ -154,6 +248,143 @@ public class MediaDatabase {
         // create or open database
         DatabaseHelper helper = new DatabaseHelper(context);
         this.mDb = helper.getWritableDatabase();
+        // Readers no longer wait for writers
+        if (AndroidUtil.isHoneycombOrLater)
+            try {
+                mDb.enableWriteAheadLogging();
+            } catch (IllegalStateException e) {
+                Log.w(TAG, "Could not enable WAL", e);
+            }
+        createIndexes(mDb);
+    }
+
+    /* Lookup indexes and new tables, created on open so that no upgrade wipes the media table */
+    private static void createIndexes(SQLiteDatabase db) {
+        try {
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + EXTERNAL_SUBTITLES_TABLE_NAME + "_media_name_idx ON "
+                    + EXTERNAL_SUBTITLES_TABLE_NAME + " (" + EXTERNAL_SUBTITLES_MEDIA_NAME + ");");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + QUEUE_TABLE_NAME + " ("
+                    + QUEUE_TYPE + " INTEGER NOT NULL, "
+                    + QUEUE_POSITION + " INTEGER NOT NULL, "
+                    + QUEUE_LOCATION + " TEXT NOT NULL, "
+                    + MEDIA_LENGTH + " INTEGER, "
+                    + MEDIA_TYPE + " INTEGER, "
+                    + MEDIA_TITLE + " TEXT, "
+                    + MEDIA_ARTIST + " TEXT, "
+                    + MEDIA_ALBUM + " TEXT, "
+                    + MEDIA_ARTWORKURL + " TEXT"
+                    + ");");
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + QUEUE_TABLE_NAME + "_position_idx ON "
+                    + QUEUE_TABLE_NAME + " (" + QUEUE_TYPE + "," + QUEUE_POSITION + ");");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + BROWSE_FOLDER_TABLE_NAME + " ("
+                    + BROWSE_FOLDER + " TEXT PRIMARY KEY NOT NULL, "
+                    + BROWSE_FOLDER_DATE + " INTEGER NOT NULL, "
+                    + BROWSE_FOLDER_VALIDATOR + " TEXT"
+                    + ");");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + BROWSE_TABLE_NAME + " ("
+                    + BROWSE_FOLDER + " TEXT NOT NULL, "
+                    + BROWSE_POSITION + " INTEGER NOT NULL, "
+                    + BROWSE_LOCATION + " TEXT NOT NULL, "
+                    + MEDIA_LENGTH + " INTEGER, "
+                    + MEDIA_TYPE + " INTEGER, "
+                    + MEDIA_TITLE + " TEXT, "
+                    + MEDIA_ARTWORKURL + " TEXT"
+                    + ");");
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + BROWSE_TABLE_NAME + "_folder_idx ON "
+                    + BROWSE_TABLE_NAME + " (" + BROWSE_FOLDER + "," + BROWSE_POSITION + ");");
+        } catch (SQLiteException e) {
+            Log.w(TAG, "Could not create indexes", e);
+        }
+    }
+
+    /**
+     * Queue a write, it will be committed by the writer thread with all writes queued meanwhile.
+     * @param key identifies the written row and columns, as "table:row[:columns]".
+     *            A pending write with the same key is dropped, null for writes which cannot be coalesced.
+     */
+    private void queueWrite(String key, Runnable write) {
+        synchronized (mPendingWrites) {
+            if (key == null)
+                key = "#" + mWriteCounter++;
+            if (mPendingWrites.remove(key) == null)
+                ++mUncommittedWrites;
+            mPendingWrites.put(key, write);
+            if (mPendingWrites.size() > 1)
+                return;
+        }
+        mWriter.schedule(mCommitWrites, WRITE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    private final Runnable mCommitWrites = new Runnable() {
+        @Override
+        public void run() {
+            final ArrayList<Runnable> writes;
+            synchronized (mPendingWrites) {
+                writes = new ArrayList<>(mPendingWrites.values());
+                mPendingWrites.clear();
+            }
+            if (writes.isEmpty())
+                return;
+            if (AndroidUtil.isHoneycombOrLater)
+                mDb.beginTransactionNonExclusive();
+            else
+                mDb.beginTransaction();
+            try {
+                for (Runnable write : writes) {
+                    try {
+                        write.run();
+                    } catch (SQLiteException e) {
+                        Log.e(TAG, "Write failed", e);
+                    }
+                }
+                mDb.setTransactionSuccessful();
+            } finally {
+                mDb.endTransaction();
+                synchronized (mPendingWrites) {
+                    mUncommittedWrites -= writes.size();
+                }
+            }
+        }
+    };
+
+    /**
+     * Block until all writes queued before this call are committed.
+     */
+    @WorkerThread
+    public void flush() {
+        // Writes reading the database run on the writer thread, waiting for it would deadlock
+        if (Thread.currentThread() == mWriterThread) {
+            mCommitWrites.run();
+            return;
+        }
+        try {
+            mWriter.submit(mCommitWrites).get();
+        } catch (Exception e) {
+            Log.w(TAG, "flush interrupted", e);
+        }
+    }
+
+    /**
+     * Commit pending writes now, without waiting for them.
+     */
+    public void commitPendingWrites() {
+        mWriter.execute(mCommitWrites);
+    }
+
+    /*
+     * Reads of tables written through the queue must see writes queued before them.
+     * The main thread is never blocked: pending writes are committed right away, but its reads
+     * may miss them.
+     */
+    private void awaitWrites() {
+        synchronized (mPendingWrites) {
+            if (mUncommittedWrites == 0)
+                return;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper())
+            commitPendingWrites();
+        else
+            flush();
     }
 
     public synchronized static MediaDatabase getInstance() {
@@ -463,7 +694,7 @@ public class MediaDatabase {
      *
      * @return An array of all the playlist names
      */
-    public synchronized String[] getPlaylists() {
+    public String[] getPlaylists() {
         ArrayList<String> playlists = new ArrayList<String>();
         Cursor c = mDb.query(
                 PLAYLIST_TABLE_NAME,
@@ -518,7 +749,7 @@ public class MediaDatabase {
      * @param name Unique name of the playlist
      * @return true if playlist exists, false otherwise
      */
-    public synchronized boolean playlistExists(String name) {
+    public boolean playlistExists(String name) {
         // Check duplicates
         Cursor c = mDb.query(PLAYLIST_TABLE_NAME,
                 new String[] { PLAYLIST_NAME }, PLAYLIST_NAME + "= ?",
@@ -538,7 +769,7 @@ public class MediaDatabase {
      * @return Array containing MRLs of the playlist in order, or null on error
      */
     @Nullable
-    public synchronized String[] playlistGetItems(String playlistName) {
+    public String[] playlistGetItems(String playlistName) {
         if(!playlistExists(playlistName))
             return null;
 
@@ -676,9 +907,9 @@ public class MediaDatabase {
      * Add a new media to the database. The picture can only added by update.
      * @param media which you like to add to the database
      */
-    public synchronized void addMedia(MediaWrapper media) {
+    public void addMedia(MediaWrapper media) {
 
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
 
         values.put(MEDIA_LOCATION, media.getUri().toString());
         values.put(MEDIA_TIME, media.getTime());
@@ -698,8 +929,12 @@ public class MediaDatabase {
         values.put(MEDIA_DISCNUMBER, media.getDiscNumber());
         values.put(MEDIA_LAST_MODIFIED, media.getLastModified());
 
-        mDb.replace(MEDIA_TABLE_NAME, "NULL", values);
-
+        queueWrite("media:" + media.getUri(), new Runnable() {
+            @Override
+            public void run() {
+                mDb.replace(MEDIA_TABLE_NAME, "NULL", values);
+            }
+        });
     }
 
     /**
@@ -707,7 +942,8 @@ public class MediaDatabase {
      * @param location of the item (primary key)
      * @return True if the item exists, false if it does not
      */
-    public synchronized boolean mediaItemExists(Uri uri) {
+    public boolean mediaItemExists(Uri uri) {
+        awaitWrites();
         try {
             Cursor cursor = mDb.query(MEDIA_TABLE_NAME,
                     new String[] { MEDIA_LOCATION },
@@ -731,7 +967,7 @@ public class MediaDatabase {
      * @return list of File
      */
     @SuppressWarnings("unused")
-    private synchronized HashSet<File> getMediaFiles() {
+    private HashSet<File> getMediaFiles() {
 
         HashSet<File> files = new HashSet<File>();
         Cursor cursor;
@@ -754,13 +990,14 @@ public class MediaDatabase {
         return files;
     }
 
-    public synchronized Cursor queryMedia(String query){
+    public Cursor queryMedia(String query){
+        awaitWrites();
         String[] queryColumns = new String[]{MEDIA_LOCATION, MEDIA_TITLE};
         return mDb.query(MEDIA_VIRTUAL_TABLE_NAME, queryColumns, MEDIA_VIRTUAL_TABLE_NAME+" MATCH ?",
                 new String[]{query + "*"}, null, null, null, null);
     }
 
-    public synchronized ArrayList<String> searchMedia(String filter){
+    public ArrayList<String> searchMedia(String filter){
 
         ArrayList<String> mediaList = new ArrayList<String>();
         Cursor cursor = queryMedia(filter);
@@ -775,177 +1012,99 @@ public class MediaDatabase {
         return mediaList;
     }
 
-    public synchronized ArrayMap<String, MediaWrapper> getMedias() {
-
-        Cursor cursor;
-        ArrayMap<String, MediaWrapper> medias = new ArrayMap<String, MediaWrapper>();
-        int chunk_count = 0;
+    /**
+     * Read all medias of the table, by chunks of CHUNK_SIZE rows.
+     */
+    public ArrayMap<String, MediaWrapper> getMedias() {
+        final ArrayMap<String, MediaWrapper> medias = new ArrayMap<>();
+        awaitWrites();
+        long lastRowId = -1L;
         int count;
-
         do {
             count = 0;
-            cursor = mDb.rawQuery(String.format(Locale.US,
-                    "SELECT %s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s FROM %s LIMIT %d OFFSET %d",
-                    MEDIA_LOCATION, //0 string
-                    MEDIA_TIME, //1 long
-                    MEDIA_LENGTH, //2 long
-                    MEDIA_TYPE, //3 int
-                    MEDIA_TITLE, //4 string
-                    MEDIA_ARTIST, //5 string
-                    MEDIA_GENRE, //6 string
-                    MEDIA_ALBUM, //7 string
-                    MEDIA_ALBUMARTIST, //8 string
-                    MEDIA_WIDTH, //9 int
-                    MEDIA_HEIGHT, //10 int
-                    MEDIA_ARTWORKURL, //11 string
-                    MEDIA_AUDIOTRACK, //12 int
-                    MEDIA_SPUTRACK, //13 int
-                    MEDIA_TRACKNUMBER, // 14 int
-                    MEDIA_DISCNUMBER, //15 int
-                    MEDIA_LAST_MODIFIED, //16 long
-                    MEDIA_TABLE_NAME,
-                    CHUNK_SIZE,
-                    chunk_count * CHUNK_SIZE), null);
-
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    try {
-                        do {
-                            final Uri uri = AndroidUtil.LocationToUri(cursor.getString(0));
-                            MediaWrapper media = new MediaWrapper(uri,
-                                    cursor.getLong(1),      // MEDIA_TIME
-                                    cursor.getLong(2),      // MEDIA_LENGTH
-                                    cursor.getInt(3),       // MEDIA_TYPE
-                                    null,                   // MEDIA_PICTURE
-                                    cursor.getString(4),    // MEDIA_TITLE
-                                    cursor.getString(5),    // MEDIA_ARTIST
-                                    cursor.getString(6),    // MEDIA_GENRE
-                                    cursor.getString(7),    // MEDIA_ALBUM
-                                    cursor.getString(8),    // MEDIA_ALBUMARTIST
-                                    cursor.getInt(9),       // MEDIA_WIDTH
-                                    cursor.getInt(10),       // MEDIA_HEIGHT
-                                    cursor.getString(11),   // MEDIA_ARTWORKURL
-                                    cursor.getInt(12),      // MEDIA_AUDIOTRACK
-                                    cursor.getInt(13),      // MEDIA_SPUTRACK
-                                    cursor.getInt(14),      // MEDIA_TRACKNUMBER
-                                    cursor.getInt(15),     // MEDIA_DISCNUMBER
-                                    cursor.getLong(16),    // MEDIA_LAST_MODIFIED
-                                    0L);     // MEDIA_SEEN
-                            medias.put(media.getUri().toString(), media);
-
-                            count++;
-                        } while (cursor.moveToNext());
-                    } catch (IllegalStateException e) {
-                    } //Google bug causing IllegalStateException, see https://code.google.com/p/android/issues/detail?id=32472
+            final Cursor cursor = mDb.rawQuery(QUERY_MEDIAS_PAGE, new String[] { Long.toString(lastRowId) });
+            if (cursor == null)
+                break;
+            try {
+                while (cursor.moveToNext()) {
+                    ++count;
+                    lastRowId = cursor.getLong(17);
+                    final Uri uri = AndroidUtil.LocationToUri(cursor.getString(16));
+                    medias.put(uri.toString(), readMedia(cursor, uri));
                 }
-
+            } catch (IllegalStateException e) {
+                //Google bug causing IllegalStateException, see https://code.google.com/p/android/issues/detail?id=32472
+                break;
+            } finally {
                 cursor.close();
             }
-            chunk_count++;
         } while (count == CHUNK_SIZE);
-
         return medias;
     }
 
-    public synchronized ArrayMap<String, Long> getVideoTimes() {
-
-        Cursor cursor;
-        ArrayMap<String, Long> times = new ArrayMap<String, Long>();
-        int chunk_count = 0;
+    public ArrayMap<String, Long> getVideoTimes() {
+        final ArrayMap<String, Long> times = new ArrayMap<>();
+        awaitWrites();
+        long lastRowId = -1L;
         int count;
-
         do {
             count = 0;
-            cursor = mDb.rawQuery(String.format(Locale.US,
-                    "SELECT %s,%s FROM %s WHERE %s=%d LIMIT %d OFFSET %d",
-                    MEDIA_LOCATION, //0 string
-                    MEDIA_TIME, //1 long
-                    MEDIA_TABLE_NAME,
-                    MEDIA_TYPE,
-                    MediaWrapper.TYPE_VIDEO,
-                    CHUNK_SIZE,
-                    chunk_count * CHUNK_SIZE), null);
-
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    do {
-                        String location = cursor.getString(0);
-                        long time = cursor.getLong(1);
-                        times.put(location, time);
-                        count++;
-                    } while (cursor.moveToNext());
+            final Cursor cursor = mDb.rawQuery(QUERY_VIDEO_TIMES_PAGE, new String[] { Long.toString(lastRowId) });
+            if (cursor == null)
+                break;
+            try {
+                while (cursor.moveToNext()) {
+                    ++count;
+                    lastRowId = cursor.getLong(2);
+                    times.put(cursor.getString(0), cursor.getLong(1));
                 }
-
+            } finally {
                 cursor.close();
             }
-            chunk_count++;
         } while (count == CHUNK_SIZE);
-
         return times;
     }
 
-    public synchronized MediaWrapper getMedia(Uri uri) {
-
-        Cursor cursor;
-        MediaWrapper media = null;
-
-        try {
-            cursor = mDb.query(
-                    MEDIA_TABLE_NAME,
-                    new String[] {
-                            MEDIA_TIME, //0 long
-                            MEDIA_LENGTH, //1 long
-                            MEDIA_TYPE, //2 int
-                            MEDIA_TITLE, //3 string
-                            MEDIA_ARTIST, //4 string
-                            MEDIA_GENRE, //5 string
-                            MEDIA_ALBUM, //6 string
-                            MEDIA_ALBUMARTIST, //7 string
-                            MEDIA_WIDTH, //8 int
-                            MEDIA_HEIGHT, //9 int
-                            MEDIA_ARTWORKURL, //10 string
-                            MEDIA_AUDIOTRACK, //11 int
-                            MEDIA_SPUTRACK, //12 int
-                            MEDIA_TRACKNUMBER, //13 int
-                            MEDIA_DISCNUMBER, //14 int
-                            MEDIA_LAST_MODIFIED, //15 long
-                    },
-                    MEDIA_LOCATION + "=?",
-                    new String[] { uri.toString() },
-                    null, null, null);
-        } catch(IllegalArgumentException e) {
-            // java.lang.IllegalArgumentException: the bind value at index 1 is null
+    public MediaWrapper getMedia(Uri uri) {
+        if (uri == null)
             return null;
-        }
-        if (cursor != null) {
-            if (cursor.moveToFirst()) {
-                media = new MediaWrapper(uri,
-                        cursor.getLong(0),
-                        cursor.getLong(1),
-                        cursor.getInt(2),
-                        null, // lazy loading, see getPicture()
-                        cursor.getString(3),
-                        cursor.getString(4),
-                        cursor.getString(5),
-                        cursor.getString(6),
-                        cursor.getString(7),
-                        cursor.getInt(8),
-                        cursor.getInt(9),
-                        cursor.getString(10),
-                        cursor.getInt(11),
-                        cursor.getInt(12),
-                        cursor.getInt(13),
-                        cursor.getInt(14),
-                        cursor.getLong(15),
-                        0L);
-            }
+        awaitWrites();
+        final Cursor cursor = mDb.rawQuery(QUERY_MEDIA, new String[] { uri.toString() });
+        if (cursor == null)
+            return null;
+        try {
+            return cursor.moveToFirst() ? readMedia(cursor, uri) : null;
+        } finally {
             cursor.close();
         }
-        return media;
     }
 
-    public synchronized Bitmap getPicture(Uri uri) {
+    /* Read a media from the MEDIA_COLUMNS at the beginning of the cursor row */
+    private static MediaWrapper readMedia(Cursor cursor, Uri uri) {
+        return new MediaWrapper(uri,
+                cursor.getLong(0),
+                cursor.getLong(1),
+                cursor.getInt(2),
+                null, // lazy loading, see getPicture()
+                cursor.getString(3),
+                cursor.getString(4),
+                cursor.getString(5),
+                cursor.getString(6),
+                cursor.getString(7),
+                cursor.getInt(8),
+                cursor.getInt(9),
+                cursor.getString(10),
+                cursor.getInt(11),
+                cursor.getInt(12),
+                cursor.getInt(13),
+                cursor.getInt(14),
+                cursor.getLong(15),
+                0L);
+    }
+
+    public Bitmap getPicture(Uri uri) {
         /* Used for the lazy loading */
+        awaitWrites();
         Cursor cursor;
         Bitmap picture = null;
         byte[] blob;
@@ -974,43 +1133,37 @@ public class MediaDatabase {
         return picture;
     }
 
-    public synchronized void removeMedia(Uri uri) {
-        try {
-            mDb.delete(MEDIA_TABLE_NAME, MEDIA_LOCATION + "=?", new String[]{uri.toString()});
-        } catch (SQLiteException e) {
-            // Some devices have weird issues with FTS table
-        }
+    public void removeMedia(Uri uri) {
+        final String location = uri.toString();
+        queueWrite("media:" + location, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mDb.delete(MEDIA_TABLE_NAME, MEDIA_LOCATION + "=?", new String[]{location});
+                } catch (SQLiteException e) {
+                    // Some devices have weird issues with FTS table
+                }
+            }
+        });
     }
 
-    public synchronized void removeMedias(Collection<Uri> uris) {
-        mDb.beginTransaction();
-        try {
-            for (Uri uri : uris)
-                removeMedia(uri);
-            mDb.setTransactionSuccessful();
-        } finally {
-            mDb.endTransaction();
-        }
+    public void removeMedias(Collection<Uri> uris) {
+        for (Uri uri : uris)
+            removeMedia(uri);
     }
 
-    public synchronized void removeMediaWrappers(Collection<MediaWrapper> mws) {
-        mDb.beginTransaction();
-        try {
-            for (MediaWrapper mw : mws)
-                removeMedia(mw.getUri());
-            mDb.setTransactionSuccessful();
-        } finally {
-            mDb.endTransaction();
-        }
+    public void removeMediaWrappers(Collection<MediaWrapper> mws) {
+        for (MediaWrapper mw : mws)
+            removeMedia(mw.getUri());
     }
 
-    public synchronized void updateMedia(Uri uri, int col,
+    public void updateMedia(Uri uri, int col,
                                          Object object) {
 
         if (uri == null)
             return;
 
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
         switch (col) {
             case INDEX_MEDIA_PICTURE:
                 if (object != null) {
@@ -1042,7 +1195,15 @@ public class MediaDatabase {
             default:
                 return;
         }
-        mDb.update(MEDIA_TABLE_NAME, values, MEDIA_LOCATION + "=?", new String[]{uri.toString()});
+        if (values.size() == 0)
+            return;
+        final String location = uri.toString();
+        queueWrite("media:" + location + ":" + col, new Runnable() {
+            @Override
+            public void run() {
+                mDb.update(MEDIA_TABLE_NAME, values, MEDIA_LOCATION + "=?", new String[]{location});
+            }
+        });
     }
 
     /**
@@ -1083,7 +1244,7 @@ public class MediaDatabase {
      *
      * @return
      */
-    public synchronized List<File> getMediaDirs() {
+    public List<File> getMediaDirs() {
 
         List<File> paths = new ArrayList<File>();
         Cursor cursor;
@@ -1106,7 +1267,7 @@ public class MediaDatabase {
         return paths;
     }
 
-    private synchronized boolean mediaDirExists(String path) {
+    private boolean mediaDirExists(String path) {
         Cursor cursor = mDb.query(DIR_TABLE_NAME,
                 new String[] { DIR_ROW_PATH },
                 DIR_ROW_PATH + "=?",
@@ -1121,18 +1282,24 @@ public class MediaDatabase {
      *
      * @param key
      */
-    public synchronized void addSearchhistoryItem(String key) {
+    public void addSearchhistoryItem(String key) {
         // set the format to sql date time
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
         Date date = new Date();
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
         values.put(SEARCHHISTORY_KEY, key);
         values.put(SEARCHHISTORY_DATE, dateFormat.format(date));
 
-        mDb.replace(SEARCHHISTORY_TABLE_NAME, null, values);
+        queueWrite("search:" + key, new Runnable() {
+            @Override
+            public void run() {
+                mDb.replace(SEARCHHISTORY_TABLE_NAME, null, values);
+            }
+        });
     }
 
-    public synchronized ArrayList<String> getSearchhistory(int size) {
+    public ArrayList<String> getSearchhistory(int size) {
+        awaitWrites();
         ArrayList<String> history = new ArrayList<String>();
 
         Cursor cursor = mDb.query(SEARCHHISTORY_TABLE_NAME,
@@ -1149,22 +1316,33 @@ public class MediaDatabase {
         return history;
     }
 
-    public synchronized void clearSearchHistory() {
-        mDb.delete(SEARCHHISTORY_TABLE_NAME, null, null);
+    public void clearSearchHistory() {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(SEARCHHISTORY_TABLE_NAME, null, null);
+            }
+        });
     }
 
-    public synchronized void addMrlhistoryItem(String uri) {
+    public void addMrlhistoryItem(String uri) {
         // set the format to sql date time
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
         Date date = new Date();
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
         values.put(MRL_URI, uri);
         values.put(MRL_DATE, dateFormat.format(date));
 
-        mDb.replace(MRL_TABLE_NAME, null, values);
+        queueWrite("mrl:" + uri, new Runnable() {
+            @Override
+            public void run() {
+                mDb.replace(MRL_TABLE_NAME, null, values);
+            }
+        });
     }
 
-    public synchronized ArrayList<String> getMrlhistory() {
+    public ArrayList<String> getMrlhistory() {
+        awaitWrites();
         ArrayList<String> history = new ArrayList<>();
 
         Cursor cursor = mDb.query(MRL_TABLE_NAME,
@@ -1183,12 +1361,22 @@ public class MediaDatabase {
         return history;
     }
 
-    public synchronized void deleteMrlUri(String uri) {
-        mDb.delete(MRL_TABLE_NAME, MRL_URI + "=?", new String[]{uri});
+    public void deleteMrlUri(final String uri) {
+        queueWrite("mrl:" + uri, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(MRL_TABLE_NAME, MRL_URI + "=?", new String[]{uri});
+            }
+        });
     }
 
-    public synchronized void clearMrlHistory() {
-        mDb.delete(MRL_TABLE_NAME, null, null);
+    public void clearMrlHistory() {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(MRL_TABLE_NAME, null, null);
+            }
+        });
     }
 
 
@@ -1204,7 +1392,7 @@ public class MediaDatabase {
         mDb.replace(NETWORK_FAV_TABLE_NAME, null, values);
     }
 
-    public synchronized boolean networkFavExists(Uri uri) {
+    public boolean networkFavExists(Uri uri) {
         Cursor cursor = mDb.query(NETWORK_FAV_TABLE_NAME,
                 new String[] { NETWORK_FAV_URI },
                 NETWORK_FAV_URI + "=?",
@@ -1218,7 +1406,7 @@ public class MediaDatabase {
             return false;
     }
 
-    public synchronized ArrayList<MediaWrapper> getAllNetworkFav() {
+    public ArrayList<MediaWrapper> getAllNetworkFav() {
         ArrayList<MediaWrapper> favs = new ArrayList<MediaWrapper>();
 
         MediaWrapper mw;
@@ -1253,100 +1441,129 @@ public class MediaDatabase {
      * External subtitles management
      */
 
-    public synchronized void saveSubtitle(String path, String mediaName) {
+    public void saveSubtitle(String path, String mediaName) {
         if (TextUtils.isEmpty(path) || TextUtils.isEmpty(mediaName))
             return;
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
         values.put(EXTERNAL_SUBTITLES_URI, path);
         values.put(EXTERNAL_SUBTITLES_MEDIA_NAME, mediaName);
-        mDb.replace(EXTERNAL_SUBTITLES_TABLE_NAME, null, values);
+        queueWrite("subtitle:" + path, new Runnable() {
+            @Override
+            public void run() {
+                mDb.replace(EXTERNAL_SUBTITLES_TABLE_NAME, null, values);
+            }
+        });
     }
 
-    public synchronized ArrayList<String> getSubtitles(String mediaName) {
+    public ArrayList<String> getSubtitles(String mediaName) {
         if (TextUtils.isEmpty(mediaName))
             return new ArrayList<>();
-        Cursor cursor = mDb.query(EXTERNAL_SUBTITLES_TABLE_NAME,
-                new String[] {EXTERNAL_SUBTITLES_MEDIA_NAME, EXTERNAL_SUBTITLES_URI },
-                EXTERNAL_SUBTITLES_MEDIA_NAME + "=?",
-                new String[] { mediaName },
-                null, null, null);
+        awaitWrites();
+        Cursor cursor = mDb.rawQuery(QUERY_SUBTITLES, new String[] { mediaName });
+        if (cursor == null)
+            return new ArrayList<>();
         ArrayList<String> list = new ArrayList<>(cursor.getCount());
-        if (cursor != null) {
-            while (cursor.moveToNext()) {
-                String url = cursor.getString(1);
-                if (!TextUtils.isEmpty(url)) {
-                    String fileUrl = Uri.decode(url);
-                    if (new File(fileUrl).exists())
-                        list.add(fileUrl);
-                    else
-                        deleteSubtitle(url);
-                }
+        while (cursor.moveToNext()) {
+            String url = cursor.getString(0);
+            if (!TextUtils.isEmpty(url)) {
+                String fileUrl = Uri.decode(url);
+                if (new File(fileUrl).exists())
+                    list.add(fileUrl);
+                else
+                    deleteSubtitle(url);
             }
-            cursor.close();
         }
+        cursor.close();
         return list;
     }
 
-    public synchronized void deleteSubtitle(String path) {
-        mDb.delete(EXTERNAL_SUBTITLES_TABLE_NAME, EXTERNAL_SUBTITLES_URI + "=?", new String[] { path });
+    public void deleteSubtitle(final String path) {
+        queueWrite("subtitle:" + path, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(EXTERNAL_SUBTITLES_TABLE_NAME, EXTERNAL_SUBTITLES_URI + "=?", new String[] { path });
+            }
+        });
     }
 
-    public synchronized void clearExternalSubtitlesTable() {
-        mDb.delete(EXTERNAL_SUBTITLES_TABLE_NAME, null, null);
+    public void clearExternalSubtitlesTable() {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(EXTERNAL_SUBTITLES_TABLE_NAME, null, null);
+            }
+        });
     }
 
     /**
      * slaves management
      */
 
-    public synchronized void saveSlave(String mediaPath, int type, int priority, String uriString) {
-        ContentValues values = new ContentValues();
+    public void saveSlave(String mediaPath, int type, int priority, String uriString) {
+        final ContentValues values = new ContentValues();
         values.put(SLAVES_MEDIA_PATH, mediaPath);
         values.put(SLAVES_TYPE, type);
         values.put(SLAVES_PRIORITY, priority);
         values.put(SLAVES_URI, uriString);
-        mDb.replace(SLAVES_TABLE_NAME, null, values);
+        queueWrite("slave:" + mediaPath + "|" + uriString, new Runnable() {
+            @Override
+            public void run() {
+                mDb.replace(SLAVES_TABLE_NAME, null, values);
+            }
+        });
     }
 
-    public synchronized void saveSlaves(MediaWrapper mw) {
+    public void saveSlaves(MediaWrapper mw) {
         for (Media.Slave slave : mw.getSlaves())
             saveSlave(mw.getLocation(), slave.type, slave.priority, slave.uri);
     }
 
-    public synchronized ArrayList<Media.Slave> getSlaves(String mrl) {
-        Cursor cursor = mDb.query(SLAVES_TABLE_NAME,
-                new String[] {SLAVES_MEDIA_PATH, SLAVES_TYPE, SLAVES_PRIORITY, SLAVES_URI },
-                SLAVES_MEDIA_PATH + "=?",
-                new String[] { mrl },
-                null, null, null);
+    public ArrayList<Media.Slave> getSlaves(String mrl) {
+        awaitWrites();
+        Cursor cursor = mDb.rawQuery(QUERY_SLAVES, new String[] { mrl });
+        if (cursor == null)
+            return new ArrayList<>();
         ArrayList<Media.Slave> list = new ArrayList<>(cursor.getCount());
-        if (cursor != null) {
-            while (cursor.moveToNext()) {
-                String uri = cursor.getString(3);
-                if (!TextUtils.isEmpty(uri)) {
-                    uri = Uri.decode(uri);
-                list.add(new Media.Slave(cursor.getInt(1), cursor.getInt(2), uri));
-                }
+        while (cursor.moveToNext()) {
+            String uri = cursor.getString(2);
+            if (!TextUtils.isEmpty(uri)) {
+                uri = Uri.decode(uri);
+                list.add(new Media.Slave(cursor.getInt(0), cursor.getInt(1), uri));
             }
-            cursor.close();
         }
+        cursor.close();
         return list;
     }
 
-    public synchronized void deleteSlaves(String mrl) {
-        mDb.delete(SLAVES_TABLE_NAME, SLAVES_MEDIA_PATH + "=?", new String[] { mrl });
+    public void deleteSlaves(final String mrl) {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(SLAVES_TABLE_NAME, SLAVES_MEDIA_PATH + "=?", new String[] { mrl });
+            }
+        });
     }
 
-    public synchronized void clearSlavesTable() {
-        mDb.delete(SLAVES_TABLE_NAME, null, null);
+    public void clearSlavesTable() {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(SLAVES_TABLE_NAME, null, null);
+            }
+        });
     }
 
     /**
      * Empty the database for debugging purposes
      */
 
-    public synchronized void emptyDatabase() {
-        mDb.delete(MEDIA_TABLE_NAME, null, null);
+    public void emptyDatabase() {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(MEDIA_TABLE_NAME, null, null);
+            }
+        });
     }
 
     public static void setPicture(MediaWrapper m, Bitmap p) {
@@ -1361,4 +1578,264 @@ public class MediaDatabase {
         }
         m.setPictureParsed(true);
     }
+
+    /**
+     * Replace a saved play queue.
+     */
+    public void saveQueue(final int type, List<MediaWrapper> list) {
+        final MediaWrapper[] items = list.toArray(new MediaWrapper[list.size()]);
+        queueWrite("queue:" + type, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(QUEUE_TABLE_NAME, QUEUE_TYPE + "=?", new String[] { Integer.toString(type) });
+                final ContentValues values = new ContentValues();
+                for (int i = 0; i < items.length; ++i)
+                    mDb.insert(QUEUE_TABLE_NAME, null, getQueueValues(values, type, i, items[i]));
+            }
+        });
+    }
+
+    public void queueInsert(final int type, final int position, final MediaWrapper media) {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                shiftQueue(type, position, Integer.MAX_VALUE, 1);
+                mDb.insert(QUEUE_TABLE_NAME, null, getQueueValues(new ContentValues(), type, position, media));
+            }
+        });
+    }
+
+    public void queueInsert(final int type, final int position, List<MediaWrapper> medias) {
+        final MediaWrapper[] items = medias.toArray(new MediaWrapper[medias.size()]);
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                shiftQueue(type, position, Integer.MAX_VALUE, items.length);
+                final ContentValues values = new ContentValues();
+                for (int i = 0; i < items.length; ++i)
+                    mDb.insert(QUEUE_TABLE_NAME, null, getQueueValues(values, type, position + i, items[i]));
+            }
+        });
+    }
+
+    public void queueRemove(final int type, final int position) {
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                mDb.delete(QUEUE_TABLE_NAME, QUEUE_TYPE + "=? AND " + QUEUE_POSITION + "=?",
+                        new String[] { Integer.toString(type), Integer.toString(position) });
+                shiftQueue(type, position + 1, Integer.MAX_VALUE, -1);
+            }
+        });
+    }
+
+    /**
+     * Remove several saved queue items in one write, one delete and one shift per run of consecutive positions.
+     *
+     * @param positions ascending positions of the removed items
+     */
+    public void queueRemove(final int type, final int[] positions) {
+        if (positions.length == 0)
+            return;
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                final String where = QUEUE_TYPE + "=? AND " + QUEUE_POSITION + ">=? AND " + QUEUE_POSITION + "<=?";
+                int start = 0;
+                while (start < positions.length) {
+                    int end = start;
+                    while (end + 1 < positions.length && positions[end + 1] == positions[end] + 1)
+                        ++end;
+                    mDb.delete(QUEUE_TABLE_NAME, where, new String[] { Integer.toString(type),
+                            Integer.toString(positions[start]), Integer.toString(positions[end]) });
+                    // Items up to the next run move back by the number of items removed so far
+                    final int to = end + 1 < positions.length ? positions[end + 1] - 1 : Integer.MAX_VALUE;
+                    shiftQueue(type, positions[end] + 1, to, -(end + 1));
+                    start = end + 1;
+                }
+            }
+        });
+    }
+
+    /**
+     * Move a saved queue item, following {@link MediaWrapperList#move(int, int)} semantics.
+     */
+    public void queueMove(final int type, final int startPosition, final int endPosition) {
+        final int destination = startPosition >= endPosition ? endPosition : endPosition - 1;
+        if (destination == startPosition)
+            return;
+        queueWrite(null, new Runnable() {
+            @Override
+            public void run() {
+                final String[] args = { Integer.toString(type), Integer.toString(startPosition) };
+                final ContentValues values = new ContentValues();
+                values.put(QUEUE_POSITION, -1);
+                mDb.update(QUEUE_TABLE_NAME, values, QUEUE_TYPE + "=? AND " + QUEUE_POSITION + "=?", args);
+                if (startPosition < destination)
+                    shiftQueue(type, startPosition + 1, destination, -1);
+                else
+                    shiftQueue(type, destination, startPosition - 1, 1);
+                values.put(QUEUE_POSITION, destination);
+                mDb.update(QUEUE_TABLE_NAME, values, QUEUE_TYPE + "=? AND " + QUEUE_POSITION + "=-1",
+                        new String[] { Integer.toString(type) });
+            }
+        });
+    }
+
+    /**
+     * @return the saved queue, with items built from the saved metas only
+     */
+    public ArrayList<MediaWrapper> getQueue(int type) {
+        awaitWrites();
+        final Cursor cursor = mDb.rawQuery(QUERY_QUEUE, new String[] { Integer.toString(type) });
+        if (cursor == null)
+            return new ArrayList<>();
+        final ArrayList<MediaWrapper> list = new ArrayList<>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                list.add(new MediaWrapper(Uri.parse(cursor.getString(0)),
+                        0L,
+                        cursor.getLong(1),
+                        cursor.getInt(2),
+                        null,
+                        cursor.getString(3),
+                        cursor.getString(4),
+                        null,
+                        cursor.getString(5),
+                        null,
+                        0,
+                        0,
+                        cursor.getString(6),
+                        -2,
+                        -2,
+                        0,
+                        0,
+                        0L,
+                        0L));
+            }
+        } finally {
+            cursor.close();
+        }
+        return list;
+    }
+
+    private void shiftQueue(int type, int from, int to, int offset) {
+        mDb.execSQL(SHIFT_QUEUE, new Object[] { offset, type, from, to });
+    }
+
+    private static ContentValues getQueueValues(ContentValues values, int type, int position, MediaWrapper media) {
+        values.clear();
+        values.put(QUEUE_TYPE, type);
+        values.put(QUEUE_POSITION, position);
+        values.put(QUEUE_LOCATION, media.getUri().toString());
+        values.put(MEDIA_LENGTH, media.getLength());
+        values.put(MEDIA_TYPE, media.getType());
+        values.put(MEDIA_TITLE, media.getTitle());
+        values.put(MEDIA_ARTIST, media.getArtist());
+        values.put(MEDIA_ALBUM, media.getAlbum());
+        values.put(MEDIA_ARTWORKURL, media.getArtworkMrl());
+        return values;
+    }
+
+    public static class BrowseListing {
+        public final long date;
+        /* Token of the folder state when it was browsed, null if unknown */
+        public final String validator;
+        public final ArrayList<MediaWrapper> items;
+
+        BrowseListing(long date, String validator, ArrayList<MediaWrapper> items) {
+            this.date = date;
+            this.validator = validator;
+            this.items = items;
+        }
+    }
+
+    /**
+     * Replace the saved listing of a folder. Only the {@link #BROWSE_FOLDERS_SIZE} last saved folders are kept.
+     */
+    public void saveBrowseListing(final String folder, final String validator, List<? extends MediaWrapper> list) {
+        final MediaWrapper[] items = list.toArray(new MediaWrapper[list.size()]);
+        final long date = System.currentTimeMillis();
+        queueWrite("browse:" + folder, new Runnable() {
+            @Override
+            public void run() {
+                final String[] args = { folder };
+                mDb.delete(BROWSE_TABLE_NAME, BROWSE_FOLDER + "=?", args);
+                final ContentValues values = new ContentValues();
+                for (int i = 0; i < items.length; ++i) {
+                    final MediaWrapper media = items[i];
+                    values.clear();
+                    values.put(BROWSE_FOLDER, folder);
+                    values.put(BROWSE_POSITION, i);
+                    values.put(BROWSE_LOCATION, media.getUri().toString());
+                    values.put(MEDIA_LENGTH, media.getLength());
+                    values.put(MEDIA_TYPE, media.getType());
+                    values.put(MEDIA_TITLE, media.getTitle());
+                    values.put(MEDIA_ARTWORKURL, media.getArtworkMrl());
+                    mDb.insert(BROWSE_TABLE_NAME, null, values);
+                }
+                values.clear();
+                values.put(BROWSE_FOLDER, folder);
+                values.put(BROWSE_FOLDER_DATE, date);
+                values.put(BROWSE_FOLDER_VALIDATOR, validator);
+                mDb.replace(BROWSE_FOLDER_TABLE_NAME, null, values);
+                if (DatabaseUtils.queryNumEntries(mDb, BROWSE_FOLDER_TABLE_NAME) > BROWSE_FOLDERS_SIZE) {
+                    mDb.execSQL(TRIM_BROWSE_FOLDERS);
+                    mDb.execSQL(TRIM_BROWSE);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the saved listing of a folder, with items built from the saved metas only, null if none
+     */
+    @Nullable
+    public BrowseListing getBrowseListing(String folder) {
+        awaitWrites();
+        final String[] args = { folder };
+        final long date;
+        final String validator;
+        Cursor cursor = mDb.rawQuery(QUERY_BROWSE_FOLDER, args);
+        if (cursor == null)
+            return null;
+        try {
+            if (!cursor.moveToFirst())
+                return null;
+            date = cursor.getLong(0);
+            validator = cursor.getString(1);
+        } finally {
+            cursor.close();
+        }
+        cursor = mDb.rawQuery(QUERY_BROWSE, args);
+        if (cursor == null)
+            return null;
+        final ArrayList<MediaWrapper> list = new ArrayList<>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                list.add(new MediaWrapper(Uri.parse(cursor.getString(0)),
+                        0L,
+                        cursor.getLong(1),
+                        cursor.getInt(2),
+                        null,
+                        cursor.getString(3),
+                        null,
+                        null,
+                        null,
+                        null,
+                        0,
+                        0,
+                        cursor.getString(4),
+                        -2,
+                        -2,
+                        0,
+                        0,
+                        0L,
+                        0L));
+            }
+        } finally {
+            cursor.close();
+        }
+        return new BrowseListing(date, validator, list);
+    }
 }
@@ -28,6 +28,7 @@ import org.videolan.vlc.VLCApplication;
 import org.videolan.vlc.gui.helpers.BitmapUtil;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 public class MediaGroup extends MediaWrapper {
@@ -41,7 +42,7 @@ public class MediaGroup extends MediaWrapper {
                 media.getTime(),
                 media.getLength(),
                 MediaWrapper.TYPE_GROUP,
-                BitmapUtil.getPicture(media),
+                BitmapUtil.getPictureFromCache(media),
                 media.getTitle(),
                 media.getArtist(),
                 media.getGenre(),
@@ -89,54 +90,119 @@ public class MediaGroup extends MediaWrapper {
     }
 
     public static List<MediaGroup> group(MediaWrapper[] mediaList) {
-        ArrayList<MediaGroup> groups = new ArrayList<>();
+        final Grouper grouper = new Grouper(getMinGroupLength());
         for (MediaWrapper media : mediaList)
             if (media != null)
-                insertInto(groups, media);
-        return groups;
+                grouper.add(media);
+        return grouper.getGroups();
     }
 
     public static List<MediaGroup> group(List<MediaWrapper> mediaList) {
-        ArrayList<MediaGroup> groups = new ArrayList<>();
+        final Grouper grouper = new Grouper(getMinGroupLength());
         for (MediaWrapper media : mediaList)
             if (media != null)
-                insertInto(groups, media);
-        return groups;
+                grouper.add(media);
+        return grouper.getGroups();
     }
 
-    private static void insertInto(ArrayList<MediaGroup> groups, MediaWrapper media) {
-        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(VLCApplication.getAppContext());
-        int minGroupLengthValue = Integer.valueOf(preferences.getString("video_min_group_length", "6"));
-        for (MediaGroup mediaGroup : groups) {
-            String group = mediaGroup.getTitle();
-            String title = media.getTitle();
-
-            //Handle titles starting with "The"
-            int groupOffset = group.toLowerCase().startsWith("the") ? 4 : 0;
-            if (title.toLowerCase().startsWith("the"))
-                title = title.substring(4);
-
-            // find common prefix
-            int commonLength = 0;
-            String groupTitle = group.substring(groupOffset);
-            int minLength = Math.min(groupTitle.length(), title.length());
-            while (commonLength < minLength
-                    && groupTitle.toLowerCase().charAt(commonLength) == title.toLowerCase().charAt(commonLength))
-                ++commonLength;
-
-            if (commonLength >= minGroupLengthValue && minGroupLengthValue != 0) {
-                if (commonLength == group.length()) {
-                    // same prefix name, just add
-                    mediaGroup.add(media);
-                } else {
-                    // not the same prefix, but close : merge
-                    mediaGroup.merge(media, group.substring(0, commonLength+groupOffset));
-                }
+    public static int getMinGroupLength() {
+        final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(VLCApplication.getAppContext());
+        try {
+            return Integer.valueOf(preferences.getString("video_min_group_length", "6"));
+        } catch (NumberFormatException e) {
+            return 6;
+        }
+    }
+
+    /**
+     * Incremental grouping of medias by title prefix, see {@link TitlePrefixIndex}.
+     * Groups keep the order of their first media.
+     */
+    public static class Grouper {
+        private final TitlePrefixIndex mIndex;
+        /* Emptied groups are null */
+        private final ArrayList<MediaGroup> mGroups = new ArrayList<>();
+        /* Media id to group position */
+        private final HashMap<Long, Integer> mPositions = new HashMap<>();
+        private int mEmptied = 0;
+
+        public Grouper(int minGroupLength) {
+            mIndex = new TitlePrefixIndex(minGroupLength);
+        }
+
+        /**
+         * @return the group this media has been added to, new groups have a size of 1
+         */
+        public MediaGroup add(MediaWrapper media) {
+            final int position = mIndex.add(media.getTitle());
+            mPositions.put(media.getId(), position);
+            if (position == mGroups.size()) {
+                final MediaGroup group = new MediaGroup(media);
+                mGroups.add(group);
+                return group;
+            }
+            final MediaGroup group = mGroups.get(position);
+            group.merge(media, mIndex.getTitle(position));
+            return group;
+        }
+
+        /**
+         * Remove a media from its group, which is replaced by a new one without it.
+         *
+         * @return false if this media is unknown
+         */
+        public boolean remove(long id) {
+            final Integer position = mPositions.remove(id);
+            if (position == null)
+                return false;
+            final ArrayList<MediaWrapper> medias = new ArrayList<>(mGroups.get(position).getAll());
+            final ArrayList<String> titles = new ArrayList<>(medias.size());
+            for (int i = medias.size() - 1; i >= 0; --i)
+                if (medias.get(i).getId() == id)
+                    medias.remove(i);
+            for (MediaWrapper media : medias)
+                titles.add(media.getTitle());
+            mIndex.remove(position, titles);
+            if (medias.isEmpty()) {
+                mGroups.set(position, null);
+                ++mEmptied;
+            } else
+                mGroups.set(position, newGroup(medias, mIndex.getTitle(position)));
+            return true;
+        }
+
+        /**
+         * Add a media, or move it if it is already known. Groups it leaves or joins are replaced
+         * by new instances, so that displayed groups are never modified.
+         */
+        public void update(MediaWrapper media) {
+            remove(media.getId());
+            final int position = mIndex.add(media.getTitle());
+            mPositions.put(media.getId(), position);
+            if (position == mGroups.size()) {
+                mGroups.add(new MediaGroup(media));
                 return;
             }
+            final ArrayList<MediaWrapper> medias = new ArrayList<>(mGroups.get(position).getAll());
+            medias.add(media);
+            mGroups.set(position, newGroup(medias, mIndex.getTitle(position)));
         }
 
-        // does not match any group, so add one
-        groups.add(new MediaGroup(media));
+        private static MediaGroup newGroup(List<MediaWrapper> medias, String title) {
+            final MediaGroup group = new MediaGroup(medias.get(0));
+            for (int i = 1; i < medias.size(); ++i)
+                group.merge(medias.get(i), title);
+            return group;
+        }
+
+        public List<MediaGroup> getGroups() {
+            if (mEmptied == 0)
+                return mGroups;
+            final ArrayList<MediaGroup> groups = new ArrayList<>(mGroups.size() - mEmptied);
+            for (MediaGroup group : mGroups)
+                if (group != null)
+                    groups.add(group);
+            return groups;
+        }
     }
 }
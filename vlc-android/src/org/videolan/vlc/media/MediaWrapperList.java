@@ -26,6 +26,8 @@ import android.support.annotation.Nullable;
 import org.videolan.medialibrary.media.MediaWrapper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 public class MediaWrapperList {
@@ -35,16 +37,36 @@ public class MediaWrapperList {
         void onItemAdded(int index, String mrl);
         void onItemRemoved(int index, String mrl);
         void onItemMoved(int indexBefore, int indexAfter, String mrl);
+        /**
+         * Several items have been inserted at once, from index to index + count - 1.
+         */
+        void onItemsAdded(int index, int count);
+        /**
+         * Several items have been removed at once.
+         * @param positions ascending positions of the removed items, in the list before the removal
+         */
+        void onItemsRemoved(int[] positions);
     }
 
     private static final int EVENT_ADDED = 0;
     private static final int EVENT_REMOVED = 1;
     private static final int EVENT_MOVED = 2;
+    private static final int EVENT_BATCH_ADDED = 3;
+    private static final int EVENT_BATCH_REMOVED = 4;
 
     /* TODO: add locking */
     private ArrayList<MediaWrapper> mInternalList;
     private ArrayList<EventListener> mEventListenerList;
+    /*
+     * Sorted positions of each location, kept up to date on each change so that lookups are O(1).
+     * A change at some position drops the positions from it and indexes the new tail again, so
+     * it costs O(size - position): appending only indexes the new items.
+     * mIndexedCount is the number of indexed items, it only differs from the list size during a change.
+     */
+    private final HashMap<String, ArrayList<Integer>> mPositions = new HashMap<>();
+    private int mIndexedCount = 0;
     private int mVideoCount = 0;
+    private int mAudioCount = 0;
 
     public MediaWrapperList() {
         mEventListenerList = new ArrayList<>();
@@ -52,9 +74,14 @@ public class MediaWrapperList {
     }
 
     public void add(MediaWrapper media) {
-        mInternalList.add(media);
-        if (media.getType() == MediaWrapper.TYPE_VIDEO)
-            ++mVideoCount;
+        insert(mInternalList.size(), media);
+    }
+
+    /**
+     * Append several media, with a single listener event.
+     */
+    public void add(List<MediaWrapper> medias) {
+        insert(mInternalList.size(), medias);
     }
 
     public synchronized void addEventListener(EventListener listener) {
@@ -66,8 +93,19 @@ public class MediaWrapperList {
         mEventListenerList.remove(listener);
     }
 
-    private synchronized void signalEventListeners(int event, int arg1, int arg2, String mrl) {
-        for (EventListener listener : mEventListenerList) {
+    /* Listeners are called out of the monitor, so that they can't block other threads registering */
+    private void signalEventListeners(int event, int arg1, int arg2, String mrl) {
+        signalEventListeners(event, arg1, arg2, mrl, null);
+    }
+
+    private void signalEventListeners(int event, int arg1, int arg2, String mrl, int[] positions) {
+        final EventListener[] listeners;
+        synchronized (this) {
+            if (mEventListenerList.isEmpty())
+                return;
+            listeners = mEventListenerList.toArray(new EventListener[mEventListenerList.size()]);
+        }
+        for (EventListener listener : listeners) {
             switch (event) {
             case EVENT_ADDED:
                 listener.onItemAdded(arg1, mrl);
@@ -78,6 +116,12 @@ public class MediaWrapperList {
             case EVENT_MOVED:
                 listener.onItemMoved(arg1, arg2, mrl);
                 break;
+            case EVENT_BATCH_ADDED:
+                listener.onItemsAdded(arg1, arg2);
+                break;
+            case EVENT_BATCH_REMOVED:
+                listener.onItemsRemoved(positions);
+                break;
             }
         }
     }
@@ -86,11 +130,19 @@ public class MediaWrapperList {
      * Clear the media list. (remove all media)
      */
     public void clear() {
-        // Signal to observers of media being deleted.
-        for(int i = 0; i < mInternalList.size(); i++)
-            signalEventListeners(EVENT_REMOVED, i, -1, mInternalList.get(i).getLocation());
+        final int size = mInternalList.size();
         mInternalList.clear();
+        mPositions.clear();
+        mIndexedCount = 0;
         mVideoCount = 0;
+        mAudioCount = 0;
+        if (size == 0)
+            return;
+        // Signal to observers of media being deleted, all at once
+        final int[] positions = new int[size];
+        for (int i = 0; i < size; ++i)
+            positions[i] = i;
+        signalEventListeners(EVENT_BATCH_REMOVED, -1, -1, null, positions);
     }
 
     private boolean isValid(int position) {
@@ -101,10 +153,25 @@ public class MediaWrapperList {
         insert(position, new MediaWrapper(uri));
     }
     public void insert(int position, MediaWrapper media) {
+        unindexFrom(position);
         mInternalList.add(position, media);
+        updateIndex();
+        onAdded(media);
         signalEventListeners(EVENT_ADDED, position, -1, media.getLocation());
-        if (media.getType() == MediaWrapper.TYPE_VIDEO)
-            ++mVideoCount;
+    }
+
+    /**
+     * Insert several media, with a single listener event.
+     */
+    public void insert(int position, List<MediaWrapper> medias) {
+        if (medias.isEmpty())
+            return;
+        unindexFrom(position);
+        mInternalList.addAll(position, medias);
+        updateIndex();
+        for (MediaWrapper media : medias)
+            onAdded(media);
+        signalEventListeners(EVENT_BATCH_ADDED, position, medias.size(), null);
     }
 
     /**
@@ -119,42 +186,163 @@ public class MediaWrapperList {
               && endPosition >= 0 && endPosition <= mInternalList.size()))
             throw new IndexOutOfBoundsException("Indexes out of range");
 
+        final int first = Math.min(startPosition, endPosition);
+        unindexFrom(first);
         MediaWrapper toMove = mInternalList.get(startPosition);
         mInternalList.remove(startPosition);
         if (startPosition >= endPosition)
             mInternalList.add(endPosition, toMove);
         else
             mInternalList.add(endPosition - 1, toMove);
+        updateIndex();
         signalEventListeners(EVENT_MOVED, startPosition, endPosition, toMove.getLocation());
     }
 
+    /**
+     * Replace a media by another instance of the same item, no listener event is sent.
+     */
+    public void replace(int position, MediaWrapper media) {
+        if (!isValid(position))
+            return;
+        final MediaWrapper old = mInternalList.get(position);
+        final boolean moved = !old.getLocation().equals(media.getLocation());
+        if (moved)
+            unindexFrom(position);
+        mInternalList.set(position, media);
+        if (moved)
+            updateIndex();
+        onRemoved(old);
+        onAdded(media);
+    }
+
     public void remove(int position) {
         if (!isValid(position))
             return;
-        if (mInternalList.get(position).getType() == MediaWrapper.TYPE_VIDEO)
-            --mVideoCount;
-        String uri = mInternalList.get(position).getLocation();
-        mInternalList.remove(position);
-        signalEventListeners(EVENT_REMOVED, position, -1, uri);
+        unindexFrom(position);
+        final MediaWrapper media = mInternalList.remove(position);
+        updateIndex();
+        onRemoved(media);
+        signalEventListeners(EVENT_REMOVED, position, -1, media.getLocation());
+    }
+
+    /**
+     * Remove several media, with a single listener event.
+     * The list is compacted and the positions after the first removed one are indexed again once.
+     */
+    public void remove(int[] positions) {
+        final int[] sorted = positions.clone();
+        Arrays.sort(sorted);
+        final int size = mInternalList.size();
+        int count = 0;
+        for (int position : sorted)
+            if (position >= 0 && position < size && (count == 0 || sorted[count - 1] != position))
+                sorted[count++] = position;
+        if (count == 0)
+            return;
+        final int[] removed = count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+        unindexFrom(removed[0]);
+        int kept = removed[0];
+        for (int i = removed[0], next = 0; i < size; ++i) {
+            final MediaWrapper media = mInternalList.get(i);
+            if (next < count && removed[next] == i) {
+                ++next;
+                onRemoved(media);
+            } else
+                mInternalList.set(kept++, media);
+        }
+        mInternalList.subList(kept, size).clear();
+        updateIndex();
+        signalEventListeners(EVENT_BATCH_REMOVED, -1, -1, null, removed);
     }
 
+    /**
+     * Remove all the occurrences of a location.
+     */
     public void remove(String location) {
-        for (int i = 0; i < mInternalList.size(); ++i) {
-            String uri = mInternalList.get(i).getLocation();
-            if (uri.equals(location)) {
-                if (mInternalList.get(i).getType() == MediaWrapper.TYPE_VIDEO)
-                    --mVideoCount;
-                mInternalList.remove(i);
-                signalEventListeners(EVENT_REMOVED, i, -1, uri);
-                i--;
+        final int[] positions = getPositions(location);
+        if (positions.length > 0)
+            remove(positions);
+    }
+
+    public boolean contains(String location) {
+        return mPositions.containsKey(location);
+    }
+
+    /**
+     * @return the first position of this location, -1 if it is not in the list
+     */
+    public int indexOf(String location) {
+        final ArrayList<Integer> positions = mPositions.get(location);
+        return positions == null ? -1 : positions.get(0);
+    }
+
+    /**
+     * @return the positions of this location in ascending order, empty if it is not in the list
+     */
+    public int[] getPositions(String location) {
+        final ArrayList<Integer> positions = mPositions.get(location);
+        if (positions == null)
+            return new int[0];
+        final int[] array = new int[positions.size()];
+        for (int i = 0; i < array.length; ++i)
+            array[i] = positions.get(i);
+        return array;
+    }
+
+    /* Drop the positions from this one, before the list is changed there */
+    private void unindexFrom(int position) {
+        for (int i = mIndexedCount - 1; i >= position; --i) {
+            final String location = mInternalList.get(i).getLocation();
+            final ArrayList<Integer> positions = mPositions.get(location);
+            positions.remove(positions.size() - 1);
+            if (positions.isEmpty())
+                mPositions.remove(location);
+        }
+        mIndexedCount = Math.min(mIndexedCount, position);
+    }
+
+    /* Index the items after the mIndexedCount first ones, once the list has been changed */
+    private void updateIndex() {
+        final int size = mInternalList.size();
+        for (int i = mIndexedCount; i < size; ++i) {
+            final String location = mInternalList.get(i).getLocation();
+            ArrayList<Integer> positions = mPositions.get(location);
+            if (positions == null) {
+                positions = new ArrayList<>(1);
+                mPositions.put(location, positions);
             }
+            positions.add(i);
         }
+        mIndexedCount = size;
+    }
+
+    /* Media type counters, positions are indexed separately */
+    private void onAdded(MediaWrapper media) {
+        if (media.getType() == MediaWrapper.TYPE_VIDEO)
+            ++mVideoCount;
+        else if (media.getType() == MediaWrapper.TYPE_AUDIO)
+            ++mAudioCount;
+    }
+
+    private void onRemoved(MediaWrapper media) {
+        if (media.getType() == MediaWrapper.TYPE_VIDEO)
+            --mVideoCount;
+        else if (media.getType() == MediaWrapper.TYPE_AUDIO)
+            --mAudioCount;
     }
 
     public int size() {
         return mInternalList.size();
     }
 
+    public int getVideoCount() {
+        return mVideoCount;
+    }
+
+    public int getAudioCount() {
+        return mAudioCount;
+    }
+
     @Nullable
     public MediaWrapper getMedia(int position) {
         if (!isValid(position))
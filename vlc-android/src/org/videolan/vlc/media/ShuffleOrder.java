@@ -0,0 +1,229 @@
+/*****************************************************************************
+ * ShuffleOrder.java
+ *****************************************************************************
+ * Copyright © 2017 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.vlc.media;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random play order of a list, as a permutation of its positions and the inverse index.
+ *
+ * Items before the current one in the order have been played, items after it will be played next.
+ * Previous and next items are found in O(1), list changes cost O(size), or O(size log n) for a batch of n removals.
+ */
+public class ShuffleOrder {
+
+    private final Random mRandom;
+    /* Play order to list position */
+    private int[] mOrder = new int[0];
+    /* List position to play order */
+    private int[] mRank = new int[0];
+    private int mSize = 0;
+    /* Play order of the current item, -1 if none */
+    private int mCurrent = -1;
+
+    public ShuffleOrder(Random random) {
+        mRandom = random;
+    }
+
+    /**
+     * Shuffle all items again, starting with current one.
+     *
+     * @param current position of the current item, -1 for none
+     */
+    public void reset(int size, int current) {
+        ensureCapacity(size);
+        mSize = size;
+        for (int i = 0; i < size; ++i)
+            mOrder[i] = i;
+        // Fisher–Yates
+        for (int i = size - 1; i > 0; --i) {
+            final int j = mRandom.nextInt(i + 1);
+            final int tmp = mOrder[i];
+            mOrder[i] = mOrder[j];
+            mOrder[j] = tmp;
+        }
+        updateRanks();
+        mCurrent = -1;
+        setCurrent(current);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return position of the current item, -1 if none
+     */
+    public int getCurrent() {
+        return mCurrent >= 0 ? mOrder[mCurrent] : -1;
+    }
+
+    /**
+     * Set the current item. If it has not been played yet, it takes the place of the next item,
+     * which takes its former place in the order.
+     */
+    public void setCurrent(int position) {
+        if (position < 0 || position >= mSize) {
+            mCurrent = -1;
+            return;
+        }
+        final int rank = mRank[position];
+        if (rank > mCurrent) {
+            swap(rank, ++mCurrent);
+        } else
+            mCurrent = rank;
+    }
+
+    /**
+     * @return position of the next item, -1 if all items have been played
+     */
+    public int getNext() {
+        return mCurrent + 1 < mSize ? mOrder[mCurrent + 1] : -1;
+    }
+
+    /**
+     * @return position of the previous item, -1 if none
+     */
+    public int getPrevious() {
+        return mCurrent > 0 ? mOrder[mCurrent - 1] : -1;
+    }
+
+    /**
+     * An item has been inserted in the list, it is randomly placed among items not played yet.
+     */
+    public void insert(int position) {
+        ensureCapacity(mSize + 1);
+        for (int i = 0; i < mSize; ++i)
+            if (mOrder[i] >= position)
+                ++mOrder[i];
+        final int rank = mCurrent + 1 + mRandom.nextInt(mSize - mCurrent);
+        System.arraycopy(mOrder, rank, mOrder, rank + 1, mSize - rank);
+        mOrder[rank] = position;
+        ++mSize;
+        updateRanks();
+    }
+
+    /**
+     * Several items have been inserted in the list, from position to position + count - 1.
+     * Items not played yet, new ones included, are shuffled again.
+     */
+    public void insert(int position, int count) {
+        ensureCapacity(mSize + count);
+        for (int i = 0; i < mSize; ++i)
+            if (mOrder[i] >= position)
+                mOrder[i] += count;
+        for (int i = 0; i < count; ++i)
+            mOrder[mSize + i] = position + i;
+        mSize += count;
+        for (int i = mSize - 1; i > mCurrent + 1; --i) {
+            final int j = mCurrent + 1 + mRandom.nextInt(i - mCurrent);
+            final int tmp = mOrder[i];
+            mOrder[i] = mOrder[j];
+            mOrder[j] = tmp;
+        }
+        updateRanks();
+    }
+
+    /**
+     * An item has been removed from the list. If it was the current one, the previous item
+     * becomes current and the next one is unchanged.
+     */
+    public void remove(int position) {
+        if (position < 0 || position >= mSize)
+            return;
+        final int rank = mRank[position];
+        System.arraycopy(mOrder, rank + 1, mOrder, rank, mSize - rank - 1);
+        --mSize;
+        for (int i = 0; i < mSize; ++i)
+            if (mOrder[i] > position)
+                --mOrder[i];
+        updateRanks();
+        if (rank <= mCurrent)
+            --mCurrent;
+    }
+
+    /**
+     * Several items have been removed from the list at once, in a single pass.
+     * If the current one was removed, the closest previous item left becomes current.
+     *
+     * @param positions ascending positions of the removed items, in the list before the removal
+     */
+    public void remove(int[] positions) {
+        int kept = 0;
+        final int current = mCurrent;
+        for (int rank = 0; rank < mSize; ++rank) {
+            final int index = Arrays.binarySearch(positions, mOrder[rank]);
+            if (index >= 0) {
+                if (rank <= current)
+                    --mCurrent;
+                continue;
+            }
+            // Insertion point is the number of removed positions before this one
+            mOrder[kept++] = mOrder[rank] + index + 1;
+        }
+        mSize = kept;
+        updateRanks();
+    }
+
+    /**
+     * An item has been moved, following {@link MediaWrapperList#move(int, int)} semantics.
+     * Play order is unchanged.
+     */
+    public void move(int startPosition, int endPosition) {
+        if (startPosition < 0 || startPosition >= mSize)
+            return;
+        final int destination = startPosition >= endPosition ? endPosition : endPosition - 1;
+        for (int i = 0; i < mSize; ++i) {
+            final int position = mOrder[i];
+            if (position == startPosition)
+                mOrder[i] = destination;
+            else if (startPosition < position && position <= destination)
+                --mOrder[i];
+            else if (destination <= position && position < startPosition)
+                ++mOrder[i];
+        }
+        updateRanks();
+    }
+
+    private void swap(int rankA, int rankB) {
+        final int a = mOrder[rankA];
+        mOrder[rankA] = mOrder[rankB];
+        mOrder[rankB] = a;
+        mRank[mOrder[rankA]] = rankA;
+        mRank[mOrder[rankB]] = rankB;
+    }
+
+    private void updateRanks() {
+        for (int i = 0; i < mSize; ++i)
+            mRank[mOrder[i]] = i;
+    }
+
+    private void ensureCapacity(int size) {
+        if (mOrder.length >= size)
+            return;
+        final int capacity = Math.max(size, mOrder.length * 2);
+        final int[] order = new int[capacity];
+        System.arraycopy(mOrder, 0, order, 0, mSize);
+        mOrder = order;
+        mRank = new int[capacity];
+    }
+}
@@ -0,0 +1,153 @@
+/*****************************************************************************
+ * TitlePrefixIndex.java
+ *****************************************************************************
+ * Copyright © 2017 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.vlc.media;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Groups titles sharing a common prefix, case insensitive and ignoring a leading "The".
+ *
+ * Two titles belong to the same group if their first minLength letters are the same, so groups
+ * are indexed by this key and each insertion costs O(minLength + title length).
+ * Group title is the longest prefix common to all its titles.
+ * Removing a title costs O(minLength + length of the titles left in its group).
+ */
+public class TitlePrefixIndex {
+
+    private final int mMinLength;
+    private final ArrayList<Group> mGroups = new ArrayList<>();
+    private final HashMap<String, Group> mIndex = new HashMap<>();
+
+    private static class Group {
+        final String firstTitle;
+        final int offset, position;
+        int commonLength;
+        String title;
+
+        Group(String title, int offset, int position) {
+            this.firstTitle = title;
+            this.title = title;
+            this.offset = offset;
+            this.position = position;
+            this.commonLength = title.length() - offset;
+        }
+    }
+
+    /**
+     * @param minLength minimum common prefix length to group titles, 0 disables grouping
+     */
+    public TitlePrefixIndex(int minLength) {
+        mMinLength = minLength;
+    }
+
+    /**
+     * @return the position of the group this title has been added to
+     */
+    public int add(String title) {
+        if (title == null)
+            title = "";
+        final int offset = getOffset(title);
+        final String key = getKey(title, offset);
+        Group group = key != null ? mIndex.get(key) : null;
+        if (group == null) {
+            group = new Group(title, offset, mGroups.size());
+            if (key != null)
+                mIndex.put(key, group);
+            mGroups.add(group);
+            return group.position;
+        }
+        final int length = Math.min(group.commonLength, commonPrefixLength(group.firstTitle, group.offset, title, offset));
+        if (length != group.commonLength) {
+            group.commonLength = length;
+            group.title = group.firstTitle.substring(0, group.offset + length);
+        }
+        return group.position;
+    }
+
+    /**
+     * A title has been removed from a group, its title is computed again from the titles left.
+     * Positions of the other groups don't change, an emptied group keeps its position.
+     *
+     * @param titles titles left in the group, in insertion order
+     */
+    public void remove(int position, List<String> titles) {
+        final Group former = mGroups.get(position);
+        if (former == null)
+            return;
+        final String key = getKey(former.firstTitle, former.offset);
+        if (titles.isEmpty()) {
+            mGroups.set(position, null);
+            if (key != null && mIndex.get(key) == former)
+                mIndex.remove(key);
+            return;
+        }
+        final String first = titles.get(0) != null ? titles.get(0) : "";
+        final Group group = new Group(first, getOffset(first), position);
+        for (int i = 1; i < titles.size(); ++i) {
+            final String title = titles.get(i) != null ? titles.get(i) : "";
+            group.commonLength = Math.min(group.commonLength,
+                    commonPrefixLength(group.firstTitle, group.offset, title, getOffset(title)));
+        }
+        group.title = first.substring(0, group.offset + group.commonLength);
+        mGroups.set(position, group);
+        if (key != null)
+            mIndex.put(key, group);
+    }
+
+    /**
+     * @return the number of group positions, emptied groups included
+     */
+    public int size() {
+        return mGroups.size();
+    }
+
+    /**
+     * @return the group title, null if it has been emptied
+     */
+    public String getTitle(int position) {
+        final Group group = mGroups.get(position);
+        return group != null ? group.title : null;
+    }
+
+    private String getKey(String title, int offset) {
+        if (mMinLength == 0 || title.length() - offset < mMinLength)
+            return null;
+        final char[] key = new char[mMinLength];
+        for (int i = 0; i < mMinLength; ++i)
+            key[i] = Character.toLowerCase(title.charAt(offset + i));
+        return new String(key);
+    }
+
+    private static int getOffset(String title) {
+        return title.length() >= 4 && title.regionMatches(true, 0, "the", 0, 3) ? 4 : 0;
+    }
+
+    private static int commonPrefixLength(String a, int offsetA, String b, int offsetB) {
+        final int max = Math.min(a.length() - offsetA, b.length() - offsetB);
+        int length = 0;
+        while (length < max && Character.toLowerCase(a.charAt(offsetA + length))
+                == Character.toLowerCase(b.charAt(offsetB + length)))
+            ++length;
+        return length;
+    }
+}
@@ -31,6 +31,7 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
+import android.support.v4.util.LruCache;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -61,6 +62,15 @@ public class FileUtils {
      * Size of the chunks that will be hashed in bytes (64 KB)
      */
     private static final int HASH_CHUNK_SIZE = 64 * 1024;
+    /* Hashes by path, size and modification date */
+    private static final LruCache<String, String> sHashCache = new LruCache<>(500);
+    /* One chunk buffer per hashing thread */
+    private static final ThreadLocal<ByteBuffer> sHashBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(HASH_CHUNK_SIZE);
+        }
+    };
 
     public interface Callback {
         void onResult(boolean success);
@@ -289,29 +299,33 @@ public class FileUtils {
         return (file.exists() && file.canWrite());
     }
 
+    /**
+     * OpenSubtitles hash of this file: its size plus the sums of its first and last 64KB.
+     * Results are cached by path, size and modification date.
+     */
     public static String computeHash(File file) {
-        long size = file.length();
-        long chunkSizeForFile = Math.min(HASH_CHUNK_SIZE, size);
-        long head = 0;
-        long tail = 0;
+        final long size = file.length();
+        final String key = file.getPath() + '|' + size + '|' + file.lastModified();
+        synchronized (sHashCache) {
+            final String hash = sHashCache.get(key);
+            if (hash != null)
+                return hash;
+        }
+        final int chunkSizeForFile = (int) Math.min(HASH_CHUNK_SIZE, size);
+        final ByteBuffer bb = sHashBuffer.get();
         FileInputStream fis = null;
         FileChannel fileChannel = null;
         try {
             fis = new FileInputStream(file);
             fileChannel = fis.getChannel();
-            head = computeHashForChunk(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, chunkSizeForFile));
-
+            final long head = computeHashForChunk(readChunk(fileChannel, bb, 0, chunkSizeForFile));
             //Alternate way to calculate tail hash for files over 4GB.
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)chunkSizeForFile);
-            int read;
-            long position = Math.max(size - HASH_CHUNK_SIZE, 0);
-            while ((read = fileChannel.read(bb, position)) > 0) {
-                position += read;
+            final long tail = computeHashForChunk(readChunk(fileChannel, bb, Math.max(size - HASH_CHUNK_SIZE, 0), chunkSizeForFile));
+            final String hash = String.format("%016x", size + head + tail);
+            synchronized (sHashCache) {
+                sHashCache.put(key, hash);
             }
-            bb.flip();
-            tail = computeHashForChunk(bb);
-
-            return String.format("%016x", size + head + tail);
+            return hash;
         } catch (FileNotFoundException e1) {
             e1.printStackTrace();
             return null;
@@ -325,6 +339,17 @@ public class FileUtils {
         }
     }
 
+    /* Read length bytes from position in the reused buffer, ready to be read */
+    private static ByteBuffer readChunk(FileChannel channel, ByteBuffer bb, long position, int length) throws IOException {
+        bb.clear();
+        bb.limit(length);
+        int read;
+        while (bb.hasRemaining() && (read = channel.read(bb, position)) > 0)
+            position += read;
+        bb.flip();
+        return bb;
+    }
+
     private static long computeHashForChunk(ByteBuffer buffer) {
         LongBuffer longBuffer = buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
         long hash = 0;
@@ -3,6 +3,7 @@ package org.videolan.vlc.util;
 import android.support.v7.util.DiffUtil;
 
 import org.videolan.medialibrary.media.MediaLibraryItem;
+import org.videolan.medialibrary.media.MediaWrapper;
 
 import java.util.List;
 
@@ -10,10 +11,14 @@ import java.util.List;
 public class MediaItemDiffCallback extends DiffUtil.Callback {
     private static final String TAG = "MediaItemDiffCallback";
     private List<? extends MediaLibraryItem> oldList, newList;
+    /* Lazily computed content hashes, 0 meaning not computed yet */
+    private int[] oldHashes, newHashes;
 
     public MediaItemDiffCallback(List<? extends MediaLibraryItem> oldList, List<? extends MediaLibraryItem> newList) {
         this.oldList = oldList;
         this.newList = newList;
+        oldHashes = new int[getOldListSize()];
+        newHashes = new int[getNewListSize()];
     }
 
     @Override
@@ -35,6 +40,41 @@ public class MediaItemDiffCallback extends DiffUtil.Callback {
 
     @Override
     public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-        return true;
+        MediaLibraryItem oldItem = oldList.get(oldItemPosition);
+        MediaLibraryItem newItem = newList.get(newItemPosition);
+        if (oldItem == newItem)
+            return true;
+        if (oldHashes[oldItemPosition] == 0)
+            oldHashes[oldItemPosition] = getContentHash(oldItem);
+        if (newHashes[newItemPosition] == 0)
+            newHashes[newItemPosition] = getContentHash(newItem);
+        return oldHashes[oldItemPosition] == newHashes[newItemPosition];
+    }
+
+    /**
+     * Hash of the item fields displayed in lists, never 0.
+     */
+    public static int getContentHash(MediaLibraryItem item) {
+        if (item == null)
+            return 1;
+        int hash = 17;
+        hash = 31 * hash + hashCode(item.getTitle());
+        hash = 31 * hash + hashCode(item.getDescription());
+        hash = 31 * hash + hashCode(item.getArtworkMrl());
+        if (item.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
+            final MediaWrapper media = (MediaWrapper) item;
+            hash = 31 * hash + hashCode(media.getLength());
+            hash = 31 * hash + hashCode(media.getTime());
+            hash = 31 * hash + hashCode(media.getSeen());
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int hashCode(String string) {
+        return string == null ? 0 : string.hashCode();
+    }
+
+    private static int hashCode(long value) {
+        return (int) (value ^ (value >>> 32));
     }
 }
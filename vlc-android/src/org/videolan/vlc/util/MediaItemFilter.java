@@ -1,5 +1,6 @@
 package org.videolan.vlc.util;
 
+import android.util.SparseArray;
 import android.widget.Filter;
 
 import org.videolan.medialibrary.media.MediaLibraryItem;
@@ -16,23 +17,159 @@ public abstract class MediaItemFilter extends Filter {
 
     protected List<MediaLibraryItem> referenceList;
 
+    /*
+     * Search index, only accessed from the filtering thread.
+     * Lowercase titles and, for each pair of consecutive chars, the positions of titles containing it.
+     */
+    private List<? extends MediaLibraryItem> mIndexedData;
+    private String[] mTitles;
+    private SparseArray<Postings> mIndex;
+    /* Last query and its matching positions, to refine results while the user types */
+    private String[] mLastQueries;
+    private int[] mLastMatches;
+
     @Override
     protected FilterResults performFiltering(CharSequence charSequence) {
-        final String[] queryStrings = charSequence.toString().trim().toLowerCase().split(" ");
+        final String[] queryStrings = getQueries(charSequence);
+        final List<? extends MediaLibraryItem> data = initData();
+        if (data != mIndexedData || mTitles == null || data.size() != mTitles.length)
+            buildIndex(data);
+        final int[] matches = mLastMatches != null && refines(queryStrings, mLastQueries)
+                ? filter(mLastMatches, queryStrings)
+                : search(queryStrings);
+        mLastQueries = queryStrings;
+        mLastMatches = matches;
         FilterResults results = new FilterResults();
-        ArrayList<MediaLibraryItem> list = new ArrayList<>();
-        for (MediaLibraryItem item : initData()) {
-            for (String queryString : queryStrings) {
-                if (queryString.length() < 2)
-                    continue;
-                if (item.getTitle() != null && item.getTitle().toLowerCase().contains(queryString)) {
-                    list.add(item);
-                    break ; //avoid duplicates in search results, and skip useless processing
-                }
-            }
-        }
+        ArrayList<MediaLibraryItem> list = new ArrayList<>(matches.length);
+        for (int position : matches)
+            list.add(data.get(position));
         results.values = list;
         results.count = list.size();
         return results;
     }
+
+    /* Query words shorter than 2 chars are ignored */
+    private static String[] getQueries(CharSequence charSequence) {
+        final String[] words = charSequence.toString().trim().toLowerCase().split(" ");
+        int count = 0;
+        for (String word : words)
+            if (word.length() >= 2)
+                words[count++] = word;
+        final String[] queries = new String[count];
+        System.arraycopy(words, 0, queries, 0, count);
+        return queries;
+    }
+
+    private void buildIndex(List<? extends MediaLibraryItem> data) {
+        final int size = data.size();
+        mIndexedData = data;
+        mTitles = new String[size];
+        mIndex = new SparseArray<>();
+        mLastQueries = null;
+        mLastMatches = null;
+        for (int i = 0; i < size; ++i) {
+            final MediaLibraryItem item = data.get(i);
+            final String title = item == null || item.getTitle() == null ? "" : item.getTitle().toLowerCase();
+            mTitles[i] = title;
+            for (int c = 0; c < title.length() - 1; ++c) {
+                final int key = getKey(title, c);
+                Postings postings = mIndex.get(key);
+                if (postings == null) {
+                    postings = new Postings();
+                    mIndex.put(key, postings);
+                }
+                postings.add(i);
+            }
+        }
+    }
+
+    /**
+     * Items match if their title contains at least one of the queries.
+     * For each query, only titles listed for its rarest pair of chars are checked.
+     */
+    private int[] search(String[] queries) {
+        final boolean[] matching = new boolean[mTitles.length];
+        int count = 0;
+        for (String query : queries) {
+            Postings candidates = null;
+            for (int c = 0; c < query.length() - 1; ++c) {
+                final Postings postings = mIndex.get(getKey(query, c));
+                if (postings == null) {
+                    candidates = null;
+                    break;
+                }
+                if (candidates == null || postings.size < candidates.size)
+                    candidates = postings;
+            }
+            if (candidates == null)
+                continue;
+            for (int i = 0; i < candidates.size; ++i) {
+                final int position = candidates.items[i];
+                if (!matching[position] && mTitles[position].contains(query)) {
+                    matching[position] = true;
+                    ++count;
+                }
+            }
+        }
+        final int[] matches = new int[count];
+        for (int position = 0, i = 0; i < count; ++position)
+            if (matching[position])
+                matches[i++] = position;
+        return matches;
+    }
+
+    private int[] filter(int[] positions, String[] queries) {
+        final int[] matches = new int[positions.length];
+        int count = 0;
+        for (int position : positions)
+            for (String query : queries)
+                if (mTitles[position].contains(query)) {
+                    matches[count++] = position;
+                    break;
+                }
+        final int[] result = new int[count];
+        System.arraycopy(matches, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * @return true if all items matching queries also match previous ones,
+     * i.e. each query contains one of the previous queries.
+     */
+    private static boolean refines(String[] queries, String[] previous) {
+        if (queries.length == 0)
+            return true;
+        for (String query : queries) {
+            boolean refined = false;
+            for (String old : previous)
+                if (query.contains(old)) {
+                    refined = true;
+                    break;
+                }
+            if (!refined)
+                return false;
+        }
+        return true;
+    }
+
+    private static int getKey(String string, int index) {
+        return (string.charAt(index) << 16) | string.charAt(index + 1);
+    }
+
+    /* Sorted positions of the titles containing a pair of chars */
+    private static class Postings {
+        int[] items = new int[4];
+        int size = 0;
+
+        void add(int position) {
+            if (size > 0 && items[size - 1] == position)
+                return;
+            if (size == items.length) {
+                final int[] grown = new int[size * 2];
+                System.arraycopy(items, 0, grown, 0, size);
+                items = grown;
+            }
+            items[size++] = position;
+        }
+    }
 }
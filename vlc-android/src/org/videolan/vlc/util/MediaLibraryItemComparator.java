@@ -1,15 +1,17 @@
 package org.videolan.vlc.util;
 
-import android.text.TextUtils;
-
 import org.videolan.medialibrary.media.Album;
+import org.videolan.medialibrary.media.DummyItem;
 import org.videolan.medialibrary.media.MediaLibraryItem;
 import org.videolan.medialibrary.media.MediaWrapper;
 import org.videolan.medialibrary.media.Playlist;
 import org.videolan.vlc.gui.audio.AudioBrowserAdapter;
 import org.videolan.vlc.gui.video.VideoListAdapter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 
 public class MediaLibraryItemComparator implements Comparator<MediaLibraryItem> {
@@ -56,74 +58,209 @@ public class MediaLibraryItemComparator implements Comparator<MediaLibraryItem>
         sortDirection = 1;
     }
 
+    /**
+     * Section header of an item, for lists sorted with sections.
+     */
+    public interface SectionProvider {
+        /**
+         * @return the header of the item section, a new one starts whenever it changes
+         */
+        String getSection(MediaLibraryItem item);
+    }
+
     @Override
     public int compare(MediaLibraryItem item1, MediaLibraryItem item2) {
-        if (item1 == null)
-            return item2 == null ? 0 : -1;
-        else if (item2 == null)
-            return 1;
-
-        if (item1.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-            int type1 = ((MediaWrapper)item1).getType();
-            int type2 = ((MediaWrapper)item2).getType();
-            if (type1 == MediaWrapper.TYPE_DIR && type2 != MediaWrapper.TYPE_DIR)
-                return -1;
-            else if (type1 != MediaWrapper.TYPE_DIR && type2 == MediaWrapper.TYPE_DIR)
-                return 1;
+        final int sortby = sortBy;
+        return compareKeys(getKey(item1, sortby, adapterType), getKey(item2, sortby, adapterType), sortby, sortDirection);
+    }
+
+    /**
+     * Sort the list in place, with the same order as {@link #compare(MediaLibraryItem, MediaLibraryItem)}.
+     * Sort keys are computed once per item and cached with it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends MediaLibraryItem> void sort(List<T> list) {
+        final SortKey[] keys = sortKeys(list);
+        if (keys == null)
+            return;
+        for (int i = 0; i < keys.length; ++i)
+            list.set(i, (T) keys[i].item);
+    }
+
+    /**
+     * Sort these items and insert section headers in the same pass as the sorted items are written.
+     * Section headers (TYPE_DUMMY items) of the input list are dropped.
+     * @return a new sorted list with section headers
+     */
+    public ArrayList<MediaLibraryItem> sort(List<? extends MediaLibraryItem> items, SectionProvider sections) {
+        final ArrayList<MediaLibraryItem> list = new ArrayList<>(items.size());
+        for (MediaLibraryItem item : items)
+            if (item.getItemType() != MediaLibraryItem.TYPE_DUMMY)
+                list.add(item);
+        final SortKey[] keys = sortKeys(list);
+        final ArrayList<MediaLibraryItem> result = new ArrayList<>(list.size() + 32);
+        String currentSection = null;
+        for (int i = 0; i < list.size(); ++i) {
+            final MediaLibraryItem item = keys != null ? keys[i].item : list.get(i);
+            final String section = sections.getSection(item);
+            if (section != null && !section.equals(currentSection)) {
+                currentSection = section;
+                result.add(new DummyItem(section));
+            }
+            result.add(item);
         }
-        int compare = 0;
-
-        switch (sortBy) {
-            case SORT_BY_TITLE:
-                compare = item1.getTitle().toUpperCase(Locale.ENGLISH).compareTo(item2.getTitle().toUpperCase(Locale.ENGLISH));
-                break;
-            case SORT_BY_ARTIST:
-                if (item1.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-                    String artist1 = ((MediaWrapper)item1).getArtist();
-                    String artist2 = ((MediaWrapper)item2).getArtist();
-                    if (TextUtils.equals(artist1,artist2))
-                        compare = item1.getTitle().toUpperCase(Locale.ENGLISH).compareTo(item2.getTitle().toUpperCase(Locale.ENGLISH));
-                    else
-                        compare = artist1.toUpperCase(Locale.ENGLISH).compareTo(artist2.toUpperCase(Locale.ENGLISH));
-                }
-                break;
-            case SORT_BY_ALBUM:
-                if (item1.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-                    String album1 = ((MediaWrapper)item1).getAlbum();
-                    String album2 = ((MediaWrapper)item2).getAlbum();
-                    if (album1.equals(album2))
-                        return ((MediaWrapper) item1).getTrackNumber() - ((MediaWrapper) item2).getTrackNumber();
-                    else
-                        compare = album1.toUpperCase(Locale.ENGLISH).compareTo(album2.toUpperCase(Locale.ENGLISH));
-                }
-                break;
-            case SORT_BY_LENGTH:
-                if (item1.getItemType() == MediaLibraryItem.TYPE_ALBUM) {
-                    compare = ((Album)item1).getDuration() - (((Album)item2).getDuration());
-                } else if (item1.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-                    compare = ((Long) ((MediaWrapper)item1).getLength()).compareTo(((MediaWrapper)item2).getLength());
-                }
-                break;
-            case SORT_BY_DATE:
-                if (item1.getItemType() == MediaLibraryItem.TYPE_ALBUM) {
-                    compare = ((Album)item1).getReleaseYear() - ((Album)item2).getReleaseYear();
-                } else if (item1.getItemType() == MediaLibraryItem.TYPE_MEDIA) {
-                    if (adapterType == ADAPTER_AUDIO) {
-                        int date1 = (((MediaWrapper) item1).getDate() == null) ? 0 : Integer.valueOf(((MediaWrapper) item1).getDate());
-                        int date2 = (((MediaWrapper) item2).getDate() == null) ? 0 : Integer.valueOf(((MediaWrapper) item2).getDate());
-                        compare = date1 - date2;
-                    } else if (adapterType == ADAPTER_FILE || adapterType == ADAPTER_VIDEO)
-                        compare = ((Long) ((MediaWrapper)item1).getLastModified()).compareTo(((MediaWrapper)item2).getLastModified());
-                }
-                break;
-            case SORT_BY_NUMBER:
-                if (item1.getItemType() == MediaLibraryItem.TYPE_ALBUM) {
-                    compare = ((Album)item1).getTracksCount() - ((Album)item2).getTracksCount();
-                }
-                break;
+        return result;
+    }
+
+    /* Sorted keys of the list items, null if there is nothing to sort */
+    private <T extends MediaLibraryItem> SortKey[] sortKeys(List<T> list) {
+        final int size = list.size();
+        if (size < 2)
+            return null;
+        final int sortby = sortBy, direction = sortDirection;
+        final SortKey[] keys = new SortKey[size];
+        for (int i = 0; i < size; ++i)
+            keys[i] = getKey(list.get(i), sortby, adapterType);
+        Arrays.sort(keys, new Comparator<SortKey>() {
+            @Override
+            public int compare(SortKey key1, SortKey key2) {
+                return compareKeys(key1, key2, sortby, direction);
+            }
+        });
+        return keys;
+    }
+
+    /* Key cached with the item, computed again if the sort mode or the item strings changed.
+     * Numeric fields are not read again: items drop their key when they change in place. */
+    private static SortKey getKey(MediaLibraryItem item, int sortby, int adapterType) {
+        if (item == null)
+            return new SortKey(null, sortby, adapterType);
+        final Object cached = item.getSortKey();
+        if (cached instanceof SortKey && ((SortKey) cached).isValid(item, sortby, adapterType))
+            return (SortKey) cached;
+        final SortKey key = new SortKey(item, sortby, adapterType);
+        item.setSortKey(key);
+        return key;
+    }
+
+    private static int compareKeys(SortKey key1, SortKey key2, int sortby, int direction) {
+        if (key1.rank != key2.rank)
+            return key1.rank - key2.rank;
+        if (key1.item == null)
+            return 0;
+        int compare = key1.primary.compareTo(key2.primary);
+        if (compare == 0) {
+            // Tracks stay in album order whatever the direction
+            if (sortby == SORT_BY_ALBUM)
+                return key1.value < key2.value ? -1 : key1.value == key2.value ? 0 : 1;
+            compare = key1.secondary.compareTo(key2.secondary);
+            if (compare == 0)
+                compare = key1.value < key2.value ? -1 : key1.value == key2.value ? 0 : 1;
         }
+        return direction * compare;
+    }
+
+    private static final class SortKey {
+        final MediaLibraryItem item;
+        final int sortby, adapterType;
+        /* Item strings the key was computed from, compared by reference to detect changes */
+        final String source1, source2;
+        /* null items first, then directories */
+        final int rank;
+        final String primary, secondary;
+        final long value;
 
-        return sortDirection * compare;
+        SortKey(MediaLibraryItem item, int sortby, int adapterType) {
+            this.item = item;
+            this.sortby = sortby;
+            this.adapterType = adapterType;
+            source1 = getSource(item, sortby, 1);
+            source2 = getSource(item, sortby, 2);
+            if (item == null) {
+                rank = 0;
+                primary = secondary = "";
+                value = 0L;
+                return;
+            }
+            final MediaWrapper media = item.getItemType() == MediaLibraryItem.TYPE_MEDIA ? (MediaWrapper) item : null;
+            rank = getRank(media);
+            String primary = "", secondary = "";
+            switch (sortby) {
+                case SORT_BY_TITLE:
+                    primary = upperCase(source1);
+                    break;
+                case SORT_BY_ARTIST:
+                case SORT_BY_ALBUM:
+                    primary = upperCase(source1);
+                    secondary = upperCase(source2);
+                    break;
+            }
+            this.primary = primary;
+            this.secondary = secondary;
+            value = getValue(item, media, sortby, adapterType, source1);
+        }
+
+        /* Only compares references, so that comparisons don't compute anything */
+        boolean isValid(MediaLibraryItem item, int sortby, int adapterType) {
+            return this.sortby == sortby && this.adapterType == adapterType && this.item == item
+                    && getSource(item, sortby, 1) == source1 && getSource(item, sortby, 2) == source2;
+        }
+
+        private static int getRank(MediaWrapper media) {
+            return media != null && media.getType() == MediaWrapper.TYPE_DIR ? 1 : 2;
+        }
+
+        private static long getValue(MediaLibraryItem item, MediaWrapper media, int sortby, int adapterType, String source1) {
+            switch (sortby) {
+                case SORT_BY_ALBUM:
+                    return media != null ? media.getTrackNumber() : 0L;
+                case SORT_BY_LENGTH:
+                    return media != null ? media.getLength() : getLength(item);
+                case SORT_BY_DATE:
+                    if (item.getItemType() == MediaLibraryItem.TYPE_ALBUM)
+                        return ((Album) item).getReleaseYear();
+                    else if (media != null)
+                        return adapterType == ADAPTER_AUDIO ? parseYear(source1) : media.getLastModified();
+                    return 0L;
+                case SORT_BY_NUMBER:
+                    return item.getItemType() == MediaLibraryItem.TYPE_ALBUM ? ((Album) item).getTracksCount() : 0L;
+                default:
+                    return 0L;
+            }
+        }
+
+        /* Strings of the item used for this sort mode, null if none */
+        private static String getSource(MediaLibraryItem item, int sortby, int index) {
+            if (item == null)
+                return null;
+            final MediaWrapper media = item.getItemType() == MediaLibraryItem.TYPE_MEDIA ? (MediaWrapper) item : null;
+            switch (sortby) {
+                case SORT_BY_TITLE:
+                    return index == 1 ? item.getTitle() : null;
+                case SORT_BY_ARTIST:
+                    return media == null ? null : index == 1 ? media.getArtist() : media.getTitle();
+                case SORT_BY_ALBUM:
+                    return media != null && index == 1 ? media.getAlbum() : null;
+                case SORT_BY_DATE:
+                    return media != null && index == 1 ? media.getDate() : null;
+                default:
+                    return null;
+            }
+        }
+
+        private static String upperCase(String string) {
+            return string == null ? "" : string.toUpperCase(Locale.ENGLISH);
+        }
+
+        private static int parseYear(String date) {
+            if (date == null)
+                return 0;
+            try {
+                return Integer.parseInt(date);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
     }
 
     public static String getYear(MediaLibraryItem media) {
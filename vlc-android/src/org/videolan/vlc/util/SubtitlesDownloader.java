@@ -61,11 +61,17 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.MissingResourceException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 import de.timroes.axmlrpc.XMLRPCClient;
@@ -82,6 +88,8 @@ public class SubtitlesDownloader {
     private final String OpenSubtitlesAPIUrl = "http://api.opensubtitles.org/xml-rpc";
     private final String HTTP_USER_AGENT = "VLSub";
     private final String USER_AGENT = "VLSub 0.9";
+    /* Max concurrent hash computations and downloads */
+    private static final int MAX_PARALLEL_TASKS = 4;
 
     private HashMap<String, Object> map = null;
     private XMLRPCClient mClient;
@@ -121,9 +129,16 @@ public class SubtitlesDownloader {
         VLCApplication.runBackground(new Runnable() {
             @Override
             public void run() {
-                AndroidDevices.SUBTITLES_DIRECTORY.mkdirs();
-                if (logIn()){
-                    getSubtitles(mediaList, finalLanguages);
+                final ExecutorService executor = Executors.newFixedThreadPool(MAX_PARALLEL_TASKS, VLCApplication.THREAD_FACTORY);
+                try {
+                    // Hashes are computed while logging in
+                    final List<Future<String>> hashes = computeHashes(executor, mediaList);
+                    AndroidDevices.SUBTITLES_DIRECTORY.mkdirs();
+                    if (logIn()){
+                        getSubtitles(executor, mediaList, hashes, finalLanguages);
+                    }
+                } finally {
+                    executor.shutdownNow();
                 }
                 mHandler.sendEmptyMessage(DIALOG_HIDE);
             }
@@ -138,7 +153,7 @@ public class SubtitlesDownloader {
     private boolean logIn() {
         mHandler.sendEmptyMessage(DIALOG_SHOW);
         try {
-            mClient = new XMLRPCClient(new URL(OpenSubtitlesAPIUrl));
+            mClient = new XMLRPCClient(new URL(OpenSubtitlesAPIUrl), XMLRPCClient.FLAGS_STREAMING | XMLRPCClient.FLAGS_GZIP);
             map = ((HashMap<String, Object>) mClient.call("LogIn","","","fre",USER_AGENT));
             mToken = (String) map.get("token");
         } catch (XMLRPCException e) {
@@ -173,7 +188,7 @@ public class SubtitlesDownloader {
     }
 
     @SuppressWarnings("unchecked")
-    private void getSubtitles(final List<MediaWrapper> mediaList, List<String> languages) {
+    private void getSubtitles(ExecutorService executor, final List<MediaWrapper> mediaList, List<Future<String>> hashes, List<String> languages) {
         mHandler.obtainMessage(DIALOG_UPDATE_MSG,R.string.downloading_subtitles, 0).sendToTarget();
         for (String language : languages)
             language = getCompliantLanguageID(language);
@@ -182,7 +197,9 @@ public class SubtitlesDownloader {
         final HashMap<String, String> index = new HashMap<>();
         final HashMap<String, ArrayList<String>> success = new HashMap<>();
         final HashMap<String, ArrayList<String>> fails = new HashMap<>();
-        ArrayList<HashMap<String, String>> videoSearchList = prepareRequestList(mediaList, languages, index, true);
+        final List<Future<?>> downloads = new ArrayList<>();
+        final Set<String> downloaded = new HashSet<>();
+        ArrayList<HashMap<String, String>> videoSearchList = prepareRequestList(mediaList, hashes, languages, index, true);
         Object[] subtitleMaps;
         if (!videoSearchList.isEmpty()) {
             try {
@@ -206,8 +223,10 @@ public class SubtitlesDownloader {
                         subLanguageID = ((HashMap<String, String>) map).get("SubLanguageID");
                         subDownloadLink = ((HashMap<String, String>) map).get("SubDownloadLink");
                         fileUrl = index.get(movieHash);
-                        if (fileUrl == null)
+                        if (fileUrl == null) {
+                            waitFor(downloads);
                             return;
+                        }
 
                         fileName = fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
                         if (success.containsKey(fileName) && success.get(fileName).contains(subLanguageID)){
@@ -221,9 +240,8 @@ public class SubtitlesDownloader {
                                 success.put(fileName, newLanguage);
                             }
                         }
-                        downloadSubtitles(subDownloadLink, fileUrl, fileName, srtFormat, subLanguageID);
-                        if (!single)
-                            mHandler.obtainMessage(DIALOG_UPDATE_PROGRESS, mediaList.size(), success.size()).sendToTarget();
+                        downloads.add(executor.submit(newDownload(subDownloadLink, fileUrl, fileName, srtFormat, subLanguageID,
+                                single ? null : downloaded, mediaList.size())));
                     }
                 }
             }
@@ -239,13 +257,14 @@ public class SubtitlesDownloader {
                 notFoundFiles.add(media);
         }
         if (!stop && !notFoundFiles.isEmpty() &&
-                !(videoSearchList = prepareRequestList(notFoundFiles, languages, index, false)).isEmpty()) {
+                !(videoSearchList = prepareRequestList(notFoundFiles, null, languages, index, false)).isEmpty()) {
             try {
                 map = (HashMap<String, Object>) mClient.call("SearchSubtitles", mToken,
                         videoSearchList);
             } catch (Throwable e) { //for various service outages
                 stop = true;
                 showSnackBar(R.string.service_unavailable);
+                waitFor(downloads);
                 return;
             }
             if (map.get("data") instanceof Object[]) {
@@ -277,13 +296,13 @@ public class SubtitlesDownloader {
                                 success.put(fileName, newLanguage);
                             }
                         }
-                        downloadSubtitles(subDownloadLink, fileUrl, fileName, srtFormat, subLanguageID);
-                        if (!single)
-                            mHandler.obtainMessage(DIALOG_UPDATE_PROGRESS, mediaList.size(), success.size()).sendToTarget();
+                        downloads.add(executor.submit(newDownload(subDownloadLink, fileUrl, fileName, srtFormat, subLanguageID,
+                                single ? null : downloaded, mediaList.size())));
                     }
                 }
             }
         }
+        waitFor(downloads);
         //fill fails list
         for (MediaWrapper media : mediaList){
             String fileName;
@@ -324,6 +343,55 @@ public class SubtitlesDownloader {
         logOut();
     }
 
+    private Runnable newDownload(final String subUrl, final String path, final String fileName, final String subFormat,
+                                 final String language, final Set<String> downloaded, final int total) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (stop)
+                    return;
+                downloadSubtitles(subUrl, path, fileName, subFormat, language);
+                if (downloaded != null) {
+                    final int count;
+                    synchronized (downloaded) {
+                        downloaded.add(fileName);
+                        count = downloaded.size();
+                    }
+                    mHandler.obtainMessage(DIALOG_UPDATE_PROGRESS, total, count).sendToTarget();
+                }
+            }
+        };
+    }
+
+    private static void waitFor(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException | ExecutionException ignored) {}
+        }
+    }
+
+    /**
+     * Start hashing local files on the executor, in the list order.
+     * Files which cannot be hashed get a null future.
+     */
+    private List<Future<String>> computeHashes(ExecutorService executor, List<MediaWrapper> mediaList) {
+        final List<Future<String>> hashes = new ArrayList<>(mediaList.size());
+        for (MediaWrapper media : mediaList) {
+            final Uri mediaUri = media.getUri();
+            if (FileUtils.canWrite(mediaUri)) {
+                hashes.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return stop ? null : FileUtils.computeHash(new File(mediaUri.getPath()));
+                    }
+                }));
+            } else //TODO network files
+                hashes.add(null);
+        }
+        return hashes;
+    }
+
     private void downloadSubtitles(String subUrl, String path, String fileName, String subFormat, String language){
         if (mToken == null || path == null)
             return;
@@ -345,7 +413,7 @@ public class SubtitlesDownloader {
             //Base64 then gunzip uncompression
             gzIS = new GZIPInputStream(urlConnection.getInputStream());
             int length;
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[8192];
             while ((length = gzIS.read(buffer)) != -1) {
                 f.write(buffer, 0, length);
             }
@@ -362,20 +430,23 @@ public class SubtitlesDownloader {
         return;
     }
 
-    private ArrayList<HashMap<String, String>> prepareRequestList(List<MediaWrapper> mediaList, List<String> languages, HashMap<String, String> index, boolean firstPass) {
+    private ArrayList<HashMap<String, String>> prepareRequestList(List<MediaWrapper> mediaList, List<Future<String>> hashes, List<String> languages, HashMap<String, String> index, boolean firstPass) {
         ArrayList<HashMap<String, String>> videoSearchList = new ArrayList<>();
-        for (MediaWrapper media : mediaList) {
+        for (int i = 0; i < mediaList.size(); ++i) {
             if (stop)
                 break;
+            final MediaWrapper media = mediaList.get(i);
             String hash = null, tag = null;
             long fileLength = 0;
             Uri mediaUri = media.getUri();
             if (firstPass) {
-                if (FileUtils.canWrite(mediaUri)) {
-                    File videoFile = new File(mediaUri.getPath());
-                    hash = FileUtils.computeHash(videoFile);
-                    fileLength = videoFile.length();
-                } //TODO network files
+                final Future<String> hashTask = hashes.get(i);
+                if (hashTask != null) {
+                    try {
+                        hash = hashTask.get();
+                    } catch (InterruptedException | ExecutionException ignored) {}
+                    fileLength = new File(mediaUri.getPath()).length();
+                }
                 if (hash == null)
                     continue;
             } else { //Second pass, search by TAG (filename)
@@ -7,8 +7,12 @@ import android.media.ThumbnailUtils;
 import android.net.Uri;
 import android.provider.MediaStore;
 import android.support.annotation.WorkerThread;
+import android.util.Log;
 
+import org.videolan.libvlc.util.AndroidUtil;
+import org.videolan.libvlc.util.VLCUtil;
 import org.videolan.medialibrary.media.MediaWrapper;
+import org.videolan.vlc.BuildConfig;
 import org.videolan.vlc.R;
 import org.videolan.vlc.VLCApplication;
 import org.videolan.vlc.gui.helpers.AudioUtil;
@@ -16,40 +20,200 @@ import org.videolan.vlc.gui.helpers.BitmapCache;
 import org.videolan.vlc.gui.helpers.BitmapUtil;
 import org.videolan.vlc.media.MediaGroup;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-
-import static org.videolan.medialibrary.Medialibrary.THUMBS_FOLDER_NAME;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ThumbnailsProvider {
 
     private static final String TAG = "VLC/ThumbnailsProvider";
 
     private static final int sImageWidth = VLCApplication.getAppResources().getDimensionPixelSize(VLCApplication.showTvUi() ? R.dimen.tv_grid_card_thumb_width : R.dimen.grid_card_thumb_width);
+    private static final int sImageHeight = VLCApplication.getAppResources().getDimensionPixelSize(VLCApplication.showTvUi() ? R.dimen.tv_grid_card_thumb_height : R.dimen.grid_card_thumb_height);
     private static final int MAX_IMAGES = 4;
 
-    @WorkerThread
-    public static Bitmap getThumbnail(final String filePath) {
-        final Bitmap bitmap= ThumbnailUtils.createVideoThumbnail(filePath, MediaStore.Video.Thumbnails.MINI_KIND);
+    /*
+     * Video thumbnails generation pool, each running generation holds a libvlc player.
+     * Bounded to the cores count, generation is mostly decoding.
+     */
+    private static final int sMaxThreads = Math.max(AndroidUtil.isJellyBeanMR1OrLater ? Runtime.getRuntime().availableProcessors() : 2, 1);
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(sMaxThreads, sMaxThreads, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), VLCApplication.THREAD_FACTORY);
+    static {
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+    /* Running generations by cache key, so that a file is processed only once at a time. Also used as lock */
+    private static final Map<String, FutureTask<Bitmap>> sGenerations = new HashMap<>();
+    /* Keys of files libvlc failed to generate a thumbnail for, not retried until next launch */
+    private static final Set<String> sFailures = new HashSet<>();
+
+    public interface ThumbnailsCallback {
+        /**
+         * Called from a worker thread once a thumbnail is processed
+         *
+         * @param bitmap the thumbnail, null if it could not be generated
+         * @param done count of processed medias, this one included
+         */
+        void onThumbnail(MediaWrapper media, Bitmap bitmap, int done, int total);
+    }
+
+    /**
+     * @return the {@link BitmapCache} key of the generated thumbnail of this video
+     */
+    public static String getThumbnailKey(MediaWrapper media) {
+        return "thumb:"+media.getLocation();
+    }
+
+    /**
+     * Generate thumbnails for all videos of this list, on a pool sized to the device cores.
+     * Cached thumbnails are reported without being generated again.
+     *
+     * @return the batch, to cancel it if its medias are no longer displayed
+     */
+    public static ThumbnailsBatch getThumbnails(List<MediaWrapper> medias, ThumbnailsCallback callback) {
+        final ThumbnailsBatch batch = new ThumbnailsBatch(medias, callback);
+        for (MediaWrapper media : batch.mMedias)
+            sExecutor.execute(batch.newTask(media));
+        return batch;
+    }
+
+    private static Bitmap getThumbnail(final String key, final Uri uri, ThumbnailsBatch batch) {
+        final BitmapCache bmc = BitmapCache.getInstance();
+        Bitmap bitmap = bmc.getBitmap(key);
         if (bitmap != null) {
-            final File appDir = VLCApplication.getAppContext().getExternalFilesDir(null);
-            if (appDir != null && appDir.exists())
-                VLCApplication.runBackground(new Runnable() {
+            batch.mHits.incrementAndGet();
+            return bitmap;
+        }
+        FutureTask<Bitmap> generation;
+        boolean owner = false;
+        synchronized (sGenerations) {
+            if (sFailures.contains(key))
+                return null;
+            generation = sGenerations.get(key);
+            if (generation == null) {
+                generation = new FutureTask<>(new Callable<Bitmap>() {
                     @Override
-                    public void run() {
-                        saveOnDisk(bitmap, appDir.getAbsolutePath()+ THUMBS_FOLDER_NAME
-                                +"/"+ FileUtils.getFileNameFromPath(filePath)+".jpg");
+                    public Bitmap call() throws Exception {
+                        return generateThumbnail(uri);
                     }
                 });
+                sGenerations.put(key, generation);
+                owner = true;
+            }
+        }
+        if (owner) {
+            // Generation runs on the requesting thread, other requesters only wait for a running one
+            generation.run();
+            boolean generated = false;
+            try {
+                bitmap = generation.get();
+                generated = true;
+            } catch (InterruptedException | ExecutionException ignored) {}
+            if (bitmap != null) {
+                bmc.addBitmapToCache(key, bitmap);
+                batch.mGenerated.incrementAndGet();
+            }
+            synchronized (sGenerations) {
+                sGenerations.remove(key);
+                // Only a generation which completed without a thumbnail is a failure
+                if (generated && bitmap == null)
+                    sFailures.add(key);
+            }
+            return bitmap;
+        }
+        try {
+            return generation.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static Bitmap generateThumbnail(Uri uri) {
+        Bitmap bitmap = null;
+        try {
+            // Decoded in place, borders cropped, no intermediate frame copy
+            bitmap = Bitmap.createBitmap(sImageWidth, sImageHeight, Bitmap.Config.ARGB_8888);
+            if (!VLCUtil.getThumbnail(VLCInstance.get(), uri, bitmap, true))
+                bitmap = null;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            Log.e(TAG, "libvlc thumbnailer failed : " + e.getMessage());
+            bitmap = null;
+        } catch (OutOfMemoryError e) {
+            return null;
         }
+        if (bitmap == null && "file".equals(uri.getScheme()))
+            bitmap = ThumbnailUtils.createVideoThumbnail(uri.getPath(), MediaStore.Video.Thumbnails.MINI_KIND);
         return bitmap;
     }
 
+    /**
+     * Thumbnails generation for a list of videos, with its progress and metrics
+     */
+    public static class ThumbnailsBatch {
+        private final List<MediaWrapper> mMedias;
+        private final ThumbnailsCallback mCallback;
+        private final long mStart = System.currentTimeMillis();
+        private final AtomicInteger mDone = new AtomicInteger();
+        private final AtomicInteger mHits = new AtomicInteger();
+        private final AtomicInteger mGenerated = new AtomicInteger();
+        private volatile boolean mCancelled = false;
+
+        private ThumbnailsBatch(List<MediaWrapper> medias, ThumbnailsCallback callback) {
+            mMedias = new ArrayList<>(medias.size());
+            for (MediaWrapper media : medias)
+                if (media.getType() == MediaWrapper.TYPE_VIDEO)
+                    mMedias.add(media);
+            mCallback = callback;
+        }
+
+        public int getTotal() {
+            return mMedias.size();
+        }
+
+        public int getDone() {
+            return mDone.get();
+        }
+
+        public void cancel() {
+            mCancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        private Runnable newTask(final MediaWrapper media) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    final Bitmap bitmap = mCancelled ? null : getThumbnail(getThumbnailKey(media), media.getUri(), ThumbnailsBatch.this);
+                    final int done = mDone.incrementAndGet();
+                    if (!mCancelled && mCallback != null)
+                        mCallback.onThumbnail(media, bitmap, done, getTotal());
+                    if (done == getTotal() && BuildConfig.DEBUG)
+                        Log.d(TAG, getTotal() + " thumbnails in " + (System.currentTimeMillis() - mStart)
+                                + "ms: " + mGenerated.get() + " generated, " + mHits.get() + " from cache"
+                                + (mCancelled ? ", cancelled" : ""));
+                }
+            };
+        }
+    }
+
     @WorkerThread
     public static Bitmap getComposedImage(MediaGroup group) {
         BitmapCache bmc = BitmapCache.getInstance();
         String key = "group:"+group.getTitle();
+        // Group content changes over time, so its image is only kept in memory
         Bitmap composedImage = bmc.getBitmapFromMemCache(key);
         if (composedImage == null) {
             composedImage = composeImage(group);
@@ -126,20 +290,4 @@ public class ThumbnailsProvider {
         }
         return bmOverlay;
     }
-
-    private static void saveOnDisk(Bitmap bitmap, String destPath) {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 100, stream);
-        byte[] byteArray = stream.toByteArray();
-        FileOutputStream fos = null;
-        try {
-            fos = new FileOutputStream(destPath);
-            fos.write(byteArray);
-        } catch (java.io.IOException e) {
-            e.printStackTrace();
-        } finally {
-            Util.close(fos);
-            Util.close(stream);
-        }
-    }
 }
@@ -24,6 +24,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.content.res.AssetManager;
+import android.os.SystemClock;
 import android.util.Log;
 
 import org.videolan.libvlc.LibVLC;
@@ -32,6 +33,8 @@ import org.videolan.vlc.VLCApplication;
 import org.videolan.vlc.VLCCrashHandler;
 import org.videolan.vlc.gui.CompatErrorActivity;
 
+import java.util.ArrayList;
+
 public class VLCInstance {
     public final static String TAG = "VLC/UiTools/VLCInstance";
 
@@ -53,12 +56,19 @@ public class VLCInstance {
             Thread.setDefaultUncaughtExceptionHandler(new VLCCrashHandler());
 
             final Context context = VLCApplication.getAppContext();
+            /* Startup phases, timed since they are on the way to the first frame */
+            final long start = SystemClock.elapsedRealtime();
             if(!VLCUtil.hasCompatibleCPU(context)) {
                 Log.e(TAG, VLCUtil.getErrorMsg());
                 throw new IllegalStateException("LibVLC initialisation failed: " + VLCUtil.getErrorMsg());
             }
-
-            sLibVLC = new LibVLC(context, VLCOptions.getLibOptions());
+            final long probed = SystemClock.elapsedRealtime();
+            final ArrayList<String> options = VLCOptions.getLibOptions();
+            final long configured = SystemClock.elapsedRealtime();
+            sLibVLC = new LibVLC(context, options);
+            final long loaded = SystemClock.elapsedRealtime();
+            Log.i(TAG, "LibVLC started in " + (loaded - start) + "ms: CPU probe " + (probed - start)
+                    + "ms, options " + (configured - probed) + "ms, init " + (loaded - configured) + "ms");
             VLCApplication.runBackground(sCopyLua);
         }
         return sLibVLC;
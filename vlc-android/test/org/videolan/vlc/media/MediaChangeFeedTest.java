@@ -0,0 +1,69 @@
+package org.videolan.vlc.media;
+
+import android.support.v4.util.LongSparseArray;
+
+import org.junit.Test;
+import org.videolan.medialibrary.media.DummyItem;
+import org.videolan.medialibrary.media.MediaLibraryItem;
+import org.videolan.medialibrary.media.MediaWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MediaChangeFeedTest {
+
+    private static final Comparator<MediaLibraryItem> TITLE_COMPARATOR = new Comparator<MediaLibraryItem>() {
+        @Override
+        public int compare(MediaLibraryItem item1, MediaLibraryItem item2) {
+            return item1.getTitle().compareTo(item2.getTitle());
+        }
+    };
+
+    @Test
+    public void testInsertInSectionedList() {
+        final List<MediaLibraryItem> list = new ArrayList<>(Arrays.asList(
+                new DummyItem("A"), media(1, "Apple"), media(2, "Avocado"),
+                new DummyItem("B"), media(3, "Banana"),
+                new DummyItem("C"), media(4, "Cherry")));
+        final LongSparseArray<MediaWrapper> inserted = new LongSparseArray<>();
+        inserted.put(5, media(5, "Blueberry"));
+        inserted.put(6, media(6, "Aardvark"));
+        inserted.put(7, media(7, "Date"));
+        final MediaChangeFeed.Changes changes = new MediaChangeFeed.Changes(inserted,
+                new LongSparseArray<MediaWrapper>(), new LongSparseArray<Boolean>());
+        changes.applyTo(list, TITLE_COMPARATOR);
+        assertEquals(Arrays.asList("Aardvark", "Apple", "Avocado", "Banana", "Blueberry", "Cherry", "Date"), titles(list));
+    }
+
+    @Test
+    public void testUpdateAndDelete() {
+        final List<MediaLibraryItem> list = new ArrayList<>(Arrays.asList(
+                new DummyItem("A"), media(1, "Apple"), media(2, "Avocado"),
+                new DummyItem("B"), media(3, "Banana")));
+        final LongSparseArray<MediaWrapper> updated = new LongSparseArray<>();
+        updated.put(1, media(1, "Zucchini"));
+        updated.put(8, media(8, "Berry"));
+        final LongSparseArray<Boolean> deleted = new LongSparseArray<>();
+        deleted.put(3, Boolean.TRUE);
+        final MediaChangeFeed.Changes changes = new MediaChangeFeed.Changes(new LongSparseArray<MediaWrapper>(),
+                updated, deleted);
+        changes.applyTo(list, TITLE_COMPARATOR);
+        assertEquals(Arrays.asList("Avocado", "Berry", "Zucchini"), titles(list));
+        assertEquals(1, list.get(2).getId());
+    }
+
+    private static List<String> titles(List<MediaLibraryItem> list) {
+        final List<String> titles = new ArrayList<>(list.size());
+        for (MediaLibraryItem item : list)
+            titles.add(item.getTitle());
+        return titles;
+    }
+
+    private static MediaWrapper media(long id, String title) {
+        return new TestMedia(id, title);
+    }
+}
@@ -0,0 +1,168 @@
+package org.videolan.vlc.media;
+
+import org.junit.Test;
+import org.videolan.medialibrary.media.MediaWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MediaWrapperListTest {
+
+    @Test
+    public void testInsertAndRemove() {
+        final MediaWrapperList list = new MediaWrapperList();
+        final List<String> reference = new ArrayList<>();
+        add(list, reference, 0, "a", "b", "a", "c");
+        assertIndex(list, reference);
+        add(list, reference, 1, "c");
+        assertIndex(list, reference);
+        assertArrayEquals(new int[] {0, 3}, list.getPositions("a"));
+        assertEquals(1, list.indexOf("c"));
+        list.remove(0);
+        reference.remove(0);
+        assertIndex(list, reference);
+        list.remove("c");
+        reference.removeAll(Arrays.asList("c"));
+        assertIndex(list, reference);
+        assertFalse(list.contains("c"));
+        assertEquals(-1, list.indexOf("c"));
+    }
+
+    @Test
+    public void testBatchRemove() {
+        final MediaWrapperList list = new MediaWrapperList();
+        final List<String> reference = new ArrayList<>();
+        add(list, reference, 0, "a", "b", "c", "d", "e", "f");
+        final List<int[]> events = new ArrayList<>();
+        list.addEventListener(new ListenerAdapter() {
+            @Override
+            public void onItemRemoved(int index, String mrl) {
+                fail("one event per batch expected");
+            }
+
+            @Override
+            public void onItemsRemoved(int[] positions) {
+                events.add(positions);
+            }
+        });
+        list.remove(new int[] {4, 1, 4, 9, 2});
+        reference.removeAll(Arrays.asList("b", "c", "e"));
+        assertIndex(list, reference);
+        assertEquals(1, events.size());
+        assertArrayEquals(new int[] {1, 2, 4}, events.get(0));
+        assertEquals(3, list.getAudioCount());
+    }
+
+    @Test
+    public void testRandomChanges() {
+        final Random random = new Random(1);
+        final MediaWrapperList list = new MediaWrapperList();
+        final List<String> reference = new ArrayList<>();
+        for (int i = 0; i < 2000; ++i) {
+            final int size = reference.size();
+            final String location = "file:///" + random.nextInt(30);
+            switch (random.nextInt(6)) {
+                case 0:
+                    list.add(media(location));
+                    reference.add(location);
+                    break;
+                case 1:
+                    add(list, reference, random.nextInt(size + 1), location, "file:///" + random.nextInt(30));
+                    break;
+                case 2:
+                    if (size > 0) {
+                        final int position = random.nextInt(size);
+                        list.remove(position);
+                        reference.remove(position);
+                    }
+                    break;
+                case 3:
+                    list.remove(location);
+                    reference.removeAll(Arrays.asList(location));
+                    break;
+                case 4:
+                    if (size > 0) {
+                        final int start = random.nextInt(size), end = random.nextInt(size + 1);
+                        list.move(start, end);
+                        reference.add(start < end ? end - 1 : end, reference.remove(start));
+                    }
+                    break;
+                case 5:
+                    if (size > 1) {
+                        final int[] positions = {random.nextInt(size), random.nextInt(size)};
+                        list.remove(positions);
+                        final int first = Math.min(positions[0], positions[1]), last = Math.max(positions[0], positions[1]);
+                        reference.remove(last);
+                        if (first != last)
+                            reference.remove(first);
+                    }
+                    break;
+            }
+            // Check the index one time out of two, so that changes also pile up between lookups
+            if (random.nextBoolean())
+                assertIndex(list, reference);
+        }
+        assertIndex(list, reference);
+    }
+
+    private static void add(MediaWrapperList list, List<String> reference, int position, String... locations) {
+        final List<MediaWrapper> medias = new ArrayList<>(locations.length);
+        for (String location : locations)
+            medias.add(media(location));
+        list.insert(position, medias);
+        reference.addAll(position, Arrays.asList(locations));
+    }
+
+    private static void assertIndex(MediaWrapperList list, List<String> reference) {
+        assertEquals(reference, locations(list));
+        final Set<String> distinct = new HashSet<>(reference);
+        for (String location : distinct) {
+            final List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < reference.size(); ++i)
+                if (reference.get(i).equals(location))
+                    expected.add(i);
+            final int[] positions = list.getPositions(location);
+            assertEquals(expected.size(), positions.length);
+            for (int i = 0; i < positions.length; ++i)
+                assertEquals((int) expected.get(i), positions[i]);
+            assertTrue(list.contains(location));
+            assertEquals((int) expected.get(0), list.indexOf(location));
+        }
+        assertFalse(list.contains("file:///missing"));
+        assertEquals(reference.size(), list.getAudioCount());
+    }
+
+    private static List<String> locations(MediaWrapperList list) {
+        final List<String> locations = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); ++i)
+            locations.add(list.getMRL(i));
+        return locations;
+    }
+
+    private static MediaWrapper media(String location) {
+        return new TestMedia(0, location, location, MediaWrapper.TYPE_AUDIO);
+    }
+
+    private static class ListenerAdapter implements MediaWrapperList.EventListener {
+        @Override
+        public void onItemAdded(int index, String mrl) {}
+
+        @Override
+        public void onItemRemoved(int index, String mrl) {}
+
+        @Override
+        public void onItemMoved(int indexBefore, int indexAfter, String mrl) {}
+
+        @Override
+        public void onItemsAdded(int index, int count) {}
+
+        @Override
+        public void onItemsRemoved(int[] positions) {}
+    }
+}
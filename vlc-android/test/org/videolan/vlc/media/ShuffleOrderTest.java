@@ -0,0 +1,116 @@
+package org.videolan.vlc.media;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ShuffleOrderTest {
+
+    @Test
+    public void testPlaysAllOnce() {
+        final ShuffleOrder order = new ShuffleOrder(new Random(1));
+        order.reset(1000, 42);
+        assertEquals(42, order.getCurrent());
+        assertEquals(-1, order.getPrevious());
+        final Set<Integer> played = new HashSet<>();
+        played.add(42);
+        int previous = 42;
+        for (int next = order.getNext(); next != -1; next = order.getNext()) {
+            assertTrue(played.add(next));
+            order.setCurrent(next);
+            assertEquals(previous, order.getPrevious());
+            previous = next;
+        }
+        assertEquals(1000, played.size());
+    }
+
+    @Test
+    public void testJumpAndPrevious() {
+        final ShuffleOrder order = new ShuffleOrder(new Random(2));
+        order.reset(10, 0);
+        final int next = order.getNext();
+        final int jump = next == 5 ? 6 : 5;
+        order.setCurrent(jump);
+        assertEquals(0, order.getPrevious());
+        order.setCurrent(0);
+        assertEquals(jump, order.getNext());
+        order.setCurrent(jump);
+        boolean nextPlayed = false;
+        for (int position = order.getNext(); position != -1; position = order.getNext()) {
+            nextPlayed |= position == next;
+            order.setCurrent(position);
+        }
+        assertTrue(nextPlayed);
+    }
+
+    @Test
+    public void testListChanges() {
+        final Random random = new Random(3);
+        final ShuffleOrder order = new ShuffleOrder(new Random(4));
+        final List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 50; ++i)
+            list.add(i);
+        int nextId = list.size();
+        order.reset(list.size(), 0);
+        for (int step = 0; step < 500; ++step) {
+            final int current = list.get(order.getCurrent());
+            final int next = order.getNext() != -1 ? list.get(order.getNext()) : -1;
+            switch (random.nextInt(5)) {
+                case 0:
+                    final int position = random.nextInt(list.size() + 1);
+                    list.add(position, nextId++);
+                    order.insert(position);
+                    break;
+                case 1:
+                    int removed = random.nextInt(list.size());
+                    if (list.get(removed) == current || list.get(removed) == next)
+                        continue;
+                    list.remove(removed);
+                    order.remove(removed);
+                    break;
+                case 2:
+                    final int index = random.nextInt(list.size() + 1);
+                    final int count = 1 + random.nextInt(5);
+                    for (int i = 0; i < count; ++i)
+                        list.add(index + i, nextId++);
+                    order.insert(index, count);
+                    break;
+                case 3:
+                    final int first = random.nextInt(list.size()), last = random.nextInt(list.size());
+                    final int[] positions = first < last ? new int[] {first, last} : new int[] {last};
+                    boolean playing = false;
+                    for (int removedPosition : positions)
+                        playing |= list.get(removedPosition) == current || list.get(removedPosition) == next;
+                    if (playing || list.size() <= positions.length)
+                        continue;
+                    for (int i = positions.length - 1; i >= 0; --i)
+                        list.remove(positions[i]);
+                    order.remove(positions);
+                    break;
+                default:
+                    final int start = random.nextInt(list.size());
+                    final int end = random.nextInt(list.size() + 1);
+                    final int item = list.remove(start);
+                    list.add(start >= end ? end : end - 1, item);
+                    order.move(start, end);
+            }
+            assertEquals(list.size(), order.size());
+            assertEquals(current, (int) list.get(order.getCurrent()));
+            if (next != -1 && order.getNext() != -1 && random.nextInt(2) == 0) {
+                order.setCurrent(order.getNext());
+            }
+        }
+        final Set<Integer> positions = new HashSet<>();
+        positions.add(order.getCurrent());
+        for (int next = order.getNext(); next != -1; next = order.getNext()) {
+            assertTrue(positions.add(next));
+            order.setCurrent(next);
+        }
+    }
+}
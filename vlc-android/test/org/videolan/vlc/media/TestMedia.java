@@ -0,0 +1,38 @@
+package org.videolan.vlc.media;
+
+import android.net.Uri;
+
+import org.videolan.medialibrary.media.MediaWrapper;
+
+/* MediaWrapper without the android.text and android.net calls, unavailable in unit tests */
+class TestMedia extends MediaWrapper {
+    private final long mTestId;
+    private final String mTestTitle;
+    private final String mTestLocation;
+
+    TestMedia(long id, String title) {
+        this(id, title, "file:///" + title, TYPE_AUDIO);
+    }
+
+    TestMedia(long id, String title, String location, int type) {
+        super((Uri) null, 0L, 0L, type, null, null, null, null, null, null, 0, 0, null, 0, 0, 0, 0, 0L, 0L);
+        mTestId = id;
+        mTestTitle = title;
+        mTestLocation = location;
+    }
+
+    @Override
+    public long getId() {
+        return mTestId;
+    }
+
+    @Override
+    public String getTitle() {
+        return mTestTitle;
+    }
+
+    @Override
+    public String getLocation() {
+        return mTestLocation;
+    }
+}
@@ -0,0 +1,158 @@
+package org.videolan.vlc.media;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TitlePrefixIndexTest {
+
+    @Test
+    public void testGrouping() {
+        final TitlePrefixIndex index = new TitlePrefixIndex(6);
+        assertEquals(0, index.add("Friends S01E01"));
+        assertEquals(1, index.add("Movie"));
+        assertEquals(0, index.add("friends S01E02"));
+        assertEquals("Friends S01E0", index.getTitle(0));
+        assertEquals(0, index.add("The Friends S02E01"));
+        assertEquals("Friends S0", index.getTitle(0));
+        assertEquals(2, index.add("The Office"));
+        assertEquals(2, index.add("the office 2"));
+        assertEquals("The Office", index.getTitle(2));
+        assertEquals(3, index.add("Movie"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testDisabled() {
+        final TitlePrefixIndex index = new TitlePrefixIndex(0);
+        assertEquals(0, index.add("Friends S01E01"));
+        assertEquals(1, index.add("Friends S01E01"));
+    }
+
+    @Test
+    public void testSameAsLinearScan() {
+        final List<String> titles = generateTitles(2000, 1);
+        for (int minLength : new int[] {0, 1, 3, 6, 10}) {
+            final TitlePrefixIndex index = new TitlePrefixIndex(minLength);
+            final List<String> groups = new ArrayList<>();
+            for (String title : titles) {
+                final int expected = linearInsert(groups, title, minLength);
+                assertEquals(expected, index.add(title));
+                assertEquals(groups.get(expected), index.getTitle(expected));
+            }
+            assertEquals(groups.size(), index.size());
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        final List<String> titles = generateTitles(1000, 3);
+        final TitlePrefixIndex index = new TitlePrefixIndex(6);
+        final List<List<String>> groups = new ArrayList<>();
+        for (String title : titles) {
+            final int position = index.add(title);
+            if (position == groups.size())
+                groups.add(new ArrayList<String>());
+            groups.get(position).add(title);
+        }
+        final Random random = new Random(4);
+        for (int step = 0; step < 800; ++step) {
+            final int position = random.nextInt(groups.size());
+            final List<String> group = groups.get(position);
+            if (group.isEmpty())
+                continue;
+            group.remove(random.nextInt(group.size()));
+            index.remove(position, group);
+            if (group.isEmpty()) {
+                assertNull(index.getTitle(position));
+                continue;
+            }
+            final TitlePrefixIndex expected = new TitlePrefixIndex(6);
+            for (String title : group)
+                assertEquals(0, expected.add(title));
+            assertEquals(expected.getTitle(0), index.getTitle(position));
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        final TitlePrefixIndex index = new TitlePrefixIndex(6);
+        assertEquals(0, index.add("Friends S01E01"));
+        assertEquals(0, index.add("Friends S02E01"));
+        index.remove(0, Collections.singletonList("Friends S02E01"));
+        assertEquals("Friends S02E01", index.getTitle(0));
+        index.remove(0, Collections.<String>emptyList());
+        assertNull(index.getTitle(0));
+        // Emptied groups keep their position, a new group is made
+        assertEquals(1, index.add("Friends S03E01"));
+        assertEquals(2, index.size());
+    }
+
+    /* Timing only, run it explicitly to compare the index with the former linear scan */
+    @Ignore
+    @Test
+    public void benchmark() {
+        final List<String> titles = generateTitles(5000, 2);
+        long start = System.nanoTime();
+        final TitlePrefixIndex index = new TitlePrefixIndex(6);
+        for (String title : titles)
+            index.add(title);
+        final long indexed = System.nanoTime() - start;
+        start = System.nanoTime();
+        final List<String> groups = new ArrayList<>();
+        for (String title : titles)
+            linearInsert(groups, title, 6);
+        final long linear = System.nanoTime() - start;
+        System.out.println("Grouping " + titles.size() + " titles: index " + indexed / 1000000
+                + "ms, linear scan " + linear / 1000000 + "ms");
+        assertEquals(groups.size(), index.size());
+    }
+
+    private static List<String> generateTitles(int count, long seed) {
+        final Random random = new Random(seed);
+        final String[] series = {"Friends", "The Office", "Breaking Bad", "Lost", "the wire", "Doctor Who"};
+        final List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            if (random.nextInt(3) == 0) {
+                final String name = series[random.nextInt(series.length)];
+                titles.add((random.nextBoolean() ? name : name.toUpperCase()) + " S0" + random.nextInt(10) + "E" + random.nextInt(30));
+            } else {
+                final char[] chars = new char[2 + random.nextInt(12)];
+                for (int j = 0; j < chars.length; ++j)
+                    chars[j] = (char) ('a' + random.nextInt(4));
+                titles.add(new String(chars));
+            }
+        }
+        return titles;
+    }
+
+    /* Former MediaGroup.insertInto algorithm, working on titles */
+    private static int linearInsert(List<String> groups, String media, int minGroupLength) {
+        for (int i = 0; i < groups.size(); ++i) {
+            final String group = groups.get(i);
+            String title = media;
+            int groupOffset = group.toLowerCase().startsWith("the") ? 4 : 0;
+            if (title.toLowerCase().startsWith("the"))
+                title = title.substring(4);
+            int commonLength = 0;
+            String groupTitle = group.substring(groupOffset);
+            int minLength = Math.min(groupTitle.length(), title.length());
+            while (commonLength < minLength
+                    && groupTitle.toLowerCase().charAt(commonLength) == title.toLowerCase().charAt(commonLength))
+                ++commonLength;
+            if (commonLength >= minGroupLength && minGroupLength != 0) {
+                if (commonLength != group.length())
+                    groups.set(i, group.substring(0, commonLength + groupOffset));
+                return i;
+            }
+        }
+        groups.add(media);
+        return groups.size() - 1;
+    }
+}